@@ -1,6 +1,5 @@
 package com.example.hochschule_koblenz_chat_app;
 
-import android.net.Uri;
 import android.os.Bundle;
 import android.widget.EditText;
 import android.widget.ImageButton;
@@ -9,6 +8,7 @@ import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.Lifecycle;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
@@ -17,26 +17,28 @@ import com.example.hochschule_koblenz_chat_app.model.ChatMessageModel;
 import com.example.hochschule_koblenz_chat_app.model.ChatroomModel;
 import com.example.hochschule_koblenz_chat_app.model.UserModel;
 import com.example.hochschule_koblenz_chat_app.utils.AndroidUtil;
+import com.example.hochschule_koblenz_chat_app.utils.ChatHistoryPager;
+import com.example.hochschule_koblenz_chat_app.utils.CurrentUserStore;
 import com.example.hochschule_koblenz_chat_app.utils.FirebaseUtil;
-import com.firebase.ui.firestore.FirestoreRecyclerOptions;
-import com.google.android.gms.tasks.OnCompleteListener;
-import com.google.android.gms.tasks.Task;
+import com.example.hochschule_koblenz_chat_app.utils.ListenerRegistry;
+import com.example.hochschule_koblenz_chat_app.utils.RowViewPool;
+import com.example.hochschule_koblenz_chat_app.utils.MessageOutbox;
+import com.example.hochschule_koblenz_chat_app.utils.MessageSearchIndex;
+import com.example.hochschule_koblenz_chat_app.utils.NotificationDispatcher;
+import com.example.hochschule_koblenz_chat_app.utils.ParticipantFanOut;
 import com.google.firebase.Timestamp;
-import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.MetadataChanges;
 import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.SetOptions;
 
 import org.json.JSONObject;
 
-import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
-import okhttp3.Call;
-import okhttp3.Callback;
-import okhttp3.MediaType;
-import okhttp3.OkHttpClient;
-import okhttp3.Request;
-import okhttp3.RequestBody;
-import okhttp3.Response;
 
 /**
  * Die ChatActivity verwaltet die Chat-Funktionalität zwischen zwei Benutzern.
@@ -47,11 +49,25 @@ import okhttp3.Response;
  */
 public class ChatActivity extends AppCompatActivity {
 
+    // Intent-Extra mit der ID einer Nachricht, zu der beim Öffnen gesprungen wird
+    public static final String EXTRA_JUMP_TO_MESSAGE_ID = "jumpToMessageId";
+
     // Variablen für den anderen Benutzer, die Chatraum-ID und das ChatroomModel
     UserModel otherUser;
     String chatroomId;
     ChatroomModel chatroomModel;
     ChatRecyclerAdapter adapter;
+    // Lädt den Nachrichtenverlauf seitenweise
+    ChatHistoryPager historyPager;
+    // ID der zuletzt angezeigten neuesten Nachricht
+    String newestMessageId;
+    // ID der Nachricht, zu der gesprungen wird, bis sie angezeigt wurde
+    String jumpToMessageId;
+    // Zuletzt gelesener Ungelesen-Zähler des aktuellen Benutzers in diesem Chatroom
+    long unreadCount;
+
+    // Anzahl der Nachrichten vor dem Ende der Liste, ab der nachgeladen wird
+    private static final int LOAD_MORE_THRESHOLD = 10;
 
     // UI-Elemente
     EditText messageInput;
@@ -75,6 +91,7 @@ public class ChatActivity extends AppCompatActivity {
         otherUser = AndroidUtil.getUserModelFromIntent(getIntent());
         // Chatraum-ID generieren basierend auf den Benutzer-IDs
         chatroomId = FirebaseUtil.getChatroomId(FirebaseUtil.currentUserId(), otherUser.getUserId());
+        jumpToMessageId = getIntent().getStringExtra(EXTRA_JUMP_TO_MESSAGE_ID);
 
         // UI-Elemente initialisieren
         messageInput = findViewById(R.id.chat_message_input);
@@ -85,13 +102,7 @@ public class ChatActivity extends AppCompatActivity {
         imageView = findViewById(R.id.profile_pic_image_view);
 
         // Profilbild des anderen Benutzers abrufen und anzeigen
-        FirebaseUtil.getOtherProfilePicStorageRef(otherUser.getUserId()).getDownloadUrl()
-                .addOnCompleteListener(t -> {
-                    if (t.isSuccessful()) {
-                        Uri uri = t.getResult();
-                        AndroidUtil.setProfilePic(this, uri, imageView);
-                    }
-                });
+        AndroidUtil.setProfilePic(this, otherUser, imageView);
 
         // Klick-Listener für den Zurück-Button
         backBtn.setOnClickListener((v) -> {
@@ -116,38 +127,141 @@ public class ChatActivity extends AppCompatActivity {
 
     /**
      * Richtet die RecyclerView für die Anzeige der Chat-Nachrichten ein.
+     * Die neuesten Nachrichten werden live geladen, ältere seitenweise beim
+     * Scrollen. Wurde der Chat aus der Nachrichtensuche geöffnet, wird nur ein
+     * Fenster um die gesuchte Nachricht geladen.
      */
     void setupChatRecyclerView() {
-        // Abfrage für alle Nachrichten im Chatraum, sortiert nach Zeitstempel in
+        // Abfrage für die Nachrichten im Chatraum, sortiert nach Zeitstempel in
         // absteigender Reihenfolge
         Query query = FirebaseUtil.getChatroomMessageReference(chatroomId)
                 .orderBy("timestamp", Query.Direction.DESCENDING);
 
-        // FirestoreRecyclerOptions erstellen, um die Abfrageergebnisse in die
-        // RecyclerView zu laden
-        FirestoreRecyclerOptions<ChatMessageModel> options = new FirestoreRecyclerOptions.Builder<ChatMessageModel>()
-                .setQuery(query, ChatMessageModel.class).build();
-
-        // Initialisieren des Adapters mit den Optionen und Setzen auf die RecyclerView
-        adapter = new ChatRecyclerAdapter(options, getApplicationContext());
+        // Initialisieren des Adapters und Setzen auf die RecyclerView
+        adapter = new ChatRecyclerAdapter(getApplicationContext());
         LinearLayoutManager manager = new LinearLayoutManager(this);
         manager.setReverseLayout(true); // Setzen der Layout-Richtung auf umgekehrt, um die neuesten Nachrichten oben
                                         // anzuzeigen
         recyclerView.setLayoutManager(manager);
+        // Zeilen aus dem gemeinsamen Pool bzw. den vorab aufgeblähten Zeilen
+        RowViewPool.getInstance().attach(recyclerView);
         recyclerView.setAdapter(adapter);
-        adapter.startListening(); // Startet das Anhören von Änderungen in der Firestore-Abfrage
 
-        // Automatisches Scrollen zur neuesten Nachricht, wenn neue Nachrichten
-        // eingefügt werden
-        adapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+        // Der Pager liefert das Live-Fenster und die nachgeladenen älteren Seiten
+        historyPager = new ChatHistoryPager(query, messages -> {
+            // Angekommene Nachrichten für die Nachrichtensuche eintragen
+            MessageSearchIndex.getInstance(this).index(chatroomId, otherUser.getUserId(), messages);
+            String newestId = messages.isEmpty() ? null : messages.get(0).getId();
+            boolean newMessage = newestId != null && !newestId.equals(newestMessageId);
+            int jumpPosition = indexOf(messages, jumpToMessageId);
+            Runnable onShown = null;
+            if (jumpPosition >= 0) {
+                // Die gesuchte Nachricht im oberen Drittel der Liste anzeigen
+                jumpToMessageId = null;
+                onShown = () -> manager.scrollToPositionWithOffset(jumpPosition, recyclerView.getHeight() / 3);
+            } else if (newMessage && jumpToMessageId == null) {
+                // Automatisches Scrollen zur neuesten Nachricht, sobald die neue Liste
+                // angezeigt wird
+                onShown = () -> recyclerView.smoothScrollToPosition(0);
+            }
+            adapter.setMessages(messages, onShown);
+            newestMessageId = newestId;
+        });
+        // Neue Nachrichten gelten als gelesen, solange der Chat sichtbar ist; der
+        // Zähler wird nur zurückgesetzt, wenn er tatsächlich erhöht wurde
+        ListenerRegistry.getInstance().listen(this,
+                FirebaseUtil.allChatroomCollectionReference().whereEqualTo(FieldPath.documentId(), chatroomId),
+                MetadataChanges.EXCLUDE, (snapshot, e) -> {
+                    if (e != null || snapshot == null || snapshot.isEmpty()) {
+                        return;
+                    }
+                    ChatroomModel model = snapshot.getDocuments().get(0).toObject(ChatroomModel.class);
+                    unreadCount = model == null ? 0 : model.unreadCountFor(FirebaseUtil.currentUserId());
+                    if (getLifecycle().getCurrentState().isAtLeast(Lifecycle.State.RESUMED)) {
+                        markAsRead();
+                    }
+                });
+        historyPager.start(this);
+        if (jumpToMessageId != null) {
+            historyPager.jumpTo(FirebaseUtil.getChatroomMessageReference(chatroomId).document(jumpToMessageId));
+        }
+
+        // Beim Scrollen ältere Seiten nachladen bzw. weit entfernte Seiten verwerfen
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
             @Override
-            public void onItemRangeInserted(int positionStart, int itemCount) {
-                super.onItemRangeInserted(positionStart, itemCount);
-                recyclerView.smoothScrollToPosition(0);
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                // Nach einem Sprung die Lücke zu den neuesten Nachrichten schließen
+                int gapPosition = historyPager.gapPosition();
+                if (gapPosition >= 0 && manager.findFirstVisibleItemPosition() <= gapPosition + LOAD_MORE_THRESHOLD) {
+                    historyPager.loadNewer();
+                }
+                int lastVisible = manager.findLastVisibleItemPosition();
+                if (lastVisible >= adapter.getItemCount() - LOAD_MORE_THRESHOLD) {
+                    historyPager.loadOlder();
+                } else {
+                    historyPager.trimOlderPages(lastVisible);
+                }
             }
         });
     }
 
+    /**
+     * Gibt die Position einer Nachricht in der Liste zurück.
+     *
+     * @param messages  Die angezeigten Nachrichten.
+     * @param messageId Die gesuchte Nachrichten-ID; darf null sein.
+     * @return Die Position oder -1, wenn die Nachricht nicht geladen ist.
+     */
+    private static int indexOf(List<DocumentSnapshot> messages, String messageId) {
+        if (messageId == null) {
+            return -1;
+        }
+        for (int i = 0; i < messages.size(); i++) {
+            if (messageId.equals(messages.get(i).getId())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Setzt den Ungelesen-Zähler zurück, wenn der Chat wieder sichtbar wird.
+     */
+    @Override
+    protected void onResume() {
+        super.onResume();
+        markAsRead();
+    }
+
+    /**
+     * Setzt den Ungelesen-Zähler des aktuellen Benutzers in diesem Chatroom auf 0.
+     * Geschrieben wird nur, wenn ungelesene Nachrichten vorliegen, und nur dieses
+     * eine Feld; der Merge legt den Chatroom an, falls er noch nicht existiert.
+     */
+    void markAsRead() {
+        if (unreadCount <= 0) {
+            return;
+        }
+        unreadCount = 0;
+        FirebaseUtil.getChatroomReference(chatroomId).set(
+                Collections.singletonMap("unreadCounts",
+                        Collections.singletonMap(FirebaseUtil.currentUserId(), 0)),
+                SetOptions.merge());
+    }
+
+    /**
+     * Beendet den Live-Listener des Nachrichtenverlaufs und gibt die Zeilen an den
+     * gemeinsamen Pool zurück, damit der nächste Chat sie wiederverwendet.
+     */
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (historyPager != null) {
+            historyPager.stop();
+        }
+        RowViewPool.getInstance().release(recyclerView);
+    }
+
     /**
      * Sendet eine Nachricht an den anderen Benutzer und aktualisiert das
      * ChatroomModel.
@@ -155,30 +269,23 @@ public class ChatActivity extends AppCompatActivity {
      * @param message Die zu sendende Nachricht
      */
     void sendMessageToUser(String message) {
-        // Aktualisieren der letzten Nachricht und des Zeitstempels im ChatroomModel
-        chatroomModel.setLastMessageTimestamp(Timestamp.now());
-        chatroomModel.setLastMessageSenderId(FirebaseUtil.currentUserId());
-        chatroomModel.setLastMessage(message);
-        FirebaseUtil.getChatroomReference(chatroomId).set(chatroomModel);
-
-        // Erstellen und Senden des ChatMessageModels
+        // Erstellen des ChatMessageModels; die Nachricht wird über die Outbox
+        // gesendet und erscheint sofort als ausstehend in der Chat-Ansicht
         ChatMessageModel chatMessageModel = new ChatMessageModel(message, FirebaseUtil.currentUserId(),
                 Timestamp.now());
-        FirebaseUtil.getChatroomMessageReference(chatroomId).add(chatMessageModel)
-                .addOnCompleteListener(new OnCompleteListener<DocumentReference>() {
-                    @Override
-                    public void onComplete(@NonNull Task<DocumentReference> task) {
-                        if (task.isSuccessful()) {
-                            messageInput.setText(""); // Eingabefeld zurücksetzen
-                            sendNotification(message); // Benachrichtigung senden
-                        }
+        messageInput.setText(""); // Eingabefeld sofort zurücksetzen
+        MessageOutbox.getInstance(this).enqueue(chatroomId, otherUser.getUserId(), chatMessageModel)
+                .addOnCompleteListener(task -> {
+                    if (task.isSuccessful()) {
+                        sendNotification(message); // Benachrichtigung senden
                     }
                 });
     }
 
     /**
      * Holt das bestehende ChatroomModel oder erstellt ein neues, falls es noch
-     * nicht existiert.
+     * nicht existiert. Fehlende oder veraltete Angaben des angemeldeten
+     * Benutzers werden dabei ergänzt; die des Chatpartners pflegt dessen App.
      */
     void getOrCreateChatroomModel() {
         FirebaseUtil.getChatroomReference(chatroomId).get().addOnCompleteListener(task -> {
@@ -193,6 +300,10 @@ public class ChatActivity extends AppCompatActivity {
                             "");
                     FirebaseUtil.getChatroomReference(chatroomId).set(chatroomModel);
                 }
+                // Eigene Anzeigedaten für die Chatliste ergänzen
+                ChatroomModel loaded = chatroomModel;
+                CurrentUserStore.getInstance(this).get().addOnSuccessListener(
+                        currentUser -> ParticipantFanOut.getInstance().refresh(chatroomId, loaded, currentUser));
             }
         });
     }
@@ -203,9 +314,10 @@ public class ChatActivity extends AppCompatActivity {
      * @param message Die Nachricht, die in der Benachrichtigung angezeigt wird
      */
     void sendNotification(String message) {
-        FirebaseUtil.currentUserDetails().get().addOnCompleteListener(task -> {
+        // Das eigene Profil kommt aus dem CurrentUserStore statt aus Firestore
+        CurrentUserStore.getInstance(this).get().addOnCompleteListener(task -> {
             if (task.isSuccessful()) {
-                UserModel currentUser = task.getResult().toObject(UserModel.class);
+                UserModel currentUser = task.getResult();
                 try {
                     JSONObject jsonObject = new JSONObject();
 
@@ -236,32 +348,14 @@ public class ChatActivity extends AppCompatActivity {
     }
 
     /**
-     * Führt einen API-Aufruf zur Firebase Cloud Messaging API aus, um die
-     * Benachrichtigung zu senden.
+     * Übergibt die Benachrichtigung an den NotificationDispatcher, der sie über
+     * die Firebase Cloud Messaging API versendet.
      *
      * @param jsonObject Das JSON-Objekt, das die Benachrichtigungsdaten enthält
      */
     void callApi(JSONObject jsonObject) {
-        MediaType JSON = MediaType.get("application/json; charset=utf-8");
-        OkHttpClient client = new OkHttpClient();
-        String url = "https://fcm.googleapis.com/fcm/send";
-        RequestBody body = RequestBody.create(jsonObject.toString(), JSON);
-        Request request = new Request.Builder()
-                .url(url)
-                .post(body)
-                .header("Authorization", "Bearer YOUR_API_KEY")
-                .build();
-        client.newCall(request).enqueue(new Callback() {
-            @Override
-            public void onFailure(@NonNull Call call, @NonNull IOException e) {
-                // Fehlerbehandlung für den API-Aufruf
-            }
-
-            @Override
-            public void onResponse(@NonNull Call call, @NonNull Response response) throws IOException {
-                // Behandlung der erfolgreichen Antwort des API-Aufrufs
-            }
-        });
-
+        if (otherUser.getFcmToken() == null)
+            return;
+        NotificationDispatcher.getInstance().dispatch(otherUser.getFcmToken(), jsonObject.toString());
     }
 }
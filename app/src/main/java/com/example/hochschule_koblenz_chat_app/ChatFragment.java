@@ -1,8 +1,9 @@
 package com.example.hochschule_koblenz_chat_app;
 
-import android.annotation.SuppressLint;
 import android.os.Bundle;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -14,14 +15,32 @@ import android.view.ViewGroup;
 import com.example.hochschule_koblenz_chat_app.adapter.RecentChatRecyclerAdapter;
 import com.example.hochschule_koblenz_chat_app.model.ChatroomModel;
 import com.example.hochschule_koblenz_chat_app.utils.FirebaseUtil;
-import com.firebase.ui.firestore.FirestoreRecyclerOptions;
+import com.example.hochschule_koblenz_chat_app.utils.ListenerRegistry;
+import com.example.hochschule_koblenz_chat_app.utils.RecentChatsCache;
+import com.example.hochschule_koblenz_chat_app.utils.RowViewPool;
+import com.example.hochschule_koblenz_chat_app.utils.UserProfileRepository;
+import com.example.hochschule_koblenz_chat_app.utils.UserSearchIndex;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.MetadataChanges;
 import com.google.firebase.firestore.Query;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
 /**
  * Das ChatFragment zeigt eine Liste der kürzlichen Chats des aktuellen
  * Benutzers an.
  * Es verwendet einen RecyclerView-Adapter, um die Chat-Daten aus Firestore
- * anzuzeigen.
+ * anzuzeigen. Ein Snapshot-Listener liefert die Änderungen, die der Adapter
+ * per DiffUtil einarbeitet. Der Listener läuft über die ListenerRegistry und
+ * ist an den Lebenszyklus der Ansicht gebunden, sodass er nur einmal und nur
+ * bei sichtbarer Liste besteht.
+ * Bis der erste Snapshot eintrifft, zeigt die Liste die zuletzt angezeigten
+ * Chats aus dem RecentChatsCache; beim Verlassen wird die angezeigte Liste
+ * dort gespeichert.
  * 
  * @autor: Mohamed Bebba
  */
@@ -31,6 +50,9 @@ public class ChatFragment extends Fragment {
     RecyclerView recyclerView;
     // Adapter für die RecyclerView, um die Chat-Räume anzuzeigen.
     RecentChatRecyclerAdapter adapter;
+    // Bindet Zeilen neu, wenn sich das Profil eines Chatpartners ändert
+    private final UserProfileRepository.ProfileListener profileListener = userModel -> adapter
+            .onProfileChanged(userModel);
 
     /**
      * Konstruktor für ChatFragment.
@@ -56,93 +78,125 @@ public class ChatFragment extends Fragment {
         // Initialisieren der RecyclerView.
         recyclerView = view.findViewById(R.id.recyler_view);
         // Setup der RecyclerView für die Anzeige der Chat-Räume.
-        setupRecyclerView2(); // Es gibt zwei Methoden, setupRecyclerView2 und setupRecyclerView, die den
-                              // Adapter unterschiedlich konfigurieren.
         setupRecyclerView();
 
         return view;
     }
 
     /**
-     * Richtet die RecyclerView mit einer Abfrage ein, die die Chat-Räume des
-     * aktuellen Benutzers anzeigt.
-     * Die Abfrage ist unsortiert.
+     * Startet den Snapshot-Listener, sobald die Ansicht und ihr Lebenszyklus
+     * bestehen.
+     *
+     * @param view               Die erstellte Ansicht.
+     * @param savedInstanceState Der gespeicherte Zustand des Fragments.
      */
-    void setupRecyclerView2() {
-        // Abfrage für alle Chat-Räume, in denen der aktuelle Benutzer enthalten ist.
-        Query query = FirebaseUtil.allChatroomCollectionReference()
-                .whereArrayContains("userIds", FirebaseUtil.currentUserId());
-
-        // FirestoreRecyclerOptions erstellen, um die Abfrageergebnisse in die
-        // RecyclerView zu laden.
-        FirestoreRecyclerOptions<ChatroomModel> options = new FirestoreRecyclerOptions.Builder<ChatroomModel>()
-                .setQuery(query, ChatroomModel.class).build();
-        // Initialisieren des Adapters mit den Optionen und Setzen auf die RecyclerView.
-        adapter = new RecentChatRecyclerAdapter(options, getContext());
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+        startListening();
+    }
+
+    /**
+     * Richtet die RecyclerView für die Anzeige der Chat-Räume des aktuellen
+     * Benutzers ein. Die Daten liefert der Snapshot-Listener aus
+     * {@link #startListening()}.
+     */
+    void setupRecyclerView() {
+        // Anwendungskontext, da die Zeilen im gemeinsamen Pool das Fragment
+        // überleben
+        adapter = new RecentChatRecyclerAdapter(requireContext().getApplicationContext(),
+                FirebaseUtil.currentUserId());
         recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
+        RowViewPool.getInstance().attach(recyclerView);
         recyclerView.setAdapter(adapter);
-        adapter.startListening(); // Startet das Anhören von Änderungen in der Firestore-Abfrage.
+        // Die erste Liste eines leeren Adapters wird ohne Diff sofort übernommen,
+        // sodass die gespeicherten Chats schon im ersten Frame erscheinen
+        List<ChatroomModel> cached = RecentChatsCache.getInstance(requireContext()).getCached();
+        adapter.submitList(cached);
+        // Chatpartner sind auch vor dem ersten Snapshot lokal auffindbar
+        for (ChatroomModel chatroom : cached) {
+            UserSearchIndex.getInstance().putParticipants(chatroom, FirebaseUtil.currentUserId());
+        }
     }
 
     /**
-     * Richtet die RecyclerView mit einer Abfrage ein, die die Chat-Räume des
-     * aktuellen Benutzers anzeigt.
-     * Die Abfrage sortiert die Chat-Räume nach dem Zeitstempel der letzten
-     * Nachricht in absteigender Reihenfolge.
+     * Gibt die Zeilen an den gemeinsamen Pool zurück, wenn die Ansicht des
+     * Fragments beim Wechsel zum Profil zerstört wird.
      */
-    void setupRecyclerView() {
-        // Abfrage für alle Chat-Räume, in denen der aktuelle Benutzer enthalten ist,
-        // sortiert nach dem letzten Nachrichtenzeitstempel.
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        RowViewPool.getInstance().release(recyclerView);
+    }
+
+    /**
+     * Abonniert die Chat-Räume des aktuellen Benutzers, sortiert nach dem
+     * Zeitstempel der letzten Nachricht in absteigender Reihenfolge, solange die
+     * Ansicht gestartet ist. Jeder Snapshot wird per DiffUtil mit der angezeigten
+     * Liste abgeglichen.
+     */
+    void startListening() {
+        String currentUserId = FirebaseUtil.currentUserId();
         Query query = FirebaseUtil.allChatroomCollectionReference()
-                .whereArrayContains("userIds", FirebaseUtil.currentUserId())
+                .whereArrayContains("userIds", currentUserId)
                 .orderBy("lastMessageTimestamp", Query.Direction.DESCENDING);
 
-        // FirestoreRecyclerOptions erstellen, um die sortierten Abfrageergebnisse in
-        // die RecyclerView zu laden.
-        FirestoreRecyclerOptions<ChatroomModel> options = new FirestoreRecyclerOptions.Builder<ChatroomModel>()
-                .setQuery(query, ChatroomModel.class).build();
-        // Initialisieren des Adapters mit den Optionen und Setzen auf die RecyclerView.
-        adapter = new RecentChatRecyclerAdapter(options, getContext());
-        recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
-        recyclerView.setAdapter(adapter);
-        adapter.startListening(); // Startet das Anhören von Änderungen in der Firestore-Abfrage.
+        ListenerRegistry.getInstance().listen(getViewLifecycleOwner(), query, MetadataChanges.EXCLUDE,
+                (snapshot, e) -> {
+                    if (e != null || snapshot == null) {
+                        return;
+                    }
+                    List<ChatroomModel> chatrooms = new ArrayList<>(snapshot.size());
+                    Set<String> otherUserIds = new LinkedHashSet<>();
+                    for (DocumentSnapshot document : snapshot.getDocuments()) {
+                        ChatroomModel chatroom = parseChatroom(document);
+                        chatrooms.add(chatroom);
+                        UserSearchIndex.getInstance().putParticipants(chatroom, currentUserId);
+                        String otherUserId = FirebaseUtil.getOtherUserId(chatroom.getUserIds(), currentUserId);
+                        if (!chatroom.hasParticipant(otherUserId)) {
+                            otherUserIds.add(otherUserId);
+                        }
+                    }
+                    // Nur Chatpartner, deren Name und Profilbild noch nicht im Chatroom
+                    // stehen, gebündelt laden und live aktuell halten
+                    UserProfileRepository.getInstance().watch(otherUserIds);
+                    adapter.submitList(chatrooms);
+                });
     }
 
     /**
-     * Wird aufgerufen, wenn das Fragment sichtbar wird. Startet das Anhören des
-     * Adapters.
+     * Wandelt ein Chatroom-Dokument in ein ChatroomModel um. Noch ausstehende
+     * Server-Zeitstempel werden dabei lokal geschätzt, damit frisch gesendete
+     * Nachrichten sofort mit Uhrzeit erscheinen.
+     *
+     * @param snapshot Das Chatroom-Dokument.
+     * @return Das ChatroomModel.
      */
-    @Override
-    public void onStart() {
-        super.onStart();
-        if (adapter != null) {
-            adapter.startListening(); // Adapter beginnt, Datenänderungen zu hören.
-        }
+    static ChatroomModel parseChatroom(DocumentSnapshot snapshot) {
+        return snapshot.toObject(ChatroomModel.class, DocumentSnapshot.ServerTimestampBehavior.ESTIMATE);
     }
 
     /**
-     * Wird aufgerufen, wenn das Fragment nicht mehr sichtbar ist. Stoppt das
-     * Anhören des Adapters.
+     * Wird aufgerufen, wenn das Fragment sichtbar wird. Registriert den Listener
+     * für Profiländerungen der Chatpartner.
      */
     @Override
-    public void onStop() {
-        super.onStop();
-        if (adapter != null) {
-            adapter.stopListening(); // Adapter hört auf, Datenänderungen zu hören.
-        }
+    public void onStart() {
+        super.onStart();
+        UserProfileRepository.getInstance().addListener(profileListener);
     }
 
     /**
-     * Wird aufgerufen, wenn das Fragment wieder in den Vordergrund tritt.
-     * Benachrichtigt den Adapter über Datenänderungen.
+     * Wird aufgerufen, wenn das Fragment nicht mehr sichtbar ist. Speichert die
+     * angezeigte Liste für den nächsten Start und beendet die Beobachtung der
+     * Chatpartner; den Snapshot-Listener beendet die ListenerRegistry mit dem
+     * Lebenszyklus der Ansicht.
      */
-    @SuppressLint("NotifyDataSetChanged")
     @Override
-    public void onResume() {
-        super.onResume();
-        if (adapter != null) {
-            adapter.notifyDataSetChanged(); // Adapter wird über Änderungen benachrichtigt, um die Anzeige zu
-                                            // aktualisieren.
-        }
+    public void onStop() {
+        super.onStop();
+        RecentChatsCache.getInstance(requireContext()).save(adapter.getCurrentList());
+        UserProfileRepository.getInstance().removeListener(profileListener);
+        UserProfileRepository.getInstance().watch(Collections.emptySet());
     }
 }
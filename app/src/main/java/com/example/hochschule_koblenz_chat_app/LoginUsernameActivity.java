@@ -12,7 +12,9 @@ import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.example.hochschule_koblenz_chat_app.model.UserModel;
+import com.example.hochschule_koblenz_chat_app.utils.CurrentUserStore;
 import com.example.hochschule_koblenz_chat_app.utils.FirebaseUtil;
+import com.example.hochschule_koblenz_chat_app.utils.SearchKeywords;
 import com.google.android.gms.tasks.OnCompleteListener;
 import com.google.android.gms.tasks.Task;
 import com.google.firebase.Timestamp;
@@ -90,6 +92,8 @@ public class LoginUsernameActivity extends AppCompatActivity {
             // Erstellen eines neuen UserModels, wenn es noch nicht existiert.
             userModel = new UserModel(phoneNumber, username, Timestamp.now(), FirebaseUtil.currentUserId());
         }
+        // Suchschlüssel passend zum neuen Namen setzen.
+        userModel.setSearchKeywords(SearchKeywords.forUser(username, userModel.getPhone()));
 
         // Speichern der Benutzerdaten in Firestore.
         FirebaseUtil.currentUserDetails().set(userModel).addOnCompleteListener(new OnCompleteListener<Void>() {
@@ -97,6 +101,8 @@ public class LoginUsernameActivity extends AppCompatActivity {
             public void onComplete(@NonNull Task<Void> task) {
                 setInProgress(false);
                 if (task.isSuccessful()) {
+                    // Lokale Kopie des Profils aktualisieren.
+                    CurrentUserStore.getInstance(LoginUsernameActivity.this).update(userModel);
                     // Bei Erfolg Start der MainActivity und Abschluss der aktuellen Aktivität.
                     Intent intent = new Intent(LoginUsernameActivity.this, MainActivity.class);
                     intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
@@ -1,15 +1,25 @@
 package com.example.hochschule_koblenz_chat_app;
 
 import android.content.Intent;
+import android.content.pm.ApplicationInfo;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 import android.view.MenuItem;
+import android.view.View;
 import android.widget.ImageButton;
+import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 
+import com.example.hochschule_koblenz_chat_app.utils.CurrentUserStore;
 import com.example.hochschule_koblenz_chat_app.utils.FirebaseUtil;
+import com.example.hochschule_koblenz_chat_app.utils.ListenerRegistry;
+import com.example.hochschule_koblenz_chat_app.utils.MessageOutbox;
+import com.example.hochschule_koblenz_chat_app.utils.RecentChatsCache;
+import com.example.hochschule_koblenz_chat_app.utils.RowViewPool;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 import com.google.android.material.navigation.NavigationBarView;
 import com.google.firebase.messaging.FirebaseMessaging;
@@ -20,6 +30,8 @@ import com.google.firebase.messaging.FirebaseMessaging;
  * Sie verwaltet die Navigation zwischen verschiedenen Fragmenten (Chat und
  * Profil) und
  * abonniert den FCM-Token (Firebase Cloud Messaging).
+ * In Debug-Builds zeigt sie die aktiven Firestore-Listener und Snapshots pro
+ * Sekunde aus der ListenerRegistry an.
  * 
  * @autor: Mohamed Bebba
  */
@@ -29,12 +41,27 @@ public class MainActivity extends AppCompatActivity {
     BottomNavigationView bottomNavigationView;
     // ImageButton für die Suchfunktion.
     ImageButton searchButton;
+    // ImageButton für die Nachrichtensuche.
+    ImageButton messageSearchButton;
 
     // Fragment für den Chat-Bereich der Anwendung.
     ChatFragment chatFragment;
     // Fragment für den Profil-Bereich der Anwendung.
     ProfileFragment profileFragment;
 
+    // Intervall, in dem die Debug-Anzeige der Listener aktualisiert wird
+    private static final long LISTENER_STATS_INTERVAL_MS = 1000;
+    // Debug-Anzeige der Listener; nur in Debug-Builds sichtbar
+    TextView listenerStatsText;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable updateListenerStats = new Runnable() {
+        @Override
+        public void run() {
+            listenerStatsText.setText(ListenerRegistry.getInstance().describe());
+            handler.postDelayed(this, LISTENER_STATS_INTERVAL_MS);
+        }
+    };
+
     /**
      * Diese Methode wird aufgerufen, wenn die Aktivität erstellt wird.
      * Sie initialisiert die Benutzeroberfläche und die Fragmente,
@@ -46,6 +73,9 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        // Die zuletzt angezeigte Chatliste schon während des Layouts vom Gerät
+        // lesen, damit das ChatFragment sie im ersten Frame zeigen kann
+        RecentChatsCache.getInstance(this).preload();
         setContentView(R.layout.activity_main);
 
         // Initialisieren der Fragmente.
@@ -63,6 +93,12 @@ public class MainActivity extends AppCompatActivity {
             startActivity(new Intent(MainActivity.this, SearchUserActivity.class));
         });
 
+        // Die Nachrichtensuche durchsucht den lokalen Index aller Chats.
+        messageSearchButton = findViewById(R.id.main_message_search_btn);
+        messageSearchButton.setOnClickListener((v) -> {
+            startActivity(new Intent(MainActivity.this, MessageSearchActivity.class));
+        });
+
         // Setzen eines OnItemSelectedListener auf die BottomNavigationView für die
         // Navigation zwischen Fragmenten.
         bottomNavigationView.setOnItemSelectedListener(new NavigationBarView.OnItemSelectedListener() {
@@ -82,11 +118,54 @@ public class MainActivity extends AppCompatActivity {
             }
         });
 
+        listenerStatsText = findViewById(R.id.main_listener_stats_text);
+        if (isDebuggable()) {
+            listenerStatsText.setVisibility(View.VISIBLE);
+        }
+
         // Setzen des Standard ausgewählten Menüelements auf den Chat-Bereich.
         bottomNavigationView.setSelectedItemId(R.id.menu_chat);
 
         // Abrufen des Firebase Cloud Messaging Tokens.
         getFCMToken();
+
+        // Erneutes Senden von Nachrichten, die vor einem Neustart nicht bestätigt
+        // wurden.
+        MessageOutbox.getInstance(this).drain();
+
+        // Sobald der erste Bildschirm steht, die Zeilen der Listen im Hintergrund
+        // vorab aufblähen
+        Looper.myQueue().addIdleHandler(() -> {
+            RowViewPool.getInstance().warmUp(this);
+            return false;
+        });
+    }
+
+    /**
+     * Startet die Aktualisierung der Debug-Anzeige der Listener.
+     */
+    @Override
+    protected void onStart() {
+        super.onStart();
+        if (isDebuggable()) {
+            handler.post(updateListenerStats);
+        }
+    }
+
+    /**
+     * Beendet die Aktualisierung der Debug-Anzeige der Listener.
+     */
+    @Override
+    protected void onStop() {
+        super.onStop();
+        handler.removeCallbacks(updateListenerStats);
+    }
+
+    /**
+     * Prüft, ob die Anwendung als Debug-Build läuft.
+     */
+    private boolean isDebuggable() {
+        return (getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
     }
 
     /**
@@ -103,6 +182,7 @@ public class MainActivity extends AppCompatActivity {
                 Log.i("fcmToken", token);
                 // Aktualisieren der Benutzerdetails mit dem neuen FCM-Token.
                 FirebaseUtil.currentUserDetails().update("fcmToken", token);
+                CurrentUserStore.getInstance(this).updateFcmToken(token);
             }
         });
     }
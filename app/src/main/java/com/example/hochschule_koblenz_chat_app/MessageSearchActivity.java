@@ -0,0 +1,108 @@
+package com.example.hochschule_koblenz_chat_app;
+
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.widget.EditText;
+import android.widget.ImageButton;
+
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.hochschule_koblenz_chat_app.adapter.MessageSearchRecyclerAdapter;
+import com.example.hochschule_koblenz_chat_app.utils.MessageSearchIndex;
+
+/**
+ * Die MessageSearchActivity durchsucht die Nachrichten aller Chats im lokalen
+ * MessageSearchIndex. Die Suche läuft ohne Netzwerkzugriff, sobald die Eingabe
+ * kurz ruht; ein Treffer öffnet die ChatActivity an der gefundenen Nachricht.
+ *
+ * @autor: Mohamed Bebba
+ */
+public class MessageSearchActivity extends AppCompatActivity {
+
+    // Maximale Anzahl angezeigter Treffer
+    private static final int RESULT_LIMIT = 50;
+    // Wartezeit nach der letzten Eingabe, bevor der Index abgefragt wird
+    private static final long SEARCH_DEBOUNCE_MS = 150;
+
+    // UI-Elemente
+    EditText searchInput;
+    ImageButton backButton;
+    RecyclerView recyclerView;
+    MessageSearchRecyclerAdapter adapter;
+
+    // Suchbegriff der zuletzt gestarteten Suche; ältere Antworten werden verworfen
+    String activeSearchTerm = "";
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable debouncedSearch = () -> search(searchInput.getText().toString().trim());
+
+    /**
+     * Initialisiert die Aktivität.
+     *
+     * @param savedInstanceState gespeicherter Zustand der Aktivität
+     */
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_message_search);
+
+        searchInput = findViewById(R.id.message_search_input);
+        backButton = findViewById(R.id.back_btn);
+        recyclerView = findViewById(R.id.message_search_recycler_view);
+
+        adapter = new MessageSearchRecyclerAdapter(getApplicationContext());
+        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        recyclerView.setAdapter(adapter);
+
+        searchInput.requestFocus();
+        backButton.setOnClickListener(v -> getOnBackPressedDispatcher().onBackPressed());
+
+        searchInput.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                handler.removeCallbacks(debouncedSearch);
+                handler.postDelayed(debouncedSearch, SEARCH_DEBOUNCE_MS);
+            }
+        });
+    }
+
+    /**
+     * Bricht eine noch ausstehende Suche ab.
+     */
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        handler.removeCallbacks(debouncedSearch);
+    }
+
+    /**
+     * Fragt den Index ab und zeigt die Treffer an, sofern der Suchbegriff
+     * inzwischen nicht geändert wurde.
+     *
+     * @param term Der Suchbegriff.
+     */
+    void search(String term) {
+        activeSearchTerm = term;
+        MessageSearchIndex.getInstance(this).search(term, RESULT_LIMIT).addOnCompleteListener(task -> {
+            if (!term.equals(activeSearchTerm) || isDestroyed()) {
+                return;
+            }
+            if (task.isSuccessful()) {
+                adapter.submitList(task.getResult());
+            }
+        });
+    }
+}
@@ -22,12 +22,23 @@ import android.widget.TextView;
 
 import com.example.hochschule_koblenz_chat_app.model.UserModel;
 import com.example.hochschule_koblenz_chat_app.utils.AndroidUtil;
+import com.example.hochschule_koblenz_chat_app.utils.CurrentUserStore;
 import com.example.hochschule_koblenz_chat_app.utils.FirebaseUtil;
+import com.example.hochschule_koblenz_chat_app.utils.MessageOutbox;
+import com.example.hochschule_koblenz_chat_app.utils.MessageSearchIndex;
+import com.example.hochschule_koblenz_chat_app.utils.ParticipantFanOut;
+import com.example.hochschule_koblenz_chat_app.utils.ProfilePicThumbnails;
+import com.example.hochschule_koblenz_chat_app.utils.RecentChatsCache;
+import com.example.hochschule_koblenz_chat_app.utils.SearchKeywords;
+import com.example.hochschule_koblenz_chat_app.utils.UserProfileRepository;
+import com.example.hochschule_koblenz_chat_app.utils.UserSearchIndex;
 import com.github.dhaval2404.imagepicker.ImagePicker;
 import com.google.android.gms.tasks.OnCompleteListener;
 import com.google.android.gms.tasks.Task;
 import com.google.firebase.messaging.FirebaseMessaging;
 
+import java.util.Objects;
+
 import kotlin.Unit;
 import kotlin.jvm.functions.Function1;
 
@@ -36,6 +47,8 @@ import kotlin.jvm.functions.Function1;
  * seines Profils.
  * Es bietet Funktionen zum Aktualisieren des Benutzernamens und Profilbildes
  * sowie zum Abmelden.
+ * Ändern sich Name oder Profilbild, werden die Angaben in allen Chatrooms des
+ * Benutzers über den ParticipantFanOut nachgezogen.
  * 
  * @autor: Mohamed Bebba
  */
@@ -51,6 +64,9 @@ public class ProfileFragment extends Fragment {
 
     // Modell für die aktuellen Benutzerdaten.
     UserModel currentUserModel;
+    // Zuletzt gespeicherter Name und Profilbildversion, um Änderungen zu erkennen
+    String savedUsername;
+    long savedProfilePicVersion;
     // Launcher zum Auswählen eines Profilbilds.
     ActivityResultLauncher<Intent> imagePickLauncher;
     // URI des ausgewählten Profilbilds.
@@ -119,6 +135,12 @@ public class ProfileFragment extends Fragment {
                 @Override
                 public void onComplete(@NonNull Task<Void> task) {
                     if (task.isSuccessful()) {
+                        CurrentUserStore.getInstance(requireContext()).clear();
+                        RecentChatsCache.getInstance(requireContext()).clear();
+                        MessageSearchIndex.getInstance(requireContext()).clear();
+                        MessageOutbox.getInstance(requireContext()).clear();
+                        UserProfileRepository.getInstance().clear();
+                        UserSearchIndex.getInstance().clear();
                         FirebaseUtil.logout();
                         Intent intent = new Intent(getContext(), SplashActivity.class);
                         intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
@@ -154,12 +176,21 @@ public class ProfileFragment extends Fragment {
             return;
         }
         currentUserModel.setUsername(newUsername);
+        // Suchschlüssel passend zum neuen Namen setzen
+        currentUserModel.setSearchKeywords(SearchKeywords.forUser(newUsername, currentUserModel.getPhone()));
         setInProgress(true);
 
-        // Überprüft, ob ein neues Profilbild ausgewählt wurde und lädt es hoch.
+        // Überprüft, ob ein neues Profilbild ausgewählt wurde und lädt es samt
+        // Vorschaubildern hoch.
         if (selectedImageUri != null) {
-            FirebaseUtil.getCurrentProfilePicStorageRef().putFile(selectedImageUri)
-                    .addOnCompleteListener(task -> updateToFirestore());
+            ProfilePicThumbnails.upload(requireContext().getContentResolver(), selectedImageUri)
+                    .addOnCompleteListener(task -> {
+                        if (task.isSuccessful()) {
+                            // Neue Version macht zwischengespeicherte URLs und Bilder ungültig
+                            currentUserModel.setProfilePicVersion(System.currentTimeMillis());
+                        }
+                        updateToFirestore();
+                    });
         } else {
             updateToFirestore();
         }
@@ -173,6 +204,9 @@ public class ProfileFragment extends Fragment {
                 .addOnCompleteListener(task -> {
                     setInProgress(false);
                     if (task.isSuccessful()) {
+                        // Lokale Kopie des Profils direkt aktualisieren
+                        CurrentUserStore.getInstance(requireContext()).update(currentUserModel);
+                        fanOutIfChanged();
                         AndroidUtil.showToast(getContext(), "Updated successfully");
                     } else {
                         AndroidUtil.showToast(getContext(), "Update failed");
@@ -180,6 +214,20 @@ public class ProfileFragment extends Fragment {
                 });
     }
 
+    /**
+     * Überträgt einen geänderten Namen oder ein neues Profilbild in alle
+     * Chatrooms des Benutzers.
+     */
+    void fanOutIfChanged() {
+        if (Objects.equals(savedUsername, currentUserModel.getUsername())
+                && savedProfilePicVersion == currentUserModel.getProfilePicVersion()) {
+            return;
+        }
+        savedUsername = currentUserModel.getUsername();
+        savedProfilePicVersion = currentUserModel.getProfilePicVersion();
+        ParticipantFanOut.getInstance().fanOut(currentUserModel);
+    }
+
     /**
      * Ruft die aktuellen Benutzerdaten und das Profilbild ab und zeigt sie in den
      * UI-Komponenten an.
@@ -187,21 +235,17 @@ public class ProfileFragment extends Fragment {
     void getUserData() {
         setInProgress(true);
 
-        // Profilbild aus dem Storage abrufen und anzeigen.
-        FirebaseUtil.getCurrentProfilePicStorageRef().getDownloadUrl()
-                .addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        Uri uri = task.getResult();
-                        AndroidUtil.setProfilePic(getContext(), uri, profilePic);
-                    }
-                });
-
         // Benutzerdaten aus Firestore abrufen.
         FirebaseUtil.currentUserDetails().get().addOnCompleteListener(task -> {
             setInProgress(false);
             currentUserModel = task.getResult().toObject(UserModel.class);
+            savedUsername = currentUserModel.getUsername();
+            savedProfilePicVersion = currentUserModel.getProfilePicVersion();
             usernameInput.setText(currentUserModel.getUsername());
             phoneInput.setText(currentUserModel.getPhone());
+
+            // Profilbild über den URL-Cache anzeigen, passend zur gespeicherten Version
+            AndroidUtil.setProfilePic(getContext(), currentUserModel, profilePic);
         });
     }
 
@@ -1,31 +1,71 @@
 package com.example.hochschule_koblenz_chat_app;
 
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.widget.EditText;
 import android.widget.ImageButton;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.example.hochschule_koblenz_chat_app.adapter.SearchUserRecyclerAdapter;
+import com.example.hochschule_koblenz_chat_app.model.ChatroomModel;
 import com.example.hochschule_koblenz_chat_app.model.UserModel;
-import com.firebase.ui.firestore.FirestoreRecyclerOptions;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.ListenerRegistration;
 import com.google.firebase.firestore.Query;
 
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.hochschule_koblenz_chat_app.utils.FirebaseUtil;
+import com.example.hochschule_koblenz_chat_app.utils.ListenerRegistry;
+import com.example.hochschule_koblenz_chat_app.utils.RowViewPool;
+import com.example.hochschule_koblenz_chat_app.utils.SearchKeywords;
+import com.example.hochschule_koblenz_chat_app.utils.UserProfileRepository;
+import com.example.hochschule_koblenz_chat_app.utils.UserSearchIndex;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Die SearchUserActivity-Klasse ermöglicht es dem Benutzer, nach anderen
  * Benutzern in der Anwendung zu suchen.
  * Sie bietet eine Benutzeroberfläche für die Sucheingabe und zeigt die
  * Suchergebnisse in einer RecyclerView an.
+ * Bereits bekannte Benutzer werden schon beim Tippen aus dem lokalen
+ * UserSearchIndex angezeigt; die Firestore-Abfrage ergänzt nur die übrigen
+ * Treffer. Sie startet erst, wenn die Eingabe kurz ruht, und ersetzt dann den
+ * Listener der vorherigen Suche, sodass immer höchstens ein Listener aktiv
+ * ist. Die Treffer sind auf Seiten begrenzt: Der Listener beobachtet nur die
+ * erste Seite, weitere Seiten werden beim Scrollen über startAfter-Cursor
+ * nachgeladen. Ohne Suchbegriff werden die letzten Chatpartner angezeigt.
  * 
  * @autor: Mohamed Bebba
  */
 public class SearchUserActivity extends AppCompatActivity {
 
+    // Maximale Anzahl an Treffern aus dem lokalen Suchindex
+    private static final int LOCAL_RESULT_LIMIT = 20;
+    // Wartezeit nach der letzten Eingabe, bevor Firestore abgefragt wird
+    private static final long SEARCH_DEBOUNCE_MS = 300;
+    // Mindestlänge eines Suchbegriffs für die Firestore-Abfrage
+    private static final int MIN_REMOTE_TERM_LENGTH = 3;
+    // Anzahl der Treffer pro Seite der Firestore-Abfrage
+    private static final int PAGE_SIZE = 20;
+    // Abstand zum Listenende, ab dem die nächste Seite geladen wird
+    private static final int LOAD_MORE_THRESHOLD = 5;
+    // Anzahl der letzten Chatpartner, die ohne Suchbegriff angezeigt werden
+    private static final int RECENT_CONTACT_LIMIT = 10;
+
     // Eingabefeld für den Benutzernamen zur Suche.
     EditText searchInput;
     // Such-Button, um die Suche auszulösen.
@@ -37,6 +77,25 @@ public class SearchUserActivity extends AppCompatActivity {
 
     // Adapter für die RecyclerView, um Benutzerergebnisse darzustellen.
     SearchUserRecyclerAdapter adapter;
+    // Erste Seite der Firestore-Abfrage (live) und nachgeladene weitere Seiten
+    List<UserModel> remoteResults = Collections.emptyList();
+    final List<UserModel> nextPageResults = new ArrayList<>();
+    // Letzte Chatpartner, angezeigt ohne Suchbegriff
+    List<UserModel> recentContacts = Collections.emptyList();
+    // Einziger aktiver Snapshot-Listener der Suche, seine Abfrage und sein
+    // Suchbegriff
+    ListenerRegistration searchRegistration;
+    Query activeQuery;
+    String activeSearchTerm;
+    // Cursor für die nächste Seite und Zustand des Nachladens
+    DocumentSnapshot firstPageCursor;
+    DocumentSnapshot nextPageCursor;
+    boolean loadingNextPage = false;
+    boolean reachedEnd = false;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    // Startet die Firestore-Suche für die Eingabe, sobald sie lange genug ruht
+    private final Runnable debouncedSearch = () -> startRemoteSearch(currentSearchTerm());
 
     /**
      * Diese Methode wird aufgerufen, wenn die Aktivität erstellt wird.
@@ -56,6 +115,24 @@ public class SearchUserActivity extends AppCompatActivity {
         searchButton = findViewById(R.id.search_user_btn);
         backButton = findViewById(R.id.back_btn);
         recyclerView = findViewById(R.id.search_user_recycler_view);
+        // Ein Adapter für alle Suchen; neue Ergebnisse werden per DiffUtil
+        // abgeglichen
+        adapter = new SearchUserRecyclerAdapter(getApplicationContext());
+        LinearLayoutManager manager = new LinearLayoutManager(this);
+        recyclerView.setLayoutManager(manager);
+        // Zeilen aus dem gemeinsamen Pool bzw. den vorab aufgeblähten Zeilen
+        RowViewPool.getInstance().attach(recyclerView);
+        recyclerView.setAdapter(adapter);
+
+        // Beim Scrollen die nächste Seite der Treffer nachladen
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (manager.findLastVisibleItemPosition() >= adapter.getItemCount() - LOAD_MORE_THRESHOLD) {
+                    loadNextPage();
+                }
+            }
+        });
 
         // Setzen des Fokus auf das Suchfeld beim Starten der Aktivität.
         searchInput.requestFocus();
@@ -63,47 +140,249 @@ public class SearchUserActivity extends AppCompatActivity {
         // Klick-Listener für den Zurück-Button, um zur vorherigen Seite zu navigieren.
         backButton.setOnClickListener(v -> getOnBackPressedDispatcher().onBackPressed());
 
+        // Treffer aus dem lokalen Suchindex bei jeder Eingabe sofort anzeigen.
+        searchInput.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                showResults();
+                // Firestore erst abfragen, wenn die Eingabe ruht
+                handler.removeCallbacks(debouncedSearch);
+                handler.postDelayed(debouncedSearch, SEARCH_DEBOUNCE_MS);
+            }
+        });
+
         // Klick-Listener für den Such-Button, um die Suche basierend auf dem
         // eingegebenen Benutzernamen auszuführen.
         searchButton.setOnClickListener(v -> {
-            String searchTerm = searchInput.getText().toString();
-            if (searchTerm.isEmpty()) {
-                setupSearchRecyclerView("");
-            } else if (searchTerm.length() < 3) {
+            String searchTerm = currentSearchTerm();
+            if (!searchTerm.isEmpty() && searchTerm.length() < MIN_REMOTE_TERM_LENGTH) {
                 // Fehleranzeige, wenn der eingegebene Benutzername zu kurz ist.
                 searchInput.setError("Invalid Username");
                 return;
             }
-            setupSearchRecyclerView(searchTerm);
+            // Sofort suchen, ohne die Wartezeit abzuwarten
+            handler.removeCallbacks(debouncedSearch);
+            startRemoteSearch(searchTerm);
         });
+    }
 
-        // Initialisierung der RecyclerView mit allen Benutzern, wenn die Aktivität
-        // gestartet wird.
-        setupSearchRecyclerView("");
+    /**
+     * Startet die Suche für die aktuelle Eingabe, wenn die Aktivität sichtbar
+     * wird.
+     */
+    @Override
+    protected void onStart() {
+        super.onStart();
+        startRemoteSearch(currentSearchTerm());
+    }
+
+    /**
+     * Beendet die laufende Suche, solange die Aktivität nicht sichtbar ist.
+     */
+    @Override
+    protected void onStop() {
+        super.onStop();
+        handler.removeCallbacks(debouncedSearch);
+        stopRemoteSearch();
+    }
+
+    /**
+     * Gibt die Zeilen an den gemeinsamen Pool zurück, damit die nächste Suche sie
+     * wiederverwendet.
+     */
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        RowViewPool.getInstance().release(recyclerView);
     }
 
     /**
-     * Diese Methode initialisiert die RecyclerView mit einer Abfrage, um Benutzer
-     * basierend auf dem Suchbegriff zu filtern.
+     * Diese Methode fragt Firestore nach Benutzern, deren Name, eines seiner Wörter
+     * oder deren Telefonnummer zum Suchbegriff passt. Der Listener ersetzt den Listener der vorherigen Suche und
+     * beobachtet nur die erste Seite; zu kurze Suchbegriffe werden nur lokal
+     * gesucht, ohne Suchbegriff werden die letzten Chatpartner geladen. Die
+     * Treffer werden in den lokalen Suchindex übernommen und mit den lokalen
+     * Treffern zusammengeführt.
      *
-     * @param searchTerm Der Suchbegriff, der verwendet wird, um Benutzer zu
+     * @param searchTerm Der normalisierte Suchbegriff, der verwendet wird, um Benutzer zu
      *                   filtern.
      */
-    void setupSearchRecyclerView(String searchTerm) {
-        // Erstellen einer Abfrage, um Benutzer aus der Firebase-Datenbank zu filtern.
+    void startRemoteSearch(String searchTerm) {
+        if (!searchTerm.isEmpty() && searchTerm.length() < MIN_REMOTE_TERM_LENGTH) {
+            return;
+        }
+        if (searchRegistration != null && searchTerm.equals(activeSearchTerm)) {
+            return; // Die Suche läuft bereits
+        }
+        stopRemoteSearch();
+        if (searchTerm.isEmpty()) {
+            loadRecentContacts();
+            return;
+        }
+        activeSearchTerm = searchTerm;
+
+        // Erstellen einer Abfrage auf die normalisierten Suchschlüssel der Benutzer;
+        // Groß- und Kleinschreibung, Wörter im Namen und Telefonnummern werden
+        // damit gleichermaßen gefunden.
         Query query = FirebaseUtil.allUserCollectionReference()
-                .whereGreaterThanOrEqualTo("username", searchTerm)
-                .whereLessThanOrEqualTo("username", searchTerm + '\uf8ff');
+                .whereArrayContains(SearchKeywords.FIELD, SearchKeywords.searchKey(searchTerm));
+        activeQuery = query;
 
-        // Erstellen von FirestoreRecyclerOptions mit der Abfrage und dem UserModel.
-        FirestoreRecyclerOptions<UserModel> options = new FirestoreRecyclerOptions.Builder<UserModel>()
-                .setQuery(query, UserModel.class).build();
+        searchRegistration = ListenerRegistry.getInstance().listen(query.limit(PAGE_SIZE), (snapshot, e) -> {
+            // Ergebnisse einer inzwischen ersetzten Suche verwerfen
+            if (e != null || snapshot == null || query != activeQuery) {
+                return;
+            }
+            List<DocumentSnapshot> documents = snapshot.getDocuments();
+            remoteResults = toUsers(documents);
+            firstPageCursor = documents.isEmpty() ? null : documents.get(documents.size() - 1);
+            if (nextPageResults.isEmpty()) {
+                reachedEnd = documents.size() < PAGE_SIZE;
+            }
+            showResults();
+        });
+    }
 
-        // Initialisieren des Adapters mit den Optionen und Festlegen auf die
-        // RecyclerView.
-        adapter = new SearchUserRecyclerAdapter(options, getApplicationContext());
-        recyclerView.setLayoutManager(new LinearLayoutManager(this));
-        recyclerView.setAdapter(adapter);
-        adapter.startListening();
+    /**
+     * Lädt die nächste Seite der aktiven Suche, sofern nicht bereits geladen wird
+     * oder alle Treffer geladen sind.
+     */
+    void loadNextPage() {
+        Query query = activeQuery;
+        DocumentSnapshot cursor = nextPageCursor != null ? nextPageCursor : firstPageCursor;
+        if (query == null || cursor == null || loadingNextPage || reachedEnd) {
+            return;
+        }
+        loadingNextPage = true;
+        query.startAfter(cursor).limit(PAGE_SIZE).get().addOnCompleteListener(task -> {
+            if (query != activeQuery) {
+                return; // Die Suche wurde inzwischen ersetzt
+            }
+            loadingNextPage = false;
+            if (!task.isSuccessful()) {
+                return;
+            }
+            List<DocumentSnapshot> documents = task.getResult().getDocuments();
+            reachedEnd = documents.size() < PAGE_SIZE;
+            if (!documents.isEmpty()) {
+                nextPageResults.addAll(toUsers(documents));
+                nextPageCursor = documents.get(documents.size() - 1);
+                showResults();
+            }
+        });
+    }
+
+    /**
+     * Lädt die Chatpartner der letzten Chats als Standardanzeige ohne
+     * Suchbegriff. Die Profile kommen gebündelt aus dem UserProfileRepository.
+     */
+    void loadRecentContacts() {
+        String currentUserId = FirebaseUtil.currentUserId();
+        FirebaseUtil.allChatroomCollectionReference()
+                .whereArrayContains("userIds", currentUserId)
+                .orderBy("lastMessageTimestamp", Query.Direction.DESCENDING)
+                .limit(RECENT_CONTACT_LIMIT)
+                .get().addOnCompleteListener(task -> {
+                    if (!task.isSuccessful() || isDestroyed()) {
+                        return;
+                    }
+                    List<Task<UserModel>> profiles = new ArrayList<>();
+                    for (DocumentSnapshot document : task.getResult().getDocuments()) {
+                        ChatroomModel chatroom = document.toObject(ChatroomModel.class);
+                        if (chatroom != null) {
+                            profiles.add(UserProfileRepository.getInstance()
+                                    .get(FirebaseUtil.getOtherUserId(chatroom.getUserIds(), currentUserId)));
+                        }
+                    }
+                    Tasks.whenAllComplete(profiles).addOnCompleteListener(done -> {
+                        List<UserModel> contacts = new ArrayList<>();
+                        for (Task<UserModel> profile : profiles) {
+                            if (profile.isSuccessful() && profile.getResult() != null) {
+                                contacts.add(profile.getResult());
+                            }
+                        }
+                        recentContacts = contacts;
+                        showResults();
+                    });
+                });
+    }
+
+    /**
+     * Wandelt Benutzerdokumente in UserModels um und trägt sie in den lokalen
+     * Suchindex ein.
+     */
+    private static List<UserModel> toUsers(List<DocumentSnapshot> documents) {
+        List<UserModel> users = new ArrayList<>(documents.size());
+        for (DocumentSnapshot document : documents) {
+            UserModel userModel = document.toObject(UserModel.class);
+            if (userModel != null) {
+                users.add(userModel);
+                UserSearchIndex.getInstance().put(userModel);
+            }
+        }
+        return users;
+    }
+
+    /**
+     * Entfernt den Listener der laufenden Suche und verwirft ihre Seiten.
+     */
+    void stopRemoteSearch() {
+        if (searchRegistration != null) {
+            searchRegistration.remove();
+            searchRegistration = null;
+        }
+        activeQuery = null;
+        activeSearchTerm = null;
+        remoteResults = Collections.emptyList();
+        nextPageResults.clear();
+        firstPageCursor = null;
+        nextPageCursor = null;
+        loadingNextPage = false;
+        reachedEnd = false;
+    }
+
+    /**
+     * Gibt die aktuelle Eingabe normalisiert zurück, damit die Firestore-Abfrage
+     * und der lokale Suchindex denselben Suchbegriff verwenden; führende und
+     * nachgestellte Leerzeichen fallen dabei weg.
+     *
+     * @return Der normalisierte Suchbegriff; leer ohne Eingabe.
+     */
+    String currentSearchTerm() {
+        return SearchKeywords.normalize(searchInput.getText().toString());
+    }
+
+    /**
+     * Zeigt die lokalen Treffer für die aktuelle Eingabe, gefolgt von den noch
+     * passenden Treffern der geladenen Seiten ohne Duplikate. Ohne Suchbegriff
+     * werden die letzten Chatpartner angezeigt.
+     */
+    void showResults() {
+        String searchTerm = currentSearchTerm();
+        if (searchTerm.isEmpty()) {
+            adapter.submitList(recentContacts);
+            return;
+        }
+        Map<String, UserModel> results = new LinkedHashMap<>();
+        for (UserModel userModel : UserSearchIndex.getInstance().search(searchTerm, LOCAL_RESULT_LIMIT)) {
+            results.put(userModel.getUserId(), userModel);
+        }
+        List<UserModel> remote = new ArrayList<>(remoteResults);
+        remote.addAll(nextPageResults);
+        for (UserModel userModel : remote) {
+            if (!results.containsKey(userModel.getUserId())
+                    && SearchKeywords.matches(userModel.getUsername(), userModel.getPhone(), searchTerm)) {
+                results.put(userModel.getUserId(), userModel);
+            }
+        }
+        adapter.submitList(new ArrayList<>(results.values()));
     }
 }
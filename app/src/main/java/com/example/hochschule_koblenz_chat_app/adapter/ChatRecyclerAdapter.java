@@ -1,73 +1,202 @@
 package com.example.hochschule_koblenz_chat_app.adapter;
 
 import android.content.Context;
-import android.view.LayoutInflater;
+import android.util.LruCache;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.LinearLayout;
-import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.appcompat.widget.AppCompatTextView;
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.core.widget.TextViewCompat;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.hochschule_koblenz_chat_app.R;
 import com.example.hochschule_koblenz_chat_app.model.ChatMessageModel;
 import com.example.hochschule_koblenz_chat_app.utils.FirebaseUtil;
-import com.firebase.ui.firestore.FirestoreRecyclerAdapter;
-import com.firebase.ui.firestore.FirestoreRecyclerOptions;
+import com.example.hochschule_koblenz_chat_app.utils.RowViewPool;
+import com.example.hochschule_koblenz_chat_app.utils.StableIds;
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Der ChatRecyclerAdapter ist ein Adapter für eine RecyclerView, die
  * Chat-Nachrichten in einer Chat-Aktivität anzeigt.
- * Er verwaltet die Anzeige von gesendeten und empfangenen Nachrichten und
- * ordnet sie entsprechend dem Sender an.
+ * Gesendete und empfangene Nachrichten haben jeweils einen eigenen View-Typ
+ * mit eigenem Layout, sodass jede Zeile nur eine Sprechblase enthält.
+ * Das Textlayout wird mit PrecomputedTextCompat im Hintergrund berechnet und
+ * pro Nachricht zwischengespeichert; zeigt eine Zeile bereits die gebundene
+ * Nachricht, wird der Text nicht erneut gesetzt.
+ * Die Nachrichten werden vom ChatHistoryPager seitenweise geliefert und per
+ * DiffUtil abgeglichen, sodass nur geänderte Zeilen neu gebunden werden.
  * 
  * @autor: Mohamed Bebba
  */
 public class ChatRecyclerAdapter
-        extends FirestoreRecyclerAdapter<ChatMessageModel, ChatRecyclerAdapter.ChatModelViewHolder> {
+        extends ListAdapter<ChatRecyclerAdapter.MessageItem, ChatRecyclerAdapter.ChatModelViewHolder> {
+
+    // Transparenz für Nachrichten, die noch in der Outbox warten
+    private static final float PENDING_ALPHA = 0.5f;
+    // Payload, wenn sich nur der Sendestatus einer Nachricht geändert hat
+    static final Object PAYLOAD_PENDING = new Object();
+
+    // View-Typen für gesendete und empfangene Nachrichten; die Layout-IDs sind
+    // im gemeinsamen RowViewPool eindeutig
+    static final int VIEW_TYPE_SENT = R.layout.chat_message_sent_row;
+    static final int VIEW_TYPE_RECEIVED = R.layout.chat_message_received_row;
+
+    // Gemeinsamer Hintergrund-Thread für die Berechnung der Textlayouts
+    private static final Executor TEXT_LAYOUT_EXECUTOR = Executors.newSingleThreadExecutor();
+    // Anzahl der Nachrichten, deren berechnetes Textlayout aufbewahrt wird
+    static final int TEXT_LAYOUT_CACHE_SIZE = 200;
 
     // Kontext der Anwendung
     Context context;
+    // Stabile numerische IDs für die Dokument-IDs der Nachrichten
+    private final StableIds stableIds = new StableIds();
+    // Benutzer-ID des angemeldeten Benutzers, einmal pro Adapter gelesen
+    private final String currentUserId;
+    // Berechnete bzw. laufende Textlayouts pro Dokument-ID der Nachricht
+    private final LruCache<String, Future<PrecomputedTextCompat>> textLayouts =
+            new LruCache<>(TEXT_LAYOUT_CACHE_SIZE);
 
     /**
      * Konstruktor für den ChatRecyclerAdapter.
      *
-     * @param options Die FirestoreRecyclerOptions, die die Abfrageergebnisse
-     *                enthalten.
      * @param context Der Kontext, in dem der Adapter verwendet wird.
      */
-    public ChatRecyclerAdapter(@NonNull FirestoreRecyclerOptions<ChatMessageModel> options, Context context) {
-        super(options);
+    public ChatRecyclerAdapter(Context context) {
+        this(context, FirebaseUtil.currentUserId());
+    }
+
+    /**
+     * Konstruktor mit vorgegebener Benutzer-ID, z. B. für Tests.
+     *
+     * @param context       Der Kontext, in dem der Adapter verwendet wird.
+     * @param currentUserId Die Benutzer-ID des angemeldeten Benutzers.
+     */
+    ChatRecyclerAdapter(Context context, String currentUserId) {
+        super(DIFF_CALLBACK);
         this.context = context;
+        this.currentUserId = currentUserId;
+        setHasStableIds(true);
+    }
+
+    /**
+     * Ersetzt die angezeigten Nachrichten. Die Unterschiede zur bisherigen Liste
+     * werden im Hintergrund berechnet.
+     *
+     * @param snapshots      Die geladenen Nachrichtendokumente, neueste zuerst.
+     * @param commitCallback Wird ausgeführt, sobald die neue Liste angezeigt wird;
+     *                       darf null sein.
+     */
+    public void setMessages(List<DocumentSnapshot> snapshots, @Nullable Runnable commitCallback) {
+        List<MessageItem> items = new ArrayList<>(snapshots.size());
+        for (DocumentSnapshot snapshot : snapshots) {
+            items.add(new MessageItem(snapshot.getId(), snapshot.toObject(ChatMessageModel.class),
+                    snapshot.getMetadata().hasPendingWrites()));
+        }
+        submitList(items, commitCallback);
+    }
+
+    /**
+     * Gibt eine stabile ID für die Nachricht an der angegebenen Position zurück.
+     *
+     * @param position Die Position des Elements im Adapter.
+     * @return Die stabile ID der Nachricht.
+     */
+    @Override
+    public long getItemId(int position) {
+        return stableIds.idFor(getItem(position).id);
+    }
+
+    /**
+     * Vergisst die stabilen IDs der Nachrichten, die nicht mehr angezeigt werden,
+     * z. B. nachdem der Pager ältere Seiten verworfen hat.
+     *
+     * @param previousList Die bisher angezeigte Liste.
+     * @param currentList  Die jetzt angezeigte Liste.
+     */
+    @Override
+    public void onCurrentListChanged(@NonNull List<MessageItem> previousList,
+            @NonNull List<MessageItem> currentList) {
+        if (stableIds.size() <= currentList.size()) {
+            return;
+        }
+        Set<String> ids = new HashSet<>();
+        for (MessageItem item : currentList) {
+            ids.add(item.id);
+        }
+        stableIds.retain(ids);
+    }
+
+    /**
+     * Gibt den View-Typ einer Nachricht zurück, abhängig davon, ob sie vom
+     * aktuellen Benutzer gesendet wurde.
+     *
+     * @param position Die Position des Elements im Adapter.
+     * @return VIEW_TYPE_SENT oder VIEW_TYPE_RECEIVED.
+     */
+    @Override
+    public int getItemViewType(int position) {
+        return getItem(position).model.getSenderId().equals(currentUserId)
+                ? VIEW_TYPE_SENT
+                : VIEW_TYPE_RECEIVED;
     }
 
     /**
-     * Bindet die Daten eines ChatMessageModel an die ViewHolder-Komponenten und
-     * ordnet die Nachrichten entsprechend dem Sender an.
+     * Bindet die Daten eines ChatMessageModel an den ViewHolder. Das Textlayout
+     * wird im Hintergrund vorberechnet und erst beim Messen der Zeile übernommen.
      *
      * @param holder   Der ViewHolder, der die Ansichtselemente hält.
      * @param position Die Position des Elements im Adapter.
-     * @param model    Das ChatMessageModel-Objekt, das an die Ansicht gebunden
-     *                 wird.
      */
     @Override
-    protected void onBindViewHolder(@NonNull ChatModelViewHolder holder, int position,
-            @NonNull ChatMessageModel model) {
-        // Überprüfen, ob die Nachricht vom aktuellen Benutzer gesendet wurde
-        if (model.getSenderId().equals(FirebaseUtil.currentUserId())) {
-            // Wenn der aktuelle Benutzer der Absender ist, wird die Nachricht auf der
-            // rechten Seite angezeigt
-            holder.leftChatLayout.setVisibility(View.GONE);
-            holder.rightChatLayout.setVisibility(View.VISIBLE);
-            holder.rightChatTextview.setText(model.getMessage());
-        } else {
-            // Wenn die Nachricht von einem anderen Benutzer stammt, wird sie auf der linken
-            // Seite angezeigt
-            holder.rightChatLayout.setVisibility(View.GONE);
-            holder.leftChatLayout.setVisibility(View.VISIBLE);
-            holder.leftChatTextview.setText(model.getMessage());
+    public void onBindViewHolder(@NonNull ChatModelViewHolder holder, int position) {
+        MessageItem item = getItem(position);
+        if (!item.id.equals(holder.messageId)) {
+            // Die Zeile zeigt eine andere Nachricht: berechnetes Layout wiederverwenden
+            // oder im Hintergrund berechnen
+            Future<PrecomputedTextCompat> textLayout = textLayouts.get(item.id);
+            if (textLayout == null) {
+                textLayout = PrecomputedTextCompat.getTextFuture(item.model.getMessage(),
+                        holder.textMetricsParams(), TEXT_LAYOUT_EXECUTOR);
+                textLayouts.put(item.id, textLayout);
+            }
+            holder.messageTextview.setTextFuture(textLayout);
+            holder.messageId = item.id;
+        }
+
+        // Noch nicht vom Server bestätigte Nachrichten werden abgeblendet angezeigt
+        holder.itemView.setAlpha(item.pending ? PENDING_ALPHA : 1f);
+    }
+
+    /**
+     * Bindet nur die geänderten Teile einer Nachricht. Hat sich lediglich der
+     * Sendestatus geändert, wird nur die Transparenz angepasst.
+     *
+     * @param holder   Der ViewHolder, der die Ansichtselemente hält.
+     * @param position Die Position des Elements im Adapter.
+     * @param payloads Die Payloads aus dem DiffUtil-Abgleich.
+     */
+    @Override
+    public void onBindViewHolder(@NonNull ChatModelViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.isEmpty() || !payloads.contains(PAYLOAD_PENDING)) {
+            onBindViewHolder(holder, position);
+            return;
         }
+        holder.itemView.setAlpha(getItem(position).pending ? PENDING_ALPHA : 1f);
     }
 
     /**
@@ -76,29 +205,72 @@ public class ChatRecyclerAdapter
      *
      * @param parent   Die übergeordnete ViewGroup, zu der diese Ansicht hinzugefügt
      *                 wird.
-     * @param viewType Der Typ der neuen Ansicht.
+     * @param viewType Der Typ der neuen Ansicht (gesendet oder empfangen).
      * @return Ein neues ChatModelViewHolder-Objekt.
      */
     @NonNull
     @Override
     public ChatModelViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        // Erstellen der Ansicht für jedes Listenelement
-        View view = LayoutInflater.from(context).inflate(R.layout.chat_message_recycler_row, parent, false);
+        // Erstellen der Ansicht passend zum View-Typ, bevorzugt aus den vorab
+        // aufgeblähten Zeilen
+        View view = RowViewPool.getInstance().obtain(context, viewType, parent);
         return new ChatModelViewHolder(view);
     }
 
+    /**
+     * Eine angezeigte Nachricht mit ihrer Dokument-ID und ihrem Sendestatus.
+     */
+    static class MessageItem {
+        final String id;
+        final ChatMessageModel model;
+        final boolean pending;
+
+        MessageItem(String id, ChatMessageModel model, boolean pending) {
+            this.id = id;
+            this.model = model;
+            this.pending = pending;
+        }
+
+        /**
+         * Vergleicht den angezeigten Inhalt ohne den Sendestatus.
+         */
+        boolean hasSameContent(MessageItem other) {
+            return Objects.equals(model.getMessage(), other.model.getMessage())
+                    && Objects.equals(model.getSenderId(), other.model.getSenderId());
+        }
+    }
+
+    /**
+     * Vergleicht Nachrichten anhand ihrer Dokument-ID und ihres Inhalts.
+     */
+    private static final DiffUtil.ItemCallback<MessageItem> DIFF_CALLBACK = new DiffUtil.ItemCallback<MessageItem>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull MessageItem oldItem, @NonNull MessageItem newItem) {
+            return oldItem.id.equals(newItem.id);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull MessageItem oldItem, @NonNull MessageItem newItem) {
+            return oldItem.pending == newItem.pending && oldItem.hasSameContent(newItem);
+        }
+
+        @Override
+        public Object getChangePayload(@NonNull MessageItem oldItem, @NonNull MessageItem newItem) {
+            return oldItem.hasSameContent(newItem) ? PAYLOAD_PENDING : null;
+        }
+    };
+
     /**
      * Der ChatModelViewHolder hält die UI-Komponenten für jedes Listenelement.
-     * Er enthält die Layouts und TextViews für gesendete und empfangene
-     * Nachrichten.
+     * Er enthält die TextView der Sprechblase einer gesendeten oder empfangenen
+     * Nachricht.
      */
     static class ChatModelViewHolder extends RecyclerView.ViewHolder {
 
-        // Layouts und TextViews für die Anzeige von gesendeten und empfangenen
-        // Nachrichten
-        LinearLayout leftChatLayout, rightChatLayout; // Layouts für Nachrichten des anderen Benutzers und des aktuellen
-                                                      // Benutzers
-        TextView leftChatTextview, rightChatTextview; // TextViews für die Nachrichteninhalte
+        AppCompatTextView messageTextview; // TextView für den Nachrichteninhalt
+        String messageId; // Dokument-ID der angezeigten Nachricht
+        // Textparameter der TextView, einmal pro ViewHolder gelesen
+        private PrecomputedTextCompat.Params textMetricsParams;
 
         /**
          * Konstruktor für ChatModelViewHolder.
@@ -109,10 +281,18 @@ public class ChatRecyclerAdapter
             super(itemView);
 
             // Initialisieren der UI-Komponenten
-            leftChatLayout = itemView.findViewById(R.id.left_chat_layout);
-            rightChatLayout = itemView.findViewById(R.id.right_chat_layout);
-            leftChatTextview = itemView.findViewById(R.id.left_chat_textview);
-            rightChatTextview = itemView.findViewById(R.id.right_chat_textview);
+            messageTextview = itemView.findViewById(R.id.chat_message_textview);
+        }
+
+        /**
+         * Gibt die Textparameter der TextView zurück; sie hängen nur vom Layout
+         * des View-Typs ab.
+         */
+        PrecomputedTextCompat.Params textMetricsParams() {
+            if (textMetricsParams == null) {
+                textMetricsParams = TextViewCompat.getTextMetricsParams(messageTextview);
+            }
+            return textMetricsParams;
         }
     }
 }
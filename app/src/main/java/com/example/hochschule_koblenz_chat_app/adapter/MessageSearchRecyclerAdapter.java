@@ -0,0 +1,234 @@
+package com.example.hochschule_koblenz_chat_app.adapter;
+
+import android.content.Context;
+import android.content.Intent;
+import android.graphics.Typeface;
+import android.text.SpannableStringBuilder;
+import android.text.Spanned;
+import android.text.style.StyleSpan;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.hochschule_koblenz_chat_app.ChatActivity;
+import com.example.hochschule_koblenz_chat_app.R;
+import com.example.hochschule_koblenz_chat_app.model.UserModel;
+import com.example.hochschule_koblenz_chat_app.utils.AndroidUtil;
+import com.example.hochschule_koblenz_chat_app.utils.BindToken;
+import com.example.hochschule_koblenz_chat_app.utils.FirebaseUtil;
+import com.example.hochschule_koblenz_chat_app.utils.MessageSearchIndex;
+import com.example.hochschule_koblenz_chat_app.utils.UserProfileRepository;
+
+import java.util.Objects;
+
+/**
+ * Der MessageSearchRecyclerAdapter zeigt die Treffer der Nachrichtensuche an:
+ * den Chatpartner, den Zeitpunkt und einen Ausschnitt der Nachricht mit den
+ * hervorgehobenen Suchbegriffen. Ein Klick öffnet den Chat an der gefundenen
+ * Nachricht.
+ *
+ * @autor: Mohamed Bebba
+ */
+public class MessageSearchRecyclerAdapter
+        extends ListAdapter<MessageSearchIndex.Hit, MessageSearchRecyclerAdapter.HitViewHolder> {
+
+    // Präfix für selbst gesendete Nachrichten
+    private static final String SENT_BY_ME_PREFIX = "Du : ";
+
+    // Kontext der Anwendung
+    Context context;
+    // Quelle für die Profile der Chatpartner
+    private final UserProfileRepository profileRepository = UserProfileRepository.getInstance();
+    // Benutzer-ID des angemeldeten Benutzers, einmal pro Adapter gelesen
+    private final String currentUserId;
+
+    /**
+     * Konstruktor für den MessageSearchRecyclerAdapter.
+     *
+     * @param context Der Kontext, in dem der Adapter verwendet wird.
+     */
+    public MessageSearchRecyclerAdapter(Context context) {
+        super(DIFF_CALLBACK);
+        this.context = context;
+        this.currentUserId = FirebaseUtil.currentUserId();
+    }
+
+    /**
+     * Bindet einen Treffer an die ViewHolder-Komponenten.
+     *
+     * @param holder   Der ViewHolder, der die Ansichtselemente hält.
+     * @param position Die Position des Elements im Adapter.
+     */
+    @Override
+    public void onBindViewHolder(@NonNull HitViewHolder holder, int position) {
+        MessageSearchIndex.Hit hit = getItem(position);
+        holder.hit = hit;
+        holder.messageTime.setText(FirebaseUtil.timestampToString(hit.timestamp));
+        holder.snippetText.setText(highlight(hit.snippet, currentUserId.equals(hit.senderId)));
+
+        // Der Chatpartner kommt aus dem Cache des UserProfileRepositorys
+        if (holder.otherUser == null || !holder.otherUser.getUserId().equals(hit.otherUserId)) {
+            holder.bindToken.invalidate();
+            holder.otherUser = null;
+            holder.usernameText.setText("");
+            AndroidUtil.clearProfilePic(context, holder.profilePic);
+        }
+        UserModel cached = profileRepository.getCached(hit.otherUserId);
+        if (cached != null) {
+            bindOtherUser(holder, cached);
+            return;
+        }
+        int token = holder.bindToken.start();
+        profileRepository.get(hit.otherUserId).addOnSuccessListener(otherUserModel -> {
+            if (holder.bindToken.deliver(token) && otherUserModel != null) {
+                bindOtherUser(holder, otherUserModel);
+            }
+        });
+    }
+
+    /**
+     * Verwirft laufende Anfragen eines ViewHolders, der recycelt wird, und bricht
+     * das Laden seines Profilbilds ab.
+     *
+     * @param holder Der recycelte ViewHolder.
+     */
+    @Override
+    public void onViewRecycled(@NonNull HitViewHolder holder) {
+        super.onViewRecycled(holder);
+        holder.bindToken.invalidate();
+        holder.hit = null;
+        holder.otherUser = null;
+        AndroidUtil.clearProfilePic(context, holder.profilePic);
+    }
+
+    /**
+     * Setzt Benutzernamen und Profilbild des Chatpartners. Das Profilbild wird
+     * nur beim ersten Binden dieses Partners angefordert.
+     */
+    private void bindOtherUser(HitViewHolder holder, UserModel otherUserModel) {
+        if (holder.otherUser == null) {
+            AndroidUtil.setProfilePic(context, otherUserModel, holder.profilePic, holder.bindToken);
+        }
+        holder.otherUser = otherUserModel;
+        holder.usernameText.setText(otherUserModel.getUsername());
+    }
+
+    /**
+     * Öffnet die ChatActivity an der Nachricht der angeklickten Zeile. Das
+     * Profil des Chatpartners wird dafür frisch geladen, damit die ChatActivity
+     * keinen veralteten FCM-Token verwendet.
+     */
+    private void openChat(HitViewHolder holder) {
+        MessageSearchIndex.Hit hit = holder.hit;
+        if (hit == null) {
+            return;
+        }
+        profileRepository.getFresh(hit.otherUserId).addOnSuccessListener(otherUserModel -> {
+            if (otherUserModel == null) {
+                return;
+            }
+            Intent intent = new Intent(context, ChatActivity.class);
+            AndroidUtil.passUserModelAsIntent(intent, otherUserModel);
+            intent.putExtra(ChatActivity.EXTRA_JUMP_TO_MESSAGE_ID, hit.messageId);
+            intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+            context.startActivity(intent);
+        });
+    }
+
+    /**
+     * Wandelt die Markierungen des Textausschnitts in fett gesetzte Suchbegriffe
+     * um.
+     */
+    private static CharSequence highlight(String snippet, boolean sentByMe) {
+        SpannableStringBuilder text = new SpannableStringBuilder();
+        if (sentByMe) {
+            text.append(SENT_BY_ME_PREFIX);
+        }
+        int matchStart = -1;
+        for (int i = 0; i < snippet.length(); i++) {
+            char c = snippet.charAt(i);
+            if (c == MessageSearchIndex.MATCH_START) {
+                matchStart = text.length();
+            } else if (c == MessageSearchIndex.MATCH_END && matchStart >= 0) {
+                text.setSpan(new StyleSpan(Typeface.BOLD), matchStart, text.length(),
+                        Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+                matchStart = -1;
+            } else {
+                text.append(c);
+            }
+        }
+        return text;
+    }
+
+    /**
+     * Vergleicht Treffer anhand der Nachrichten-ID.
+     */
+    private static final DiffUtil.ItemCallback<MessageSearchIndex.Hit> DIFF_CALLBACK = new DiffUtil.ItemCallback<MessageSearchIndex.Hit>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull MessageSearchIndex.Hit oldItem,
+                @NonNull MessageSearchIndex.Hit newItem) {
+            return oldItem.messageId.equals(newItem.messageId);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull MessageSearchIndex.Hit oldItem,
+                @NonNull MessageSearchIndex.Hit newItem) {
+            return Objects.equals(oldItem.snippet, newItem.snippet);
+        }
+    };
+
+    /**
+     * Erstellt einen neuen ViewHolder, wenn keine vorhandenen ViewHolder mehr für
+     * das Recycling zur Verfügung stehen.
+     *
+     * @param parent   Die übergeordnete ViewGroup, zu der diese Ansicht hinzugefügt
+     *                 wird.
+     * @param viewType Der Typ der neuen Ansicht.
+     * @return Ein neues HitViewHolder-Objekt.
+     */
+    @NonNull
+    @Override
+    public HitViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(context).inflate(R.layout.message_search_recycler_row, parent, false);
+        return new HitViewHolder(view);
+    }
+
+    /**
+     * Der HitViewHolder hält die UI-Komponenten eines Treffers.
+     */
+    static class HitViewHolder extends RecyclerView.ViewHolder {
+        TextView usernameText; // TextView für den Namen des Chatpartners
+        TextView messageTime; // TextView für den Zeitpunkt der Nachricht
+        TextView snippetText; // TextView für den Ausschnitt der Nachricht
+        ImageView profilePic; // ImageView für das Profilbild
+        MessageSearchIndex.Hit hit; // Gebundener Treffer
+        UserModel otherUser; // Angezeigtes Profil des Chatpartners
+        final BindToken bindToken = new BindToken(); // Token der aktuellen Bindung
+
+        /**
+         * Konstruktor für HitViewHolder.
+         *
+         * @param itemView Die Ansicht des Listenelements.
+         */
+        public HitViewHolder(@NonNull View itemView) {
+            super(itemView);
+            usernameText = itemView.findViewById(R.id.user_name_text);
+            messageTime = itemView.findViewById(R.id.message_time_text);
+            snippetText = itemView.findViewById(R.id.message_snippet_text);
+            profilePic = itemView.findViewById(R.id.profile_pic_image_view);
+
+            itemView.setOnClickListener(v -> {
+                if (getBindingAdapter() instanceof MessageSearchRecyclerAdapter) {
+                    ((MessageSearchRecyclerAdapter) getBindingAdapter()).openChat(this);
+                }
+            });
+        }
+    }
+}
@@ -2,14 +2,14 @@ package com.example.hochschule_koblenz_chat_app.adapter;
 
 import android.content.Context;
 import android.content.Intent;
-import android.net.Uri;
-import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.hochschule_koblenz_chat_app.ChatActivity;
@@ -17,34 +17,117 @@ import com.example.hochschule_koblenz_chat_app.R;
 import com.example.hochschule_koblenz_chat_app.model.ChatroomModel;
 import com.example.hochschule_koblenz_chat_app.model.UserModel;
 import com.example.hochschule_koblenz_chat_app.utils.AndroidUtil;
+import com.example.hochschule_koblenz_chat_app.utils.BindToken;
 import com.example.hochschule_koblenz_chat_app.utils.FirebaseUtil;
-import com.firebase.ui.firestore.FirestoreRecyclerAdapter;
-import com.firebase.ui.firestore.FirestoreRecyclerOptions;
+import com.example.hochschule_koblenz_chat_app.utils.RowViewPool;
+import com.example.hochschule_koblenz_chat_app.utils.StableIds;
+import com.example.hochschule_koblenz_chat_app.utils.TextBuffer;
+import com.example.hochschule_koblenz_chat_app.utils.UserProfileRepository;
+import com.google.android.gms.tasks.OnSuccessListener;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * Der RecentChatRecyclerAdapter ist ein Adapter für eine RecyclerView, die die
  * letzten Chats des Benutzers anzeigt.
  * Er ermöglicht das Durchsuchen der Chatliste und den Übergang zur
  * Chat-Aktivität durch Anklicken eines Chat-Elements.
+ * Änderungen werden per DiffUtil abgeglichen: Ändert sich nur die letzte
+ * Nachricht eines Chats, werden ausschließlich Text, Zeit und Zähler dieser
+ * Zeile neu gebunden, ohne den anderen Benutzer erneut zu laden. Name und
+ * Profilbildversion des anderen Benutzers stehen im Chatroom selbst, sodass
+ * eine Zeile ohne weitere Abfrage gezeichnet wird; nur ältere Chatrooms ohne
+ * diese Angaben laden das Profil aus dem UserProfileRepository. Das
+ * vollständige Profil für die ChatActivity wird erst beim Anklicken frisch
+ * geladen, damit Name und FCM-Token nicht aus einem veralteten Cache kommen.
  * 
  * @autor: Mohamed Bebba
  */
 public class RecentChatRecyclerAdapter
-        extends FirestoreRecyclerAdapter<ChatroomModel, RecentChatRecyclerAdapter.ChatroomModelViewHolder> {
+        extends ListAdapter<ChatroomModel, RecentChatRecyclerAdapter.ChatroomModelViewHolder> {
+
+    // Payload, wenn sich nur die letzte Nachricht eines Chats geändert hat
+    static final Object PAYLOAD_LAST_MESSAGE = new Object();
+    // Präfix für selbst gesendete letzte Nachrichten
+    private static final String SENT_BY_ME_PREFIX = "Du : ";
 
     // Kontext der Anwendung
     Context context;
+    // Quelle für die Profile der anderen Benutzer
+    private final UserProfileRepository profileRepository;
+    // Benutzer-ID des angemeldeten Benutzers, einmal pro Adapter gelesen
+    private final String currentUserId;
+    // Stabile numerische IDs für die Chatroom-IDs
+    private final StableIds stableIds = new StableIds();
 
     /**
      * Konstruktor für den RecentChatRecyclerAdapter.
      *
-     * @param options Die FirestoreRecyclerOptions, die die Abfrageergebnisse
-     *                enthalten.
-     * @param context Der Kontext, in dem der Adapter verwendet wird.
+     * @param context       Der Kontext, in dem der Adapter verwendet wird.
+     * @param currentUserId Die Benutzer-ID des angemeldeten Benutzers.
+     */
+    public RecentChatRecyclerAdapter(Context context, String currentUserId) {
+        this(context, currentUserId, UserProfileRepository.getInstance());
+    }
+
+    /**
+     * Konstruktor mit eigener Profilquelle, z. B. für Tests.
+     *
+     * @param context           Der Kontext, in dem der Adapter verwendet wird.
+     * @param currentUserId     Die Benutzer-ID des angemeldeten Benutzers.
+     * @param profileRepository Die Quelle für die Profile der anderen Benutzer.
      */
-    public RecentChatRecyclerAdapter(@NonNull FirestoreRecyclerOptions<ChatroomModel> options, Context context) {
-        super(options);
+    RecentChatRecyclerAdapter(Context context, String currentUserId, UserProfileRepository profileRepository) {
+        super(DIFF_CALLBACK);
         this.context = context;
+        this.currentUserId = currentUserId;
+        this.profileRepository = profileRepository;
+        setHasStableIds(true);
+    }
+
+    /**
+     * Gibt eine stabile ID für den Chatroom an der angegebenen Position zurück.
+     *
+     * @param position Die Position des Elements im Adapter.
+     * @return Die stabile ID des Chatrooms.
+     */
+    @Override
+    public long getItemId(int position) {
+        return stableIds.idFor(getItem(position).getChatroomId());
+    }
+
+    /**
+     * Vergisst die stabilen IDs der Chats, die nicht mehr angezeigt werden.
+     *
+     * @param previousList Die bisher angezeigte Liste.
+     * @param currentList  Die jetzt angezeigte Liste.
+     */
+    @Override
+    public void onCurrentListChanged(@NonNull List<ChatroomModel> previousList,
+            @NonNull List<ChatroomModel> currentList) {
+        if (stableIds.size() <= currentList.size()) {
+            return;
+        }
+        Set<String> ids = new HashSet<>();
+        for (ChatroomModel chatroom : currentList) {
+            ids.add(chatroom.getChatroomId());
+        }
+        stableIds.retain(ids);
+    }
+
+    /**
+     * Gibt den View-Typ der Zeilen zurück. Die Layout-ID ist im gemeinsamen
+     * RowViewPool eindeutig.
+     *
+     * @param position Die Position des Elements im Adapter.
+     * @return Die Layout-ID der Zeile.
+     */
+    @Override
+    public int getItemViewType(int position) {
+        return R.layout.recent_chat_recycler_row;
     }
 
     /**
@@ -52,54 +135,224 @@ public class RecentChatRecyclerAdapter
      *
      * @param holder   Der ViewHolder, der die Ansichtselemente hält.
      * @param position Die Position des Elements im Adapter.
-     * @param model    Das ChatroomModel-Objekt, das an die Ansicht gebunden wird.
      */
     @Override
-    protected void onBindViewHolder(@NonNull ChatroomModelViewHolder holder, int position,
-            @NonNull ChatroomModel model) {
-        // Abrufen der anderen Benutzerinformationen im Chatraum
-        FirebaseUtil.getOtherUserFromChatroom(model.getUserIds())
-                .get().addOnCompleteListener(task -> {
-                    if (task.isSuccessful()) {
-                        // Überprüfen, ob die letzte Nachricht vom aktuellen Benutzer gesendet wurde
-                        boolean lastMessageSentByMe = model.getLastMessageSenderId()
-                                .equals(FirebaseUtil.currentUserId());
-
-                        // Konvertieren des Firestore-Dokuments in ein UserModel-Objekt
-                        UserModel otherUserModel = task.getResult().toObject(UserModel.class);
-
-                        // Profilbild des anderen Benutzers laden und anzeigen
-                        FirebaseUtil.getOtherProfilePicStorageRef(otherUserModel.getUserId()).getDownloadUrl()
-                                .addOnCompleteListener(t -> {
-                                    if (t.isSuccessful()) {
-                                        Uri uri = t.getResult();
-                                        AndroidUtil.setProfilePic(context, uri, holder.profilePic);
-                                    }
-                                });
-
-                        // Setzen des Benutzernamens und der letzten Nachricht
-                        holder.usernameText.setText(otherUserModel.getUsername());
-                        if (lastMessageSentByMe)
-                            holder.lastMessageText.setText("Du : " + model.getLastMessage());
-                        else
-                            holder.lastMessageText.setText(model.getLastMessage());
-
-                        // Setzen des Zeitstempels der letzten Nachricht
-                        holder.lastMessageTime.setText(FirebaseUtil.timestampToString(model.getLastMessageTimestamp()));
-
-                        // Klick-Listener für das Listenelement, um zur ChatActivity zu navigieren
-                        holder.itemView.setOnClickListener(v -> {
-                            Intent intent = new Intent(context, ChatActivity.class);
-                            AndroidUtil.passUserModelAsIntent(intent, otherUserModel); // Übergibt die Benutzerdaten an
-                                                                                       // die ChatActivity
-                            intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
-                            context.startActivity(intent);
-                        });
-
-                    }
-                });
+    public void onBindViewHolder(@NonNull ChatroomModelViewHolder holder, int position) {
+        ChatroomModel model = getItem(position);
+        bindLastMessage(holder, model);
+
+        // Der andere Benutzer kommt aus dem Cache des UserProfileRepositorys oder
+        // wird gebündelt mit den übrigen Zeilen geladen
+        String otherUserId = FirebaseUtil.getOtherUserId(model.getUserIds(), currentUserId);
+        if (!otherUserId.equals(holder.otherUserId)) {
+            // Die Zeile zeigt jetzt einen anderen Chat: Anfragen und Bild der
+            // vorherigen Bindung verwerfen
+            holder.bindToken.invalidate();
+            holder.clearPicture();
+            AndroidUtil.clearProfilePic(context, holder.profilePic);
+        }
+        holder.otherUserId = otherUserId;
+        if (model.hasParticipant(otherUserId)) {
+            bindOtherUser(holder, otherUserId, model.participantName(otherUserId),
+                    model.participantPicVersion(otherUserId));
+            return;
+        }
+        UserModel cached = profileRepository.getCached(otherUserId);
+        if (cached != null) {
+            bindOtherUser(holder, cached);
+            return;
+        }
+        AndroidUtil.setTextIfChanged(holder.usernameText, "");
+        holder.profileToken = holder.bindToken.start();
+        // Der Rückruf gehört zum ViewHolder und entsteht nicht bei jeder Bindung
+        profileRepository.get(otherUserId).addOnSuccessListener(holder.profileListener);
+    }
+
+    /**
+     * Setzt ein nachgeladenes Profil, sofern die Zeile noch denselben Benutzer
+     * zeigt.
+     */
+    private void onProfileLoaded(ChatroomModelViewHolder holder, UserModel otherUserModel) {
+        if (holder.bindToken.deliver(holder.profileToken) && otherUserModel != null
+                && otherUserModel.getUserId().equals(holder.otherUserId)) {
+            bindOtherUser(holder, otherUserModel);
+        }
+    }
+
+    /**
+     * Verwirft laufende Anfragen eines ViewHolders, der recycelt wird, und bricht
+     * das Laden seines Profilbilds ab.
+     *
+     * @param holder Der recycelte ViewHolder.
+     */
+    @Override
+    public void onViewRecycled(@NonNull ChatroomModelViewHolder holder) {
+        super.onViewRecycled(holder);
+        holder.bindToken.invalidate();
+        holder.otherUserId = null;
+        holder.clearPicture();
+        AndroidUtil.clearProfilePic(context, holder.profilePic);
+    }
+
+    /**
+     * Setzt Benutzernamen und Profilbild für den anderen Benutzer eines Chats.
+     * Das Profilbild wird nur neu angefordert, wenn sich Benutzer oder
+     * Bildversion geändert haben.
+     */
+    private void bindOtherUser(ChatroomModelViewHolder holder, UserModel otherUserModel) {
+        bindOtherUser(holder, otherUserModel.getUserId(), otherUserModel.getUsername(),
+                otherUserModel.getProfilePicVersion());
+    }
+
+    /**
+     * Setzt Benutzernamen und Profilbild aus einzelnen Angaben, z. B. aus den
+     * Teilnehmerangaben des Chatrooms, ohne dafür ein UserModel anzulegen.
+     */
+    private void bindOtherUser(ChatroomModelViewHolder holder, String userId, String username,
+            long picVersion) {
+        boolean samePicture = userId.equals(holder.picUserId) && holder.picVersion == picVersion;
+        if (!samePicture) {
+            // Profilbild des anderen Benutzers laden und anzeigen; ein noch laufendes
+            // Laden eines älteren Bildes wird verworfen
+            holder.picUserId = userId;
+            holder.picVersion = picVersion;
+            holder.bindToken.invalidate();
+            AndroidUtil.setProfilePic(context, userId, picVersion, holder.profilePic, holder.bindToken);
+        }
+
+        // Setzen des Benutzernamens
+        AndroidUtil.setTextIfChanged(holder.usernameText, username);
+    }
+
+    /**
+     * Öffnet die ChatActivity mit dem anderen Benutzer der angeklickten Zeile.
+     * Die ChatActivity benötigt das vollständige, aktuelle Profil (u. a. den
+     * FCM-Token). Da Chatpartner mit Teilnehmerangaben im Chatroom nicht live
+     * beobachtet werden, wird das Profil dafür frisch geladen.
+     */
+    private void openChat(ChatroomModelViewHolder holder) {
+        String otherUserId = holder.otherUserId;
+        if (otherUserId == null) {
+            return;
+        }
+        profileRepository.getFresh(otherUserId).addOnSuccessListener(otherUserModel -> {
+            if (otherUserModel != null) {
+                startChat(otherUserModel);
+            }
+        });
+    }
+
+    /**
+     * Startet die ChatActivity mit dem angegebenen Benutzer.
+     */
+    private void startChat(UserModel otherUserModel) {
+        Intent intent = new Intent(context, ChatActivity.class);
+        AndroidUtil.passUserModelAsIntent(intent, otherUserModel); // Übergibt die Benutzerdaten an die
+                                                                   // ChatActivity
+        intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+        context.startActivity(intent);
+    }
+
+    /**
+     * Bindet alle Zeilen neu, deren anderer Benutzer sein Profil geändert hat.
+     *
+     * @param userModel Das geänderte Profil.
+     */
+    public void onProfileChanged(UserModel userModel) {
+        for (int position = 0; position < getItemCount(); position++) {
+            if (userModel.getUserId().equals(FirebaseUtil.getOtherUserId(getItem(position).getUserIds(),
+                    currentUserId))) {
+                notifyItemChanged(position);
+            }
+        }
+    }
+
+    /**
+     * Bindet nur die geänderten Teile eines Chats. Bei einer neuen letzten
+     * Nachricht werden Text, Zeit und Ungelesen-Zähler aktualisiert, ohne den
+     * anderen Benutzer oder das Profilbild erneut zu laden.
+     *
+     * @param holder   Der ViewHolder, der die Ansichtselemente hält.
+     * @param position Die Position des Elements im Adapter.
+     * @param payloads Die Payloads aus dem DiffUtil-Abgleich.
+     */
+    @Override
+    public void onBindViewHolder(@NonNull ChatroomModelViewHolder holder, int position,
+            @NonNull List<Object> payloads) {
+        if (payloads.isEmpty() || !payloads.contains(PAYLOAD_LAST_MESSAGE)) {
+            onBindViewHolder(holder, position);
+            return;
+        }
+        bindLastMessage(holder, getItem(position));
     }
 
+    /**
+     * Setzt die letzte Nachricht, ihren Zeitstempel und den Ungelesen-Zähler.
+     * Zusammengesetzte Texte werden über die TextBuffer des ViewHolders gesetzt,
+     * sodass beim Binden keine neuen Strings entstehen.
+     */
+    private void bindLastMessage(ChatroomModelViewHolder holder, ChatroomModel model) {
+        // Überprüfen, ob die letzte Nachricht vom aktuellen Benutzer gesendet wurde
+        holder.lastMessageBuffer.clear();
+        if (currentUserId.equals(model.getLastMessageSenderId())) {
+            holder.lastMessageBuffer.append(SENT_BY_ME_PREFIX);
+        }
+        holder.lastMessageBuffer.append(model.getLastMessage()).applyTo(holder.lastMessageText);
+
+        // Setzen des Zeitstempels der letzten Nachricht; ohne Zeitstempel wird die
+        // Zeit einer zuvor gebundenen Zeile entfernt
+        if (model.getLastMessageTimestamp() != null) {
+            AndroidUtil.setTextIfChanged(holder.lastMessageTime,
+                    FirebaseUtil.timestampToString(model.getLastMessageTimestamp()));
+        } else {
+            AndroidUtil.setTextIfChanged(holder.lastMessageTime, "");
+        }
+
+        // Anzeigen der Anzahl ungelesener Nachrichten
+        long unreadCount = model.unreadCountFor(currentUserId);
+        if (unreadCount > 0) {
+            holder.unreadCountBuffer.clear().append(unreadCount).applyTo(holder.unreadCountText);
+            holder.unreadCountText.setVisibility(View.VISIBLE);
+        } else {
+            holder.unreadCountText.setVisibility(View.GONE);
+        }
+    }
+
+    /**
+     * Vergleicht Chatrooms anhand ihrer ID; ändern sich nur die Felder der
+     * letzten Nachricht, wird ein Teil-Update angefordert. Geänderte Namen oder
+     * Profilbilder der Teilnehmer binden die ganze Zeile neu.
+     */
+    private static final DiffUtil.ItemCallback<ChatroomModel> DIFF_CALLBACK = new DiffUtil.ItemCallback<ChatroomModel>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull ChatroomModel oldItem, @NonNull ChatroomModel newItem) {
+            return oldItem.getChatroomId().equals(newItem.getChatroomId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull ChatroomModel oldItem, @NonNull ChatroomModel newItem) {
+            return hasSameParticipants(oldItem, newItem) && hasSameLastMessage(oldItem, newItem);
+        }
+
+        @Override
+        public Object getChangePayload(@NonNull ChatroomModel oldItem, @NonNull ChatroomModel newItem) {
+            return hasSameParticipants(oldItem, newItem) ? PAYLOAD_LAST_MESSAGE : null;
+        }
+
+        private boolean hasSameParticipants(ChatroomModel oldItem, ChatroomModel newItem) {
+            return Objects.equals(oldItem.getUserIds(), newItem.getUserIds())
+                    && Objects.equals(oldItem.getParticipantNames(), newItem.getParticipantNames())
+                    && Objects.equals(oldItem.getParticipantPicVersions(), newItem.getParticipantPicVersions());
+        }
+
+        private boolean hasSameLastMessage(ChatroomModel oldItem, ChatroomModel newItem) {
+            return Objects.equals(oldItem.getLastMessage(), newItem.getLastMessage())
+                    && Objects.equals(oldItem.getLastMessageSenderId(), newItem.getLastMessageSenderId())
+                    && Objects.equals(oldItem.getLastMessageTimestamp(), newItem.getLastMessageTimestamp())
+                    && Objects.equals(oldItem.getUnreadCounts(), newItem.getUnreadCounts());
+        }
+    };
+
     /**
      * Erstellt einen neuen ViewHolder, wenn keine vorhandenen ViewHolder mehr für
      * das Recycling zur Verfügung stehen.
@@ -112,8 +365,9 @@ public class RecentChatRecyclerAdapter
     @NonNull
     @Override
     public ChatroomModelViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        // Erstellen der Ansicht für jedes Listenelement
-        View view = LayoutInflater.from(context).inflate(R.layout.recent_chat_recycler_row, parent, false);
+        // Erstellen der Ansicht für jedes Listenelement, bevorzugt aus den vorab
+        // aufgeblähten Zeilen
+        View view = RowViewPool.getInstance().obtain(context, viewType, parent);
         return new ChatroomModelViewHolder(view);
     }
 
@@ -121,13 +375,26 @@ public class RecentChatRecyclerAdapter
      * Der ChatroomModelViewHolder hält die UI-Komponenten für jedes Listenelement.
      * Er enthält die TextViews für den Benutzernamen, die letzte Nachricht, die
      * Zeit der letzten Nachricht und das ImageView für das Profilbild.
+     * Der ViewHolder ist statisch, da er über den gemeinsamen RowViewPool auch
+     * von späteren Adaptern wiederverwendet wird.
      */
-    class ChatroomModelViewHolder extends RecyclerView.ViewHolder {
+    static class ChatroomModelViewHolder extends RecyclerView.ViewHolder {
         // UI-Komponenten für jedes Listenelement
         TextView usernameText; // TextView für den Benutzernamen
         TextView lastMessageText; // TextView für die letzte Nachricht
         TextView lastMessageTime; // TextView für die Zeit der letzten Nachricht
+        TextView unreadCountText; // TextView für die Anzahl ungelesener Nachrichten
         ImageView profilePic; // ImageView für das Profilbild
+        String otherUserId; // Benutzer-ID des anderen Teilnehmers des gebundenen Chats
+        String picUserId; // Benutzer-ID und Version des angezeigten Profilbilds
+        long picVersion;
+        final BindToken bindToken = new BindToken(); // Token der aktuellen Bindung
+        int profileToken; // Token der laufenden Profilanfrage
+        // Rückruf für nachgeladene Profile, einmal pro ViewHolder
+        final OnSuccessListener<UserModel> profileListener;
+        // Wiederverwendete Puffer für zusammengesetzte Texte
+        final TextBuffer lastMessageBuffer = new TextBuffer(64);
+        final TextBuffer unreadCountBuffer = new TextBuffer(4);
 
         /**
          * Konstruktor für ChatroomModelViewHolder.
@@ -140,7 +407,31 @@ public class RecentChatRecyclerAdapter
             usernameText = itemView.findViewById(R.id.user_name_text);
             lastMessageText = itemView.findViewById(R.id.last_message_text);
             lastMessageTime = itemView.findViewById(R.id.last_message_time_text);
+            unreadCountText = itemView.findViewById(R.id.unread_count_text);
             profilePic = itemView.findViewById(R.id.profile_pic_image_view);
+            clearPicture();
+
+            // Klick-Listener einmal pro ViewHolder, um über den aktuell gebundenen
+            // Adapter zur ChatActivity zu navigieren
+            itemView.setOnClickListener(v -> {
+                if (getBindingAdapter() instanceof RecentChatRecyclerAdapter) {
+                    ((RecentChatRecyclerAdapter) getBindingAdapter()).openChat(this);
+                }
+            });
+            profileListener = otherUserModel -> {
+                if (getBindingAdapter() instanceof RecentChatRecyclerAdapter) {
+                    ((RecentChatRecyclerAdapter) getBindingAdapter()).onProfileLoaded(this, otherUserModel);
+                }
+            };
+        }
+
+        /**
+         * Vergisst das angezeigte Profilbild, sodass die nächste Bindung es neu
+         * lädt.
+         */
+        void clearPicture() {
+            picUserId = null;
+            picVersion = -1;
         }
     }
 }
@@ -2,49 +2,71 @@ package com.example.hochschule_koblenz_chat_app.adapter;
 
 import android.content.Context;
 import android.content.Intent;
-import android.net.Uri;
-import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.hochschule_koblenz_chat_app.R;
 import com.example.hochschule_koblenz_chat_app.model.UserModel;
 import com.example.hochschule_koblenz_chat_app.utils.AndroidUtil;
+import com.example.hochschule_koblenz_chat_app.utils.BindToken;
 import com.example.hochschule_koblenz_chat_app.ChatActivity;
 import com.example.hochschule_koblenz_chat_app.utils.FirebaseUtil;
-import com.firebase.ui.firestore.FirestoreRecyclerAdapter;
-import com.firebase.ui.firestore.FirestoreRecyclerOptions;
+import com.example.hochschule_koblenz_chat_app.utils.RowViewPool;
+import com.example.hochschule_koblenz_chat_app.utils.TextBuffer;
+
+import java.util.Objects;
 
 /**
  * Der SearchUserRecyclerAdapter ist ein Adapter für eine RecyclerView, die
  * Benutzerprofile anzeigt,
- * basierend auf einer Firestore-Abfrage. Er ermöglicht das Durchsuchen und
+ * basierend auf den Suchergebnissen aus dem lokalen Suchindex und der
+ * Firestore-Abfrage. Er ermöglicht das Durchsuchen und
  * Anklicken von Benutzerprofilen,
  * um eine Chat-Aktivität zu starten.
+ * Neue Ergebnislisten werden per DiffUtil abgeglichen, sodass beim Tippen nur
+ * die geänderten Zeilen neu gebunden werden.
  * 
  * @autor: Mohamed Bebba
  */
 public class SearchUserRecyclerAdapter
-        extends FirestoreRecyclerAdapter<UserModel, SearchUserRecyclerAdapter.UserModelViewHolder> {
+        extends ListAdapter<UserModel, SearchUserRecyclerAdapter.UserModelViewHolder> {
+
+    // Markierung für den eigenen Eintrag in den Suchergebnissen
+    private static final String ME_SUFFIX = " (Me)";
 
     // Kontext der Anwendung
     Context context;
+    // Benutzer-ID des angemeldeten Benutzers, einmal pro Adapter gelesen
+    private final String currentUserId;
 
     /**
      * Konstruktor für den SearchUserRecyclerAdapter.
      *
-     * @param options Die FirestoreRecyclerOptions, die die Abfrageergebnisse
-     *                enthalten.
      * @param context Der Kontext, in dem der Adapter verwendet wird.
      */
-    public SearchUserRecyclerAdapter(@NonNull FirestoreRecyclerOptions<UserModel> options, Context context) {
-        super(options);
+    public SearchUserRecyclerAdapter(Context context) {
+        super(DIFF_CALLBACK);
         this.context = context;
+        this.currentUserId = FirebaseUtil.currentUserId();
+    }
+
+    /**
+     * Gibt den View-Typ der Zeilen zurück. Die Layout-ID ist im gemeinsamen
+     * RowViewPool eindeutig.
+     *
+     * @param position Die Position des Elements im Adapter.
+     * @return Die Layout-ID der Zeile.
+     */
+    @Override
+    public int getItemViewType(int position) {
+        return R.layout.search_user_recycler_row;
     }
 
     /**
@@ -52,38 +74,71 @@ public class SearchUserRecyclerAdapter
      *
      * @param holder   Der ViewHolder, der die Ansichtselemente hält.
      * @param position Die Position des Elements im Adapter.
-     * @param model    Das UserModel-Objekt, das an die Ansicht gebunden wird.
      */
     @Override
-    protected void onBindViewHolder(@NonNull UserModelViewHolder holder, int position, @NonNull UserModel model) {
-        // Setzen des Benutzernamens und der Telefonnummer auf die entsprechenden
-        // TextViews
-        holder.usernameText.setText(model.getUsername());
-        holder.phoneText.setText(model.getPhone());
+    public void onBindViewHolder(@NonNull UserModelViewHolder holder, int position) {
+        UserModel model = getItem(position);
+        // Anfragen der vorherigen Bindung verwerfen
+        holder.bindToken.invalidate();
+        holder.user = model;
 
-        // Markiert den aktuellen Benutzer als "(Me)"
-        if (model.getUserId().equals(FirebaseUtil.currentUserId())) {
-            holder.usernameText.setText(model.getUsername() + " (Me)");
+        // Setzen des Benutzernamens und der Telefonnummer auf die entsprechenden
+        // TextViews; der aktuelle Benutzer wird als "(Me)" markiert
+        holder.usernameBuffer.clear().append(model.getUsername());
+        if (model.getUserId().equals(currentUserId)) {
+            holder.usernameBuffer.append(ME_SUFFIX);
         }
+        holder.usernameBuffer.applyTo(holder.usernameText);
+        holder.phoneText.setText(model.getPhone());
 
         // Laden und Anzeigen des Profilbilds mithilfe der Glide-Bibliothek
-        FirebaseUtil.getOtherProfilePicStorageRef(model.getUserId()).getDownloadUrl()
-                .addOnCompleteListener(t -> {
-                    if (t.isSuccessful()) {
-                        Uri uri = t.getResult();
-                        AndroidUtil.setProfilePic(context, uri, holder.profilePic);
-                    }
-                });
-
-        // Klick-Listener für das Listenelement, um zur ChatActivity zu navigieren
-        holder.itemView.setOnClickListener(v -> {
-            Intent intent = new Intent(context, ChatActivity.class);
-            AndroidUtil.passUserModelAsIntent(intent, model); // Übergibt die Benutzerdaten an die ChatActivity
-            intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
-            context.startActivity(intent);
-        });
+        AndroidUtil.setProfilePic(context, model, holder.profilePic, holder.bindToken);
     }
 
+    /**
+     * Verwirft laufende Anfragen eines ViewHolders, der recycelt wird, und bricht
+     * das Laden seines Profilbilds ab.
+     *
+     * @param holder Der recycelte ViewHolder.
+     */
+    @Override
+    public void onViewRecycled(@NonNull UserModelViewHolder holder) {
+        super.onViewRecycled(holder);
+        holder.bindToken.invalidate();
+        holder.user = null;
+        AndroidUtil.clearProfilePic(context, holder.profilePic);
+    }
+
+    /**
+     * Öffnet die ChatActivity mit dem Benutzer der angeklickten Zeile.
+     */
+    private void openChat(UserModelViewHolder holder) {
+        if (holder.user == null) {
+            return;
+        }
+        Intent intent = new Intent(context, ChatActivity.class);
+        AndroidUtil.passUserModelAsIntent(intent, holder.user); // Übergibt die Benutzerdaten an die ChatActivity
+        intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+        context.startActivity(intent);
+    }
+
+    /**
+     * Vergleicht Benutzer anhand ihrer ID und der angezeigten Felder.
+     */
+    private static final DiffUtil.ItemCallback<UserModel> DIFF_CALLBACK = new DiffUtil.ItemCallback<UserModel>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull UserModel oldItem, @NonNull UserModel newItem) {
+            return oldItem.getUserId().equals(newItem.getUserId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull UserModel oldItem, @NonNull UserModel newItem) {
+            return Objects.equals(oldItem.getUsername(), newItem.getUsername())
+                    && Objects.equals(oldItem.getPhone(), newItem.getPhone())
+                    && oldItem.getProfilePicVersion() == newItem.getProfilePicVersion();
+        }
+    };
+
     /**
      * Erstellt einen neuen ViewHolder, wenn keine vorhandenen ViewHolder mehr für
      * das Recycling zur Verfügung stehen.
@@ -96,8 +151,9 @@ public class SearchUserRecyclerAdapter
     @NonNull
     @Override
     public UserModelViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        // Erstellen der Ansicht für jedes Listenelement
-        View view = LayoutInflater.from(context).inflate(R.layout.search_user_recycler_row, parent, false);
+        // Erstellen der Ansicht für jedes Listenelement, bevorzugt aus den vorab
+        // aufgeblähten Zeilen
+        View view = RowViewPool.getInstance().obtain(context, viewType, parent);
         return new UserModelViewHolder(view);
     }
 
@@ -105,12 +161,17 @@ public class SearchUserRecyclerAdapter
      * Der UserModelViewHolder hält die UI-Komponenten für jedes Listenelement.
      * Er enthält die TextViews für den Benutzernamen, die Telefonnummer und das
      * ImageView für das Profilbild.
+     * Der ViewHolder ist statisch, da er über den gemeinsamen RowViewPool auch
+     * von späteren Adaptern wiederverwendet wird.
      */
-    class UserModelViewHolder extends RecyclerView.ViewHolder {
+    static class UserModelViewHolder extends RecyclerView.ViewHolder {
         // UI-Komponenten für jedes Listenelement
         TextView usernameText; // TextView für den Benutzernamen
         TextView phoneText; // TextView für die Telefonnummer
         ImageView profilePic; // ImageView für das Profilbild
+        UserModel user; // Gebundener Benutzer
+        final BindToken bindToken = new BindToken(); // Token der aktuellen Bindung
+        final TextBuffer usernameBuffer = new TextBuffer(32); // Wiederverwendeter Puffer für den Namen
 
         /**
          * Konstruktor für UserModelViewHolder.
@@ -123,6 +184,14 @@ public class SearchUserRecyclerAdapter
             usernameText = itemView.findViewById(R.id.user_name_text);
             phoneText = itemView.findViewById(R.id.phone_text);
             profilePic = itemView.findViewById(R.id.profile_pic_image_view);
+
+            // Klick-Listener einmal pro ViewHolder, um über den aktuell gebundenen
+            // Adapter zur ChatActivity zu navigieren
+            itemView.setOnClickListener(v -> {
+                if (getBindingAdapter() instanceof SearchUserRecyclerAdapter) {
+                    ((SearchUserRecyclerAdapter) getBindingAdapter()).openChat(this);
+                }
+            });
         }
     }
 }
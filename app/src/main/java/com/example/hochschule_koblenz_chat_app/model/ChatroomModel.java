@@ -3,13 +3,19 @@ package com.example.hochschule_koblenz_chat_app.model;
 import com.google.firebase.Timestamp;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Die ChatroomModel-Klasse repräsentiert einen Chatraum in der Anwendung.
  * Sie enthält Informationen über die Chatraum-ID, die Benutzer-IDs der
  * Teilnehmer,
  * den Zeitstempel der letzten Nachricht, die ID des Absenders der letzten
- * Nachricht und den Inhalt der letzten Nachricht.
+ * Nachricht, den Inhalt der letzten Nachricht und die Anzahl ungelesener
+ * Nachrichten pro Teilnehmer.
+ * Zusätzlich trägt der Chatroom Anzeigename und Profilbildversion jedes
+ * Teilnehmers, damit die Chatliste ohne Abfrage der Benutzerprofile
+ * auskommt. Ändert ein Benutzer sein Profil, aktualisiert der
+ * ParticipantFanOut diese Felder in allen seinen Chatrooms.
  * 
  * @autor: Mohamed Bebba
  */
@@ -21,6 +27,9 @@ public class ChatroomModel {
     private Timestamp lastMessageTimestamp; // Zeitstempel der letzten Nachricht im Chatroom
     private String lastMessageSenderId; // Benutzer-ID des Absenders der letzten Nachricht
     private String lastMessage; // Inhalt der letzten Nachricht
+    private Map<String, Long> unreadCounts; // Ungelesene Nachrichten pro Benutzer-ID
+    private Map<String, String> participantNames; // Anzeigename pro Benutzer-ID
+    private Map<String, Long> participantPicVersions; // Profilbildversion pro Benutzer-ID
 
     /**
      * Standardkonstruktor für ChatroomModel.
@@ -136,4 +145,109 @@ public class ChatroomModel {
     public void setLastMessage(String lastMessage) {
         this.lastMessage = lastMessage;
     }
+
+    /**
+     * Gibt die Anzahl ungelesener Nachrichten pro Benutzer-ID zurück.
+     *
+     * @return Die Ungelesen-Zähler der Teilnehmer.
+     */
+    public Map<String, Long> getUnreadCounts() {
+        return unreadCounts;
+    }
+
+    /**
+     * Setzt die Anzahl ungelesener Nachrichten pro Benutzer-ID.
+     *
+     * @param unreadCounts Die Ungelesen-Zähler, die gesetzt werden sollen.
+     */
+    public void setUnreadCounts(Map<String, Long> unreadCounts) {
+        this.unreadCounts = unreadCounts;
+    }
+
+    /**
+     * Gibt die Anzahl ungelesener Nachrichten für einen Benutzer zurück.
+     *
+     * @param userId Die Benutzer-ID des Teilnehmers.
+     * @return Die Anzahl ungelesener Nachrichten oder 0.
+     */
+    public long unreadCountFor(String userId) {
+        if (unreadCounts == null) {
+            return 0;
+        }
+        Long count = unreadCounts.get(userId);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Gibt die Anzeigenamen der Teilnehmer pro Benutzer-ID zurück.
+     *
+     * @return Die Anzeigenamen der Teilnehmer.
+     */
+    public Map<String, String> getParticipantNames() {
+        return participantNames;
+    }
+
+    /**
+     * Setzt die Anzeigenamen der Teilnehmer pro Benutzer-ID.
+     *
+     * @param participantNames Die Anzeigenamen, die gesetzt werden sollen.
+     */
+    public void setParticipantNames(Map<String, String> participantNames) {
+        this.participantNames = participantNames;
+    }
+
+    /**
+     * Gibt die Profilbildversionen der Teilnehmer pro Benutzer-ID zurück.
+     *
+     * @return Die Profilbildversionen der Teilnehmer.
+     */
+    public Map<String, Long> getParticipantPicVersions() {
+        return participantPicVersions;
+    }
+
+    /**
+     * Setzt die Profilbildversionen der Teilnehmer pro Benutzer-ID.
+     *
+     * @param participantPicVersions Die Profilbildversionen, die gesetzt werden
+     *                               sollen.
+     */
+    public void setParticipantPicVersions(Map<String, Long> participantPicVersions) {
+        this.participantPicVersions = participantPicVersions;
+    }
+
+    /**
+     * Prüft, ob Anzeigename und Profilbildversion eines Teilnehmers im Chatroom
+     * hinterlegt sind.
+     *
+     * @param userId Die Benutzer-ID des Teilnehmers.
+     * @return true, wenn beide Angaben vorhanden sind.
+     */
+    public boolean hasParticipant(String userId) {
+        return participantNames != null && participantNames.get(userId) != null
+                && participantPicVersions != null && participantPicVersions.get(userId) != null;
+    }
+
+    /**
+     * Gibt den hinterlegten Anzeigenamen eines Teilnehmers zurück.
+     *
+     * @param userId Die Benutzer-ID des Teilnehmers.
+     * @return Der Anzeigename oder null.
+     */
+    public String participantName(String userId) {
+        return participantNames == null ? null : participantNames.get(userId);
+    }
+
+    /**
+     * Gibt die hinterlegte Profilbildversion eines Teilnehmers zurück.
+     *
+     * @param userId Die Benutzer-ID des Teilnehmers.
+     * @return Die Profilbildversion oder 0.
+     */
+    public long participantPicVersion(String userId) {
+        if (participantPicVersions == null) {
+            return 0;
+        }
+        Long version = participantPicVersions.get(userId);
+        return version == null ? 0 : version;
+    }
 }
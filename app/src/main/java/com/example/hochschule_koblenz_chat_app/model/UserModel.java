@@ -2,12 +2,15 @@ package com.example.hochschule_koblenz_chat_app.model;
 
 import com.google.firebase.Timestamp;
 
+import java.util.List;
+
 /**
  * Die UserModel-Klasse repräsentiert die Benutzerdaten in der Anwendung.
  * Sie enthält Informationen wie die Telefonnummer, den Benutzernamen, den
  * Erstellungszeitpunkt,
- * die Benutzer-ID und den FCM-Token (Firebase Cloud Messaging Token) des
- * Benutzers.
+ * die Benutzer-ID, den FCM-Token (Firebase Cloud Messaging Token) und die
+ * Version des Profilbilds des Benutzers sowie die normalisierten
+ * Suchschlüssel für die Benutzersuche.
  * 
  * @autor: Mohamed Bebba
  */
@@ -19,6 +22,8 @@ public class UserModel {
     private Timestamp createdTimestamp; // Zeitstempel der Erstellung des Benutzerkontos
     private String userId; // Eindeutige Benutzer-ID
     private String fcmToken; // FCM-Token für Benachrichtigungen
+    private long profilePicVersion; // Version des Profilbilds, ändert sich bei jedem Hochladen
+    private List<String> searchKeywords; // Suchschlüssel aus Name und Telefonnummer (siehe SearchKeywords)
 
     /**
      * Standardkonstruktor für UserModel.
@@ -130,4 +135,40 @@ public class UserModel {
     public void setFcmToken(String fcmToken) {
         this.fcmToken = fcmToken;
     }
+
+    /**
+     * Gibt die Version des Profilbilds zurück.
+     *
+     * @return Die Version des Profilbilds oder 0, falls keine bekannt ist.
+     */
+    public long getProfilePicVersion() {
+        return profilePicVersion;
+    }
+
+    /**
+     * Setzt die Version des Profilbilds.
+     *
+     * @param profilePicVersion Die Version, die gesetzt werden soll.
+     */
+    public void setProfilePicVersion(long profilePicVersion) {
+        this.profilePicVersion = profilePicVersion;
+    }
+
+    /**
+     * Gibt die Suchschlüssel des Benutzers zurück.
+     *
+     * @return Die Suchschlüssel oder null, falls sie noch nicht gesetzt wurden.
+     */
+    public List<String> getSearchKeywords() {
+        return searchKeywords;
+    }
+
+    /**
+     * Setzt die Suchschlüssel des Benutzers.
+     *
+     * @param searchKeywords Die Suchschlüssel, die gesetzt werden sollen.
+     */
+    public void setSearchKeywords(List<String> searchKeywords) {
+        this.searchKeywords = searchKeywords;
+    }
 }
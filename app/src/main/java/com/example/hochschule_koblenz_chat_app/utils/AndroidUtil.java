@@ -3,13 +3,25 @@ package com.example.hochschule_koblenz_chat_app.utils;
 import android.content.Context;
 import android.content.Intent;
 import android.net.Uri;
+import android.text.TextUtils;
+import android.util.SparseArray;
+import android.view.ViewGroup;
 import android.widget.ImageView;
+import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.annotation.NonNull;
+
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
 import com.bumptech.glide.request.RequestOptions;
 import com.example.hochschule_koblenz_chat_app.model.UserModel;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
 /**
  * Die AndroidUtil-Klasse stellt Hilfsfunktionen für allgemeine
  * Android-Operationen bereit,
@@ -21,6 +33,10 @@ import com.example.hochschule_koblenz_chat_app.model.UserModel;
  */
 public class AndroidUtil {
 
+    // Glide-Optionen der Profilbilder pro Zielgröße in Pixeln; sie sind für alle
+    // Benutzer gleich und werden nur einmal erzeugt (nur auf dem Main-Thread)
+    private static final SparseArray<RequestOptions> PROFILE_PIC_OPTIONS = new SparseArray<>();
+
     /**
      * Zeigt eine Toast-Nachricht mit der angegebenen Nachricht an.
      *
@@ -42,6 +58,7 @@ public class AndroidUtil {
         intent.putExtra("phone", model.getPhone());
         intent.putExtra("userId", model.getUserId());
         intent.putExtra("fcmToken", model.getFcmToken());
+        intent.putExtra("profilePicVersion", model.getProfilePicVersion());
     }
 
     /**
@@ -56,6 +73,7 @@ public class AndroidUtil {
         userModel.setPhone(intent.getStringExtra("phone"));
         userModel.setUserId(intent.getStringExtra("userId"));
         userModel.setFcmToken(intent.getStringExtra("fcmToken"));
+        userModel.setProfilePicVersion(intent.getLongExtra("profilePicVersion", 0));
         return userModel;
     }
 
@@ -73,4 +91,155 @@ public class AndroidUtil {
                 .apply(RequestOptions.circleCropTransform()) // Anwenden der Kreisform auf das Bild
                 .into(imageView);
     }
+
+    /**
+     * Lädt das Profilbild eines Benutzers in ein ImageView. Es wird die kleinste
+     * hochgeladene Bildgröße gewählt, die das ImageView ausfüllt, und direkt auf
+     * dessen Größe dekodiert. Die Download-URL kommt aus dem ProfilePicUrlCache;
+     * Glide verwendet Bildversion und Größe als Cache-Signatur und speichert das
+     * bereits kreisförmig zugeschnittene Ergebnis, sodass das Bild bis zum
+     * nächsten Hochladen ohne erneutes Zuschneiden aus dem Cache kommt.
+     *
+     * @param context   Der Kontext, in dem die Operation ausgeführt wird.
+     * @param userModel Der Benutzer, dessen Profilbild angezeigt wird.
+     * @param imageView Das ImageView, in dem das Bild angezeigt wird.
+     */
+    public static void setProfilePic(Context context, UserModel userModel, ImageView imageView) {
+        setProfilePic(context, userModel, imageView, null);
+    }
+
+    /**
+     * Lädt das Profilbild eines Benutzers in das ImageView eines ViewHolders.
+     * Ist die Bindung beim Eintreffen der Download-URL nicht mehr aktuell, wird
+     * das Bild nicht mehr geladen.
+     *
+     * @param context   Der Kontext, in dem die Operation ausgeführt wird.
+     * @param userModel Der Benutzer, dessen Profilbild angezeigt wird.
+     * @param imageView Das ImageView, in dem das Bild angezeigt wird.
+     * @param bindToken Das BindToken des ViewHolders oder null.
+     */
+    public static void setProfilePic(Context context, UserModel userModel, ImageView imageView,
+            BindToken bindToken) {
+        setProfilePic(context, userModel.getUserId(), userModel.getProfilePicVersion(), imageView, bindToken);
+    }
+
+    /**
+     * Lädt das Profilbild eines Benutzers anhand von Benutzer-ID und
+     * Bildversion, z. B. aus den Teilnehmerangaben eines Chatrooms.
+     *
+     * @param context   Der Kontext, in dem die Operation ausgeführt wird.
+     * @param userId    Die Benutzer-ID.
+     * @param version   Die Version des Profilbilds.
+     * @param imageView Das ImageView, in dem das Bild angezeigt wird.
+     * @param bindToken Das BindToken des ViewHolders oder null.
+     */
+    public static void setProfilePic(Context context, String userId, long version, ImageView imageView,
+            BindToken bindToken) {
+        int targetPx = targetSize(imageView);
+        int size = ProfilePicThumbnails.pickSize(targetPx);
+        int token = bindToken == null ? 0 : bindToken.start();
+        ProfilePicUrlCache.getInstance(context).getDownloadUrl(userId, version, size)
+                .addOnSuccessListener(uri -> {
+                    if (bindToken != null && !bindToken.deliver(token)) {
+                        return; // Zeile zeigt inzwischen einen anderen Benutzer
+                    }
+                    Glide.with(context).load(uri).apply(profilePicOptions(targetPx))
+                            .signature(new ProfilePicKey(userId, version, size)).into(imageView);
+                });
+    }
+
+    /**
+     * Gibt die gemeinsamen Glide-Optionen für Profilbilder einer Zielgröße
+     * zurück: kreisförmig zugeschnitten, als Ergebnis im Cache gespeichert und
+     * direkt auf die Zielgröße dekodiert.
+     */
+    private static RequestOptions profilePicOptions(int targetPx) {
+        RequestOptions options = PROFILE_PIC_OPTIONS.get(targetPx);
+        if (options == null) {
+            options = RequestOptions.circleCropTransform().diskCacheStrategy(DiskCacheStrategy.RESOURCE);
+            if (targetPx > 0) {
+                options = options.override(targetPx);
+            }
+            // Spätere Änderungen erzeugen eine Kopie statt die geteilten Optionen
+            // zu verändern
+            options = options.autoClone();
+            PROFILE_PIC_OPTIONS.put(targetPx, options);
+        }
+        return options;
+    }
+
+    /**
+     * Setzt einen Text nur, wenn er sich vom angezeigten unterscheidet, damit
+     * ein erneutes Binden kein Neu-Layout der TextView auslöst.
+     *
+     * @param textView Die TextView.
+     * @param text     Der anzuzeigende Text.
+     */
+    public static void setTextIfChanged(TextView textView, CharSequence text) {
+        if (!TextUtils.equals(textView.getText(), text)) {
+            textView.setText(text);
+        }
+    }
+
+    /**
+     * Bricht das Laden eines Profilbilds ab und entfernt das angezeigte Bild,
+     * z. B. wenn ein ViewHolder recycelt wird.
+     *
+     * @param context   Der Kontext, in dem die Operation ausgeführt wird.
+     * @param imageView Das ImageView des Profilbilds.
+     */
+    public static void clearProfilePic(Context context, ImageView imageView) {
+        Glide.with(context).clear(imageView);
+    }
+
+    /**
+     * Ermittelt die Kantenlänge eines ImageViews in Pixeln aus den
+     * Layout-Parametern oder der gemessenen Größe.
+     *
+     * @return Die Kantenlänge oder 0, falls sie noch unbekannt ist.
+     */
+    private static int targetSize(ImageView imageView) {
+        ViewGroup.LayoutParams params = imageView.getLayoutParams();
+        if (params != null && params.width > 0 && params.height > 0) {
+            return Math.max(params.width, params.height);
+        }
+        return Math.max(imageView.getWidth(), imageView.getHeight());
+    }
+
+    /**
+     * Die Cache-Signatur eines Profilbilds aus Benutzer-ID, Bildversion und
+     * Bildgröße. Ersetzt einen zusammengesetzten String-Schlüssel; die Bytes für
+     * den Festplatten-Cache werden erst beim Laden berechnet.
+     */
+    static final class ProfilePicKey implements Key {
+        private final String userId;
+        private final long version;
+        private final int size;
+
+        ProfilePicKey(String userId, long version, int size) {
+            this.userId = userId;
+            this.version = version;
+            this.size = size;
+        }
+
+        @Override
+        public void updateDiskCacheKey(@NonNull MessageDigest messageDigest) {
+            messageDigest.update(userId.getBytes(StandardCharsets.UTF_8));
+            messageDigest.update(ByteBuffer.allocate(12).putLong(version).putInt(size).array());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ProfilePicKey)) {
+                return false;
+            }
+            ProfilePicKey other = (ProfilePicKey) o;
+            return version == other.version && size == other.size && userId.equals(other.userId);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * userId.hashCode() + Long.hashCode(version)) + size;
+        }
+    }
 }
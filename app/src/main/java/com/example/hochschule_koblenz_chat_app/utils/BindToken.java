@@ -0,0 +1,77 @@
+package com.example.hochschule_koblenz_chat_app.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Das BindToken ordnet asynchrone Anfragen (Profile, Download-URLs, Bilder)
+ * der Bindung eines ViewHolders zu, die sie gestartet hat.
+ * Wird der ViewHolder neu gebunden oder recycelt, wird das Token
+ * ungültig gemacht; Rückrufe älterer Anfragen werden dann verworfen, statt in
+ * eine inzwischen fremde Zeile zu schreiben.
+ *
+ * Über alle Tokens hinweg wird gezählt, wie viele Anfragen gestartet und wie
+ * viele davon verworfen wurden.
+ *
+ * Alle Methoden außer den Zählern müssen auf dem Main-Thread aufgerufen
+ * werden.
+ *
+ * @autor: Mohamed Bebba
+ */
+public class BindToken {
+
+    private static final AtomicLong issuedRequests = new AtomicLong();
+    private static final AtomicLong wastedRequests = new AtomicLong();
+
+    private int generation = 0;
+
+    /**
+     * Macht alle bisher gestarteten Anfragen dieses ViewHolders ungültig.
+     */
+    public void invalidate() {
+        generation++;
+    }
+
+    /**
+     * Registriert eine neue Anfrage für die aktuelle Bindung.
+     *
+     * @return Das Token, das beim Rückruf an {@link #deliver(int)} übergeben wird.
+     */
+    public int start() {
+        issuedRequests.incrementAndGet();
+        return generation;
+    }
+
+    /**
+     * Prüft beim Rückruf, ob die Anfrage noch zur aktuellen Bindung gehört.
+     * Veraltete Anfragen werden als verschwendet gezählt.
+     *
+     * @param token Das Token aus {@link #start()}.
+     * @return true, wenn das Ergebnis angezeigt werden darf.
+     */
+    public boolean deliver(int token) {
+        if (token == generation) {
+            return true;
+        }
+        wastedRequests.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Gibt die Anzahl aller gestarteten Anfragen zurück.
+     *
+     * @return Die Anzahl gestarteter Anfragen.
+     */
+    public static long getIssuedCount() {
+        return issuedRequests.get();
+    }
+
+    /**
+     * Gibt die Anzahl der Anfragen zurück, deren Ergebnis verworfen wurde, weil
+     * der ViewHolder inzwischen neu gebunden oder recycelt war.
+     *
+     * @return Die Anzahl verschwendeter Anfragen.
+     */
+    public static long getWastedCount() {
+        return wastedRequests.get();
+    }
+}
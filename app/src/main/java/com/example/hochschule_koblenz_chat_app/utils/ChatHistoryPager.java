@@ -0,0 +1,342 @@
+package com.example.hochschule_koblenz_chat_app.utils;
+
+import androidx.lifecycle.LifecycleOwner;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.MetadataChanges;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Der ChatHistoryPager lädt den Nachrichtenverlauf eines Chatrooms seitenweise.
+ * Die neuesten Nachrichten kommen aus einem begrenzten Live-Listener, ältere
+ * Seiten werden beim Scrollen über startAfter-Cursor nachgeladen und wieder
+ * verworfen, wenn sie weit außerhalb des sichtbaren Bereichs liegen. Das gilt
+ * auch für Nachrichten, die in einer langen Sitzung aus dem Live-Fenster
+ * gerutscht sind; sie werden bei Bedarf wie ältere Seiten neu geladen.
+ *
+ * Für einen Sprung zu einer älteren Nachricht (z. B. aus der Nachrichtensuche)
+ * wird nur ein Fenster um diese Nachricht geladen. Bis zum Live-Fenster bleibt
+ * dann eine Lücke, die beim Scrollen in Richtung der neueren Nachrichten
+ * seitenweise geschlossen wird.
+ *
+ * Die Nachrichten werden absteigend nach Zeitstempel geliefert (neueste zuerst).
+ *
+ * @autor: Mohamed Bebba
+ */
+public class ChatHistoryPager {
+
+    // Anzahl der Nachrichten pro Seite und im Live-Fenster
+    public static final int PAGE_SIZE = 30;
+
+    /**
+     * Wird aufgerufen, wenn sich die geladenen Nachrichten geändert haben.
+     */
+    public interface Listener {
+        /**
+         * @param messages Alle aktuell geladenen Nachrichten, neueste zuerst.
+         */
+        void onMessagesChanged(List<DocumentSnapshot> messages);
+    }
+
+    private final Query query;
+    private final Listener listener;
+    private ListenerRegistration liveRegistration;
+
+    // Nachrichten aus dem Live-Fenster (neueste PAGE_SIZE Nachrichten)
+    private List<DocumentSnapshot> liveMessages = Collections.emptyList();
+    // Nachrichten, die während der Sitzung aus dem Live-Fenster gerutscht sind;
+    // weit entfernte werden mit den älteren Seiten verworfen
+    private final List<DocumentSnapshot> spilledMessages = new ArrayList<>();
+    // Nachgeladene ältere Seiten, von neu nach alt
+    private final List<List<DocumentSnapshot>> olderPages = new ArrayList<>();
+
+    private boolean loadingOlder = false;
+    private boolean loadingNewer = false;
+    private boolean reachedEnd = false;
+    // true, wenn zwischen Live-Fenster und älteren Seiten Nachrichten fehlen
+    private boolean gapBeforeOlderPages = false;
+    // Erhöht sich bei jedem Verwerfen von Seiten, um veraltete Antworten zu
+    // ignorieren
+    private int generation = 0;
+
+    /**
+     * Konstruktor für den ChatHistoryPager.
+     *
+     * @param query    Die Nachrichtenabfrage, absteigend nach Zeitstempel
+     *                 sortiert.
+     * @param listener Der Empfänger der geladenen Nachrichten.
+     */
+    public ChatHistoryPager(Query query, Listener listener) {
+        this.query = query;
+        this.listener = listener;
+    }
+
+    /**
+     * Startet den Live-Listener für die neuesten Nachrichten. Er läuft über die
+     * ListenerRegistry und ist nur aktiv, solange der LifecycleOwner gestartet
+     * ist.
+     *
+     * @param owner Der Lebenszyklus, an den der Listener gebunden wird.
+     */
+    public void start(LifecycleOwner owner) {
+        if (liveRegistration != null) {
+            return;
+        }
+        liveRegistration = ListenerRegistry.getInstance().listen(owner, query.limit(PAGE_SIZE),
+                MetadataChanges.INCLUDE, (snapshot, e) -> {
+                    if (e != null || snapshot == null) {
+                        return;
+                    }
+                    List<DocumentSnapshot> newLive = snapshot.getDocuments();
+                    spillDroppedMessages(newLive);
+                    liveMessages = newLive;
+                    publish();
+                });
+    }
+
+    /**
+     * Beendet den Live-Listener.
+     */
+    public void stop() {
+        if (liveRegistration != null) {
+            liveRegistration.remove();
+            liveRegistration = null;
+        }
+    }
+
+    /**
+     * Lädt die nächste ältere Seite, sofern nicht bereits geladen wird oder der
+     * Anfang des Verlaufs erreicht ist.
+     */
+    public void loadOlder() {
+        DocumentSnapshot cursor = oldestLoaded();
+        if (loadingOlder || reachedEnd || cursor == null) {
+            return;
+        }
+        loadingOlder = true;
+        int requestGeneration = generation;
+        query.startAfter(cursor).limit(PAGE_SIZE).get().addOnCompleteListener(task -> {
+            if (requestGeneration != generation) {
+                return; // Seiten wurden inzwischen verworfen
+            }
+            loadingOlder = false;
+            if (!task.isSuccessful()) {
+                return;
+            }
+            List<DocumentSnapshot> page = task.getResult().getDocuments();
+            reachedEnd = page.size() < PAGE_SIZE;
+            if (!page.isEmpty()) {
+                olderPages.add(page);
+                publish();
+            }
+        });
+    }
+
+    /**
+     * Ersetzt die älteren Seiten durch ein Fenster um die angegebene Nachricht:
+     * bis zu einer halben Seite neuerer Nachrichten, die Nachricht selbst und
+     * eine Seite älterer Nachrichten.
+     *
+     * @param messageRef Die Referenz der Nachricht, zu der gesprungen wird.
+     */
+    public void jumpTo(DocumentReference messageRef) {
+        generation++;
+        // Bis das Fenster geladen ist, werden keine weiteren Seiten angefordert
+        loadingOlder = true;
+        loadingNewer = true;
+        int requestGeneration = generation;
+        messageRef.get().continueWithTask(task -> {
+            DocumentSnapshot target = task.getResult();
+            if (!target.exists()) {
+                return Tasks.forResult(Collections.<QuerySnapshot>emptyList());
+            }
+            Task<QuerySnapshot> newer = query.endBefore(target).limitToLast(PAGE_SIZE / 2).get();
+            Task<QuerySnapshot> older = query.startAt(target).limit(PAGE_SIZE).get();
+            return Tasks.<QuerySnapshot>whenAllSuccess(newer, older);
+        }).addOnCompleteListener(task -> {
+            if (requestGeneration != generation) {
+                return; // Seiten wurden inzwischen verworfen
+            }
+            loadingOlder = false;
+            loadingNewer = false;
+            if (!task.isSuccessful() || task.getResult().isEmpty()) {
+                return;
+            }
+            List<DocumentSnapshot> newer = task.getResult().get(0).getDocuments();
+            List<DocumentSnapshot> older = task.getResult().get(1).getDocuments();
+            List<DocumentSnapshot> window = new ArrayList<>(newer);
+            window.addAll(older);
+            olderPages.clear();
+            olderPages.add(window);
+            reachedEnd = older.size() < PAGE_SIZE;
+            gapBeforeOlderPages = newer.size() == PAGE_SIZE / 2 && !overlapsNewestMessages(newer);
+            publish();
+        });
+    }
+
+    /**
+     * Gibt die Position der ersten Nachricht nach einer Lücke zurück, also der
+     * neuesten Nachricht des Fensters nach einem Sprung.
+     *
+     * @return Die Position oder -1, wenn keine Lücke besteht.
+     */
+    public int gapPosition() {
+        return gapBeforeOlderPages ? liveMessages.size() + spilledMessages.size() : -1;
+    }
+
+    /**
+     * Lädt die Seite neuerer Nachrichten vor dem Fenster nach einem Sprung, bis
+     * die Lücke zum Live-Fenster geschlossen ist.
+     */
+    public void loadNewer() {
+        if (loadingNewer || !gapBeforeOlderPages || olderPages.isEmpty()) {
+            return;
+        }
+        loadingNewer = true;
+        int requestGeneration = generation;
+        DocumentSnapshot cursor = olderPages.get(0).get(0);
+        query.endBefore(cursor).limitToLast(PAGE_SIZE).get().addOnCompleteListener(task -> {
+            if (requestGeneration != generation) {
+                return; // Seiten wurden inzwischen verworfen
+            }
+            loadingNewer = false;
+            if (!task.isSuccessful()) {
+                return;
+            }
+            List<DocumentSnapshot> page = task.getResult().getDocuments();
+            gapBeforeOlderPages = page.size() == PAGE_SIZE && !overlapsNewestMessages(page);
+            if (!page.isEmpty()) {
+                olderPages.add(0, page);
+                publish();
+            }
+        });
+    }
+
+    /**
+     * Verwirft aus dem Live-Fenster gerutschte Nachrichten und ältere Seiten, die
+     * weit hinter der zuletzt sichtbaren Position liegen. Eine Seite Puffer
+     * bleibt erhalten. Die nächste ältere Seite wird danach ab der ältesten
+     * verbliebenen Nachricht geladen.
+     *
+     * @param lastVisiblePosition Die Position der ältesten sichtbaren Nachricht.
+     */
+    public void trimOlderPages(int lastVisiblePosition) {
+        int limit = lastVisiblePosition + PAGE_SIZE;
+        // Gerutschte Nachrichten liegen direkt hinter dem Live-Fenster
+        int keepSpilled = Math.max(0, Math.min(spilledMessages.size(), limit - liveMessages.size() + 1));
+        boolean trimmed = keepSpilled < spilledMessages.size();
+        if (trimmed) {
+            spilledMessages.subList(keepSpilled, spilledMessages.size()).clear();
+        }
+        int position = liveMessages.size() + spilledMessages.size();
+        int keep = 0;
+        while (keep < olderPages.size() && position <= limit) {
+            position += olderPages.get(keep).size();
+            keep++;
+        }
+        if (keep < olderPages.size()) {
+            olderPages.subList(keep, olderPages.size()).clear();
+            trimmed = true;
+        }
+        if (trimmed) {
+            reachedEnd = false;
+            loadingOlder = false;
+            loadingNewer = false;
+            gapBeforeOlderPages = gapBeforeOlderPages && !olderPages.isEmpty();
+            generation++;
+            publish();
+        }
+    }
+
+    /**
+     * Übernimmt Nachrichten, die durch neue Nachrichten aus dem Live-Fenster
+     * gefallen sind, damit zwischen Live-Fenster und älteren Seiten keine Lücke
+     * entsteht.
+     */
+    private void spillDroppedMessages(List<DocumentSnapshot> newLive) {
+        if (liveMessages.isEmpty() || newLive.isEmpty()) {
+            return;
+        }
+        Set<String> newIds = new HashSet<>();
+        for (DocumentSnapshot document : newLive) {
+            newIds.add(document.getId());
+        }
+        List<DocumentSnapshot> dropped = new ArrayList<>();
+        for (DocumentSnapshot document : liveMessages) {
+            if (!newIds.contains(document.getId())) {
+                dropped.add(document);
+            }
+        }
+        spilledMessages.addAll(0, dropped);
+    }
+
+    /**
+     * Prüft, ob eine Seite Nachrichten aus dem Live-Fenster oder den daraus
+     * gerutschten Nachrichten enthält, die Lücke also geschlossen ist.
+     */
+    private boolean overlapsNewestMessages(List<DocumentSnapshot> page) {
+        Set<String> ids = new HashSet<>();
+        for (DocumentSnapshot document : page) {
+            ids.add(document.getId());
+        }
+        for (DocumentSnapshot document : liveMessages) {
+            if (ids.contains(document.getId())) {
+                return true;
+            }
+        }
+        for (DocumentSnapshot document : spilledMessages) {
+            if (ids.contains(document.getId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gibt die älteste geladene Nachricht zurück, die als Cursor für die nächste
+     * Seite dient.
+     */
+    private DocumentSnapshot oldestLoaded() {
+        if (!olderPages.isEmpty()) {
+            List<DocumentSnapshot> lastPage = olderPages.get(olderPages.size() - 1);
+            return lastPage.get(lastPage.size() - 1);
+        }
+        if (!spilledMessages.isEmpty()) {
+            return spilledMessages.get(spilledMessages.size() - 1);
+        }
+        return liveMessages.isEmpty() ? null : liveMessages.get(liveMessages.size() - 1);
+    }
+
+    /**
+     * Fügt Live-Fenster und ältere Seiten zusammen und benachrichtigt den
+     * Listener. Nachrichten, die nach einem Sprung sowohl im Fenster als auch im
+     * Live-Fenster liegen, werden nur einmal geliefert.
+     */
+    private void publish() {
+        List<DocumentSnapshot> messages = new ArrayList<>(liveMessages);
+        messages.addAll(spilledMessages);
+        Set<String> ids = new HashSet<>();
+        for (DocumentSnapshot document : messages) {
+            ids.add(document.getId());
+        }
+        for (List<DocumentSnapshot> page : olderPages) {
+            for (DocumentSnapshot document : page) {
+                if (ids.add(document.getId())) {
+                    messages.add(document);
+                }
+            }
+        }
+        listener.onMessagesChanged(messages);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.hochschule_koblenz_chat_app.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ChatroomSummary bildet die Felder der Chatroom-Zusammenfassung, die beim
+ * Senden per Merge in denselben WriteBatch wie die Nachrichten geschrieben
+ * werden: die lastMessage-Felder, der serverseitig erhöhte Ungelesen-Zähler
+ * des Empfängers und die per arrayUnion ergänzten userIds.
+ * Die Klasse hängt nicht von Android ab; die Sonderwerte (Increment,
+ * arrayUnion, Server-Zeitstempel) liefert das jeweilige Firestore-SDK über
+ * {@link FieldValues}. So schreibt der Lastgenerator in tools dieselben Felder
+ * wie der MessageSender der App.
+ *
+ * @autor: Mohamed Bebba
+ */
+public class ChatroomSummary {
+
+    /**
+     * Liefert die Sonderwerte des verwendeten Firestore-SDKs.
+     */
+    public interface FieldValues {
+        /**
+         * @param n Der Betrag, um den erhöht wird.
+         * @return Der Wert für ein serverseitiges Erhöhen.
+         */
+        Object increment(long n);
+
+        /**
+         * @param elements Die Elemente, die ergänzt werden.
+         * @return Der Wert für ein arrayUnion.
+         */
+        Object arrayUnion(Object... elements);
+
+        /**
+         * @return Der Wert für den Server-Zeitstempel.
+         */
+        Object serverTimestamp();
+    }
+
+    private ChatroomSummary() {
+    }
+
+    /**
+     * Erstellt die Felder der Zusammenfassung für einen Merge-Schreibvorgang.
+     * Andere Felder des Chatrooms bleiben unverändert.
+     *
+     * @param values       Die Sonderwerte des Firestore-SDKs.
+     * @param chatroomId   Die ID des Chatrooms.
+     * @param senderId     Die Benutzer-ID des Absenders.
+     * @param recipientId  Die Benutzer-ID des Empfängers.
+     * @param lastMessage  Der Text der letzten gesendeten Nachricht.
+     * @param messageCount Die Anzahl der Nachrichten, um die der Zähler des
+     *                     Empfängers erhöht wird.
+     * @return Die Felder der Zusammenfassung.
+     */
+    public static Map<String, Object> build(FieldValues values, String chatroomId, String senderId,
+            String recipientId, String lastMessage, long messageCount) {
+        Map<String, Object> unreadCounts = new HashMap<>();
+        unreadCounts.put(recipientId, values.increment(messageCount));
+
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("chatroomId", chatroomId);
+        summary.put("userIds", values.arrayUnion(senderId, recipientId));
+        summary.put("lastMessage", lastMessage);
+        summary.put("lastMessageSenderId", senderId);
+        summary.put("lastMessageTimestamp", values.serverTimestamp());
+        summary.put("unreadCounts", unreadCounts);
+        return summary;
+    }
+}
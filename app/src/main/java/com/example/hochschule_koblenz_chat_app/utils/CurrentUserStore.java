@@ -0,0 +1,164 @@
+package com.example.hochschule_koblenz_chat_app.utils;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import com.example.hochschule_koblenz_chat_app.model.UserModel;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+
+/**
+ * Der CurrentUserStore hält das UserModel des angemeldeten Benutzers im
+ * Speicher und als Kopie in den SharedPreferences vor.
+ * Das Profil wird pro Sitzung nur einmal aus Firestore geladen und bei
+ * Änderungen über {@link #update(UserModel)} direkt aktualisiert, sodass z. B.
+ * beim Senden von Benachrichtigungen kein zusätzlicher Lesezugriff nötig ist.
+ *
+ * @autor: Mohamed Bebba
+ */
+public class CurrentUserStore {
+
+    private static final String PREFS_NAME = "current_user";
+
+    private static CurrentUserStore instance;
+
+    private final SharedPreferences preferences;
+    // Im Speicher gehaltenes UserModel des angemeldeten Benutzers
+    private UserModel currentUser;
+    // Laufender oder abgeschlossener Ladevorgang dieser Sitzung
+    private Task<UserModel> sessionLoad;
+
+    /**
+     * Gibt die anwendungsweite Instanz des CurrentUserStores zurück.
+     *
+     * @param context Ein beliebiger Kontext der Anwendung.
+     * @return Die gemeinsame CurrentUserStore-Instanz.
+     */
+    public static synchronized CurrentUserStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new CurrentUserStore(
+                    context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE));
+        }
+        return instance;
+    }
+
+    /**
+     * Konstruktor für den CurrentUserStore.
+     *
+     * @param preferences Die SharedPreferences für die Kopie auf dem Gerät.
+     */
+    CurrentUserStore(SharedPreferences preferences) {
+        this.preferences = preferences;
+    }
+
+    /**
+     * Gibt das UserModel des angemeldeten Benutzers zurück. Liegt es weder im
+     * Speicher noch auf dem Gerät vor, wird es einmalig aus Firestore geladen.
+     * Eine Kopie vom Gerät wird sofort verwendet und einmal pro Sitzung im
+     * Hintergrund aufgefrischt.
+     *
+     * @return Ein Task mit dem UserModel des angemeldeten Benutzers.
+     */
+    public synchronized Task<UserModel> get() {
+        String userId = FirebaseUtil.currentUserId();
+        if (currentUser == null || !currentUser.getUserId().equals(userId)) {
+            currentUser = readFromDisk(userId);
+        }
+        if (sessionLoad == null) {
+            sessionLoad = FirebaseUtil.currentUserDetails().get().continueWith(task -> {
+                UserModel loaded = task.getResult().toObject(UserModel.class);
+                if (loaded != null) {
+                    update(loaded);
+                }
+                return loaded;
+            });
+            sessionLoad.addOnFailureListener(e -> {
+                synchronized (this) {
+                    sessionLoad = null; // Beim nächsten Aufruf erneut versuchen
+                }
+            });
+        }
+        if (currentUser != null) {
+            return Tasks.forResult(currentUser);
+        }
+        return sessionLoad;
+    }
+
+    /**
+     * Gibt das zwischengespeicherte UserModel ohne Netzwerkzugriff zurück.
+     *
+     * @return Das UserModel des angemeldeten Benutzers oder null, falls noch keins
+     *         vorliegt.
+     */
+    public synchronized UserModel getCached() {
+        if (currentUser == null) {
+            currentUser = readFromDisk(FirebaseUtil.currentUserId());
+        }
+        return currentUser;
+    }
+
+    /**
+     * Ersetzt das gespeicherte UserModel, nachdem es in Firestore geschrieben
+     * wurde.
+     *
+     * @param userModel Das aktuelle UserModel des angemeldeten Benutzers.
+     */
+    public synchronized void update(UserModel userModel) {
+        currentUser = userModel;
+        SharedPreferences.Editor editor = preferences.edit()
+                .putString("userId", userModel.getUserId())
+                .putString("username", userModel.getUsername())
+                .putString("phone", userModel.getPhone())
+                .putString("fcmToken", userModel.getFcmToken())
+                .putLong("profilePicVersion", userModel.getProfilePicVersion());
+        if (userModel.getCreatedTimestamp() != null) {
+            editor.putLong("createdSeconds", userModel.getCreatedTimestamp().getSeconds())
+                    .putInt("createdNanos", userModel.getCreatedTimestamp().getNanoseconds());
+        }
+        editor.apply();
+    }
+
+    /**
+     * Aktualisiert den FCM-Token im gespeicherten UserModel, falls vorhanden.
+     *
+     * @param fcmToken Der neue FCM-Token.
+     */
+    public synchronized void updateFcmToken(String fcmToken) {
+        UserModel cached = getCached();
+        if (cached != null) {
+            cached.setFcmToken(fcmToken);
+            update(cached);
+        }
+    }
+
+    /**
+     * Löscht das gespeicherte UserModel, z. B. beim Abmelden.
+     */
+    public synchronized void clear() {
+        currentUser = null;
+        sessionLoad = null;
+        preferences.edit().clear().apply();
+    }
+
+    /**
+     * Liest die Kopie des UserModels vom Gerät, sofern sie zum angegebenen
+     * Benutzer gehört.
+     */
+    private UserModel readFromDisk(String userId) {
+        if (userId == null || !userId.equals(preferences.getString("userId", null))) {
+            return null;
+        }
+        UserModel userModel = new UserModel();
+        userModel.setUserId(userId);
+        userModel.setUsername(preferences.getString("username", null));
+        userModel.setPhone(preferences.getString("phone", null));
+        userModel.setFcmToken(preferences.getString("fcmToken", null));
+        userModel.setProfilePicVersion(preferences.getLong("profilePicVersion", 0));
+        if (preferences.contains("createdSeconds")) {
+            userModel.setCreatedTimestamp(new Timestamp(preferences.getLong("createdSeconds", 0),
+                    preferences.getInt("createdNanos", 0)));
+        }
+        return userModel;
+    }
+}
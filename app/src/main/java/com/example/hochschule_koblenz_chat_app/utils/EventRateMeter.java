@@ -0,0 +1,75 @@
+package com.example.hochschule_koblenz_chat_app.utils;
+
+import java.time.Clock;
+
+/**
+ * Der EventRateMeter zählt Ereignisse (z. B. Snapshots) und liefert ihre Rate
+ * pro Sekunde über die letzten Sekunden. Die Zählung erfolgt in
+ * Sekundenfächern, sodass der Speicherbedarf unabhängig von der Anzahl der
+ * Ereignisse ist.
+ *
+ * Die Klasse ist nicht threadsicher.
+ *
+ * @autor: Mohamed Bebba
+ */
+public class EventRateMeter {
+
+    private static final long MILLIS_PER_SECOND = 1000;
+
+    private final Clock clock;
+    // Ereignisse je Sekunde und die Sekunde, zu der das Fach gehört
+    private final int[] counts;
+    private final long[] seconds;
+    private long total = 0;
+
+    /**
+     * Konstruktor für den EventRateMeter.
+     *
+     * @param clock         Die Uhr für die Zeitpunkte der Ereignisse.
+     * @param windowSeconds Die Anzahl der Sekunden, über die gemittelt wird.
+     */
+    public EventRateMeter(Clock clock, int windowSeconds) {
+        this.clock = clock;
+        this.counts = new int[windowSeconds];
+        this.seconds = new long[windowSeconds];
+    }
+
+    /**
+     * Zählt ein Ereignis zum aktuellen Zeitpunkt.
+     */
+    public void record() {
+        long second = clock.millis() / MILLIS_PER_SECOND;
+        int slot = (int) (second % counts.length);
+        if (seconds[slot] != second) {
+            seconds[slot] = second;
+            counts[slot] = 0;
+        }
+        counts[slot]++;
+        total++;
+    }
+
+    /**
+     * Gibt die Rate über das Zeitfenster zurück.
+     *
+     * @return Die Ereignisse pro Sekunde.
+     */
+    public double perSecond() {
+        long now = clock.millis() / MILLIS_PER_SECOND;
+        int sum = 0;
+        for (int slot = 0; slot < counts.length; slot++) {
+            if (now - seconds[slot] < counts.length) {
+                sum += counts[slot];
+            }
+        }
+        return (double) sum / counts.length;
+    }
+
+    /**
+     * Gibt die Anzahl aller gezählten Ereignisse zurück.
+     *
+     * @return Die Gesamtzahl.
+     */
+    public long total() {
+        return total;
+    }
+}
@@ -1,7 +1,5 @@
 package com.example.hochschule_koblenz_chat_app.utils;
 
-import android.annotation.SuppressLint;
-
 import com.google.firebase.Timestamp;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.CollectionReference;
@@ -10,7 +8,6 @@ import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.storage.FirebaseStorage;
 import com.google.firebase.storage.StorageReference;
 
-import java.text.SimpleDateFormat;
 import java.util.List;
 
 /**
@@ -116,22 +113,45 @@ public class FirebaseUtil {
      * @return Die DocumentReference des anderen Benutzers im Chatroom.
      */
     public static DocumentReference getOtherUserFromChatroom(List<String> userIds) {
-        if (userIds.get(0).equals(FirebaseUtil.currentUserId())) {
-            return allUserCollectionReference().document(userIds.get(1));
+        return allUserCollectionReference().document(getOtherUserId(userIds));
+    }
+
+    /**
+     * Gibt die Benutzer-ID des anderen Benutzers im Chatroom zurück.
+     *
+     * @param userIds Die Liste der Benutzer-IDs im Chatroom.
+     * @return Die Benutzer-ID des anderen Teilnehmers.
+     */
+    public static String getOtherUserId(List<String> userIds) {
+        return getOtherUserId(userIds, currentUserId());
+    }
+
+    /**
+     * Gibt die Benutzer-ID des anderen Benutzers im Chatroom zurück, ohne die
+     * aktuelle Benutzer-ID erneut über FirebaseAuth abzufragen.
+     *
+     * @param userIds       Die Liste der Benutzer-IDs im Chatroom.
+     * @param currentUserId Die Benutzer-ID des angemeldeten Benutzers.
+     * @return Die Benutzer-ID des anderen Teilnehmers.
+     */
+    public static String getOtherUserId(List<String> userIds, String currentUserId) {
+        if (userIds.get(0).equals(currentUserId)) {
+            return userIds.get(1);
         } else {
-            return allUserCollectionReference().document(userIds.get(0));
+            return userIds.get(0);
         }
     }
 
     /**
-     * Konvertiert einen Firestore-Timestamp in eine Zeit-String im Format "HH:mm".
+     * Konvertiert einen Firestore-Timestamp in einen Text relativ zum aktuellen
+     * Tag: Uhrzeit für heute, "Gestern", Wochentag oder Datum.
      *
      * @param timestamp Der Timestamp, der konvertiert werden soll.
-     * @return Der Zeit-String im Format "HH:mm".
+     * @return Der formatierte Zeit-String.
      */
-    @SuppressLint("SimpleDateFormat")
     public static String timestampToString(Timestamp timestamp) {
-        return new SimpleDateFormat("HH:mm").format(timestamp.toDate());
+        long epochMillis = timestamp.getSeconds() * 1000 + timestamp.getNanoseconds() / 1_000_000;
+        return TimestampFormatter.getInstance().format(epochMillis);
     }
 
     /**
@@ -161,4 +181,20 @@ public class FirebaseUtil {
         return FirebaseStorage.getInstance().getReference().child("profile_pic")
                 .child(otherUserId);
     }
+
+    /**
+     * Gibt die StorageReference für das Profilbild eines Benutzers in der
+     * angegebenen Größe zurück. Für die volle Größe ist das das Originalbild.
+     *
+     * @param userId Die Benutzer-ID.
+     * @param size   Die Kantenlänge des Bildes in Pixeln.
+     * @return Die StorageReference des Profilbilds in dieser Größe.
+     */
+    public static StorageReference getProfilePicStorageRef(String userId, int size) {
+        if (size >= ProfilePicThumbnails.FULL_SIZE) {
+            return getOtherProfilePicStorageRef(userId);
+        }
+        return FirebaseStorage.getInstance().getReference().child("profile_pic")
+                .child(userId + "_" + size);
+    }
 }
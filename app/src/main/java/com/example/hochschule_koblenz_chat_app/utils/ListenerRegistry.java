@@ -0,0 +1,301 @@
+package com.example.hochschule_koblenz_chat_app.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import com.google.firebase.firestore.EventListener;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.MetadataChanges;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Die ListenerRegistry ist die zentrale Stelle für alle Firestore
+ * Snapshot-Listener der Anwendung:
+ * <ul>
+ * <li>Gleiche Abfragen (Query.equals und gleiche MetadataChanges) teilen sich
+ * einen Firestore-Listener. Er wird mit dem ersten Abonnenten registriert und
+ * mit dem letzten entfernt; spätere Abonnenten erhalten sofort den letzten
+ * Snapshot.</li>
+ * <li>Abonnements können an einen {@link LifecycleOwner} gebunden werden. Sie
+ * sind dann nur zwischen ON_START und ON_STOP aktiv und enden mit
+ * ON_DESTROY, sodass kein Bildschirm einen Listener vergessen kann.</li>
+ * <li>Die Anzahl aktiver Listener und die Snapshots pro Sekunde werden
+ * gezählt und in Debug-Builds in der MainActivity angezeigt.</li>
+ * </ul>
+ * Alle Methoden müssen auf dem Main-Thread aufgerufen werden.
+ *
+ * @autor: Mohamed Bebba
+ */
+public class ListenerRegistry {
+
+    // Zeitfenster für die Snapshot-Rate
+    private static final int RATE_WINDOW_SECONDS = 10;
+
+    private static ListenerRegistry instance;
+
+    private final Map<Key, SharedListener> listeners = new HashMap<>();
+    private final EventRateMeter snapshotRate = new EventRateMeter(Clock.systemUTC(), RATE_WINDOW_SECONDS);
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    /**
+     * Gibt die gemeinsame Instanz zurück.
+     *
+     * @return Die ListenerRegistry-Instanz.
+     */
+    public static synchronized ListenerRegistry getInstance() {
+        if (instance == null) {
+            instance = new ListenerRegistry();
+        }
+        return instance;
+    }
+
+    /**
+     * Abonniert eine Abfrage ohne Metadatenänderungen.
+     *
+     * @param query    Die Abfrage.
+     * @param listener Der Empfänger der Snapshots.
+     * @return Die Registrierung, mit der das Abonnement beendet wird.
+     */
+    public ListenerRegistration listen(Query query, EventListener<QuerySnapshot> listener) {
+        return listen(query, MetadataChanges.EXCLUDE, listener);
+    }
+
+    /**
+     * Abonniert eine Abfrage. Besteht für dieselbe Abfrage bereits ein
+     * Firestore-Listener, wird er mitbenutzt.
+     *
+     * @param query           Die Abfrage.
+     * @param metadataChanges Ob auch reine Metadatenänderungen geliefert werden.
+     * @param listener        Der Empfänger der Snapshots.
+     * @return Die Registrierung, mit der das Abonnement beendet wird.
+     */
+    public ListenerRegistration listen(Query query, MetadataChanges metadataChanges,
+            EventListener<QuerySnapshot> listener) {
+        Key key = new Key(query, metadataChanges);
+        SharedListener shared = listeners.get(key);
+        if (shared == null) {
+            shared = new SharedListener(key);
+            listeners.put(key, shared);
+            shared.start();
+        }
+        Subscription subscription = new Subscription(shared, listener);
+        shared.subscriptions.add(subscription);
+        if (shared.lastSnapshot != null) {
+            // Wie bei Firestore kommt auch der erste Snapshot asynchron
+            SharedListener source = shared;
+            handler.post(() -> {
+                if (source.subscriptions.contains(subscription) && source.lastSnapshot != null) {
+                    listener.onEvent(source.lastSnapshot, null);
+                }
+            });
+        }
+        return subscription;
+    }
+
+    /**
+     * Abonniert eine Abfrage, solange der LifecycleOwner mindestens gestartet
+     * ist. Das Abonnement endet spätestens mit ON_DESTROY.
+     *
+     * @param owner           Der LifecycleOwner, z. B. eine Aktivität oder der
+     *                        View-Lebenszyklus eines Fragments.
+     * @param query           Die Abfrage.
+     * @param metadataChanges Ob auch reine Metadatenänderungen geliefert werden.
+     * @param listener        Der Empfänger der Snapshots.
+     * @return Die Registrierung, mit der das Abonnement vorzeitig beendet wird.
+     */
+    public ListenerRegistration listen(LifecycleOwner owner, Query query, MetadataChanges metadataChanges,
+            EventListener<QuerySnapshot> listener) {
+        LifecycleBinding binding = new LifecycleBinding(owner.getLifecycle(), query, metadataChanges, listener);
+        owner.getLifecycle().addObserver(binding);
+        return binding;
+    }
+
+    /**
+     * Gibt die Anzahl der registrierten Firestore-Listener zurück.
+     *
+     * @return Die Anzahl der Listener.
+     */
+    public int getActiveListenerCount() {
+        return listeners.size();
+    }
+
+    /**
+     * Gibt die Anzahl der Abonnements über alle Listener zurück.
+     *
+     * @return Die Anzahl der Abonnements.
+     */
+    public int getSubscriptionCount() {
+        int count = 0;
+        for (SharedListener shared : listeners.values()) {
+            count += shared.subscriptions.size();
+        }
+        return count;
+    }
+
+    /**
+     * Gibt die Snapshots pro Sekunde über alle Listener zurück, gemittelt über
+     * die letzten Sekunden.
+     *
+     * @return Die Snapshots pro Sekunde.
+     */
+    public double getSnapshotsPerSecond() {
+        return snapshotRate.perSecond();
+    }
+
+    /**
+     * Fasst die Zähler für die Debug-Anzeige zusammen.
+     *
+     * @return Der Text der Debug-Anzeige.
+     */
+    public String describe() {
+        return String.format(Locale.ROOT, "Listener: %d (%d Abos) · %.1f Snapshots/s · %d gesamt",
+                getActiveListenerCount(), getSubscriptionCount(), getSnapshotsPerSecond(), snapshotRate.total());
+    }
+
+    /**
+     * Ein Firestore-Listener, den sich alle Abonnenten derselben Abfrage teilen.
+     */
+    private class SharedListener {
+        final Key key;
+        final List<Subscription> subscriptions = new ArrayList<>();
+        ListenerRegistration registration;
+        QuerySnapshot lastSnapshot;
+
+        SharedListener(Key key) {
+            this.key = key;
+        }
+
+        void start() {
+            registration = key.query.addSnapshotListener(key.metadataChanges, (snapshot, e) -> {
+                if (e != null) {
+                    // Firestore beendet den Listener nach einem Fehler; neue Abonnenten
+                    // erhalten einen neuen Listener
+                    listeners.remove(key);
+                } else {
+                    snapshotRate.record();
+                    lastSnapshot = snapshot;
+                }
+                for (Subscription subscription : new ArrayList<>(subscriptions)) {
+                    if (subscriptions.contains(subscription)) {
+                        subscription.listener.onEvent(snapshot, e);
+                    }
+                }
+            });
+        }
+
+        void unsubscribe(Subscription subscription) {
+            if (!subscriptions.remove(subscription) || !subscriptions.isEmpty()) {
+                return;
+            }
+            registration.remove();
+            // Nur entfernen, wenn der Eintrag nicht schon nach einem Fehler ersetzt
+            // wurde
+            if (listeners.get(key) == this) {
+                listeners.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Ein einzelnes Abonnement eines geteilten Listeners.
+     */
+    private static class Subscription implements ListenerRegistration {
+        final SharedListener shared;
+        final EventListener<QuerySnapshot> listener;
+
+        Subscription(SharedListener shared, EventListener<QuerySnapshot> listener) {
+            this.shared = shared;
+            this.listener = listener;
+        }
+
+        @Override
+        public void remove() {
+            shared.unsubscribe(this);
+        }
+    }
+
+    /**
+     * Bindet ein Abonnement an einen Lebenszyklus: ON_START abonniert, ON_STOP
+     * beendet das Abonnement und ON_DESTROY löst die Bindung.
+     */
+    private class LifecycleBinding implements LifecycleEventObserver, ListenerRegistration {
+        final Lifecycle lifecycle;
+        final Query query;
+        final MetadataChanges metadataChanges;
+        final EventListener<QuerySnapshot> listener;
+        ListenerRegistration subscription;
+
+        LifecycleBinding(Lifecycle lifecycle, Query query, MetadataChanges metadataChanges,
+                EventListener<QuerySnapshot> listener) {
+            this.lifecycle = lifecycle;
+            this.query = query;
+            this.metadataChanges = metadataChanges;
+            this.listener = listener;
+        }
+
+        @Override
+        public void onStateChanged(@NonNull LifecycleOwner source, @NonNull Lifecycle.Event event) {
+            if (event == Lifecycle.Event.ON_START && subscription == null) {
+                subscription = listen(query, metadataChanges, listener);
+            } else if (event == Lifecycle.Event.ON_STOP) {
+                unsubscribe();
+            } else if (event == Lifecycle.Event.ON_DESTROY) {
+                remove();
+            }
+        }
+
+        @Override
+        public void remove() {
+            unsubscribe();
+            lifecycle.removeObserver(this);
+        }
+
+        private void unsubscribe() {
+            if (subscription != null) {
+                subscription.remove();
+                subscription = null;
+            }
+        }
+    }
+
+    /**
+     * Schlüssel eines geteilten Listeners.
+     */
+    private static class Key {
+        final Query query;
+        final MetadataChanges metadataChanges;
+
+        Key(Query query, MetadataChanges metadataChanges) {
+            this.query = query;
+            this.metadataChanges = metadataChanges;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return query.equals(other.query) && metadataChanges == other.metadataChanges;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(query, metadataChanges);
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.example.hochschule_koblenz_chat_app.utils;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import com.example.hochschule_koblenz_chat_app.model.ChatMessageModel;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Die MessageOutbox speichert ausgehende Nachrichten in einer lokalen
+ * SQLite-Datenbank, bis Firestore sie bestätigt hat.
+ * Dadurch gehen Nachrichten bei schlechter Verbindung oder beim Beenden des
+ * Prozesses nicht verloren. Jede Nachricht erhält beim Einreihen eine
+ * clientseitige Dokument-ID, sodass erneutes Senden idempotent ist.
+ *
+ * Sobald der Batch einer Nachricht an Firestore übergeben wurde, wird sie als
+ * übergeben markiert. Firestore hält den Batch dann als ausstehenden
+ * Schreibvorgang und sendet ihn nach einem Neustart selbst; solche Nachrichten
+ * werden nicht erneut gesendet, da sonst der Ungelesen-Zähler der
+ * Zusammenfassung doppelt erhöht würde. Sie werden entfernt, sobald Firestore
+ * alle ausstehenden Schreibvorgänge bestätigt hat.
+ *
+ * Lehnt der Server eine Nachricht endgültig ab (z. B. fehlende Berechtigung),
+ * wird sie verworfen; bei vorübergehenden Fehlern wird sie höchstens
+ * {@link #MAX_SEND_ATTEMPTS}-mal gesendet. Beim Abmelden wird die Outbox mit
+ * {@link #clear()} geleert, damit Nachrichten nicht im Namen des vorherigen
+ * Benutzers gesendet werden.
+ *
+ * @autor: Mohamed Bebba
+ */
+public class MessageOutbox extends SQLiteOpenHelper {
+
+    private static final String DATABASE_NAME = "outbox.db";
+    private static final int DATABASE_VERSION = 3;
+    private static final String TABLE = "outbox";
+    // Maximale Anzahl an Sendeversuchen, bevor eine Nachricht verworfen wird
+    static final int MAX_SEND_ATTEMPTS = 10;
+
+    private static MessageOutbox instance;
+
+    // Datenbankzugriffe laufen nacheinander auf einem Hintergrund-Thread
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    // IDs der Nachrichten, die gerade an den MessageSender übergeben wurden
+    private final Set<String> inFlight = new HashSet<>();
+    private final MessageSender messageSender;
+
+    /**
+     * Gibt die anwendungsweite Instanz der MessageOutbox zurück.
+     *
+     * @param context Ein beliebiger Kontext der Anwendung.
+     * @return Die gemeinsame MessageOutbox-Instanz.
+     */
+    public static synchronized MessageOutbox getInstance(Context context) {
+        if (instance == null) {
+            instance = new MessageOutbox(context.getApplicationContext(), MessageSender.getInstance());
+        }
+        return instance;
+    }
+
+    /**
+     * Konstruktor für die MessageOutbox.
+     *
+     * @param context       Der Anwendungskontext.
+     * @param messageSender Der MessageSender, über den die Nachrichten geschrieben
+     *                      werden.
+     */
+    MessageOutbox(Context context, MessageSender messageSender) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        this.messageSender = messageSender;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE + " ("
+                + "message_id TEXT PRIMARY KEY, "
+                + "chatroom_id TEXT NOT NULL, "
+                + "sender_id TEXT NOT NULL, "
+                + "recipient_id TEXT NOT NULL, "
+                + "message TEXT NOT NULL, "
+                + "timestamp_seconds INTEGER NOT NULL, "
+                + "timestamp_nanos INTEGER NOT NULL, "
+                + "attempts INTEGER NOT NULL DEFAULT 0, "
+                + "queued INTEGER NOT NULL DEFAULT 0)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        if (oldVersion < 2) {
+            // Noch nicht gesendete Nachrichten behalten
+            db.execSQL("ALTER TABLE " + TABLE + " ADD COLUMN attempts INTEGER NOT NULL DEFAULT 0");
+        }
+        if (oldVersion < 3) {
+            db.execSQL("ALTER TABLE " + TABLE + " ADD COLUMN queued INTEGER NOT NULL DEFAULT 0");
+        }
+    }
+
+    /**
+     * Reiht eine Nachricht in die Outbox ein und sendet sie sofort.
+     * Die Nachricht erscheint über den lokalen Firestore-Cache unmittelbar in
+     * der Chat-Ansicht und bleibt in der Outbox, bis der Server sie bestätigt.
+     *
+     * @param chatroomId       Die ID des Ziel-Chatrooms.
+     * @param recipientId      Die Benutzer-ID des Empfängers.
+     * @param chatMessageModel Die zu sendende Nachricht.
+     * @return Ein Task, der nach der Bestätigung durch Firestore abgeschlossen
+     *         wird.
+     */
+    public Task<Void> enqueue(String chatroomId, String recipientId, ChatMessageModel chatMessageModel) {
+        String messageId = FirebaseUtil.getChatroomMessageReference(chatroomId).document().getId();
+        return enqueue(chatroomId, recipientId, messageId, chatMessageModel);
+    }
+
+    /**
+     * Reiht eine Nachricht mit vorgegebener Dokument-ID ein und sendet sie sofort.
+     */
+    Task<Void> enqueue(String chatroomId, String recipientId, String messageId,
+            ChatMessageModel chatMessageModel) {
+        ContentValues values = new ContentValues();
+        values.put("message_id", messageId);
+        values.put("chatroom_id", chatroomId);
+        values.put("sender_id", chatMessageModel.getSenderId());
+        values.put("recipient_id", recipientId);
+        values.put("message", chatMessageModel.getMessage());
+        values.put("timestamp_seconds", chatMessageModel.getTimestamp().getSeconds());
+        values.put("timestamp_nanos", chatMessageModel.getTimestamp().getNanoseconds());
+        executor.execute(() -> getWritableDatabase().insertWithOnConflict(TABLE, null, values,
+                SQLiteDatabase.CONFLICT_IGNORE));
+
+        return sendTracked(chatroomId, recipientId, messageId, chatMessageModel);
+    }
+
+    /**
+     * Sendet alle Nachrichten erneut, die noch nicht an Firestore übergeben
+     * wurden, z. B. nach einem Neustart der Anwendung. Da die Dokument-IDs
+     * feststehen, entstehen dabei keine Duplikate. Bereits übergebene
+     * Nachrichten sendet Firestore selbst; sie werden nach dessen Bestätigung
+     * entfernt.
+     *
+     * @return Ein Task, der abgeschlossen wird, sobald alle Nachrichten an den
+     *         MessageSender übergeben wurden.
+     */
+    public Task<Void> drain() {
+        return Tasks.call(executor, () -> {
+            List<String> queued = new ArrayList<>();
+            try (Cursor cursor = getReadableDatabase().query(TABLE, null, null, null, null, null,
+                    "timestamp_seconds, timestamp_nanos")) {
+                while (cursor.moveToNext()) {
+                    String messageId = cursor.getString(cursor.getColumnIndexOrThrow("message_id"));
+                    synchronized (inFlight) {
+                        if (inFlight.contains(messageId)) {
+                            continue; // Nachricht ist bereits unterwegs
+                        }
+                    }
+                    if (cursor.getInt(cursor.getColumnIndexOrThrow("queued")) != 0) {
+                        // Liegt als ausstehender Schreibvorgang bei Firestore
+                        queued.add(messageId);
+                        continue;
+                    }
+                    String chatroomId = cursor.getString(cursor.getColumnIndexOrThrow("chatroom_id"));
+                    String senderId = cursor.getString(cursor.getColumnIndexOrThrow("sender_id"));
+                    String recipientId = cursor.getString(cursor.getColumnIndexOrThrow("recipient_id"));
+                    Timestamp timestamp = new Timestamp(
+                            cursor.getLong(cursor.getColumnIndexOrThrow("timestamp_seconds")),
+                            cursor.getInt(cursor.getColumnIndexOrThrow("timestamp_nanos")));
+                    ChatMessageModel chatMessageModel = new ChatMessageModel(
+                            cursor.getString(cursor.getColumnIndexOrThrow("message")), senderId, timestamp);
+                    sendTracked(chatroomId, recipientId, messageId, chatMessageModel);
+                }
+            }
+            if (!queued.isEmpty()) {
+                messageSender.waitForPendingWrites().addOnSuccessListener(executor, unused -> {
+                    SQLiteDatabase db = getWritableDatabase();
+                    for (String messageId : queued) {
+                        db.delete(TABLE, "message_id = ?", new String[] { messageId });
+                    }
+                });
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Entfernt alle ausstehenden Nachrichten, z. B. beim Abmelden.
+     *
+     * @return Ein Task, der abgeschlossen wird, sobald die Outbox geleert ist.
+     */
+    public Task<Void> clear() {
+        // Auf dem Executor, damit zuvor eingereihte Nachrichten mit entfernt werden
+        return Tasks.call(executor, () -> {
+            getWritableDatabase().delete(TABLE, null, null);
+            return null;
+        });
+    }
+
+    /**
+     * Übergibt eine Nachricht an den MessageSender und markiert sie, sobald ihr
+     * Batch an Firestore übergeben wurde. Nach erfolgreichem Schreiben oder einem
+     * endgültigen Fehler wird sie aus der Outbox entfernt, nach einem
+     * vorübergehenden Fehler wird der Versuch gezählt; Firestore hat den Batch
+     * dann verworfen, sodass sie erneut gesendet werden darf.
+     */
+    private Task<Void> sendTracked(String chatroomId, String recipientId, String messageId,
+            ChatMessageModel chatMessageModel) {
+        synchronized (inFlight) {
+            inFlight.add(messageId);
+        }
+        String[] args = { messageId };
+        Task<Void> task = messageSender.send(chatroomId, recipientId, messageId, chatMessageModel,
+                () -> executor.execute(() -> getWritableDatabase().execSQL(
+                        "UPDATE " + TABLE + " SET queued = 1 WHERE message_id = ?", args)));
+        task.addOnCompleteListener(executor, t -> {
+            synchronized (inFlight) {
+                inFlight.remove(messageId);
+            }
+            if (t.isSuccessful() || isPermanent(t.getException())) {
+                getWritableDatabase().delete(TABLE, "message_id = ?", args);
+                return;
+            }
+            SQLiteDatabase db = getWritableDatabase();
+            db.execSQL("UPDATE " + TABLE + " SET attempts = attempts + 1, queued = 0 WHERE message_id = ?", args);
+            db.delete(TABLE, "message_id = ? AND attempts >= " + MAX_SEND_ATTEMPTS, args);
+        });
+        return task;
+    }
+
+    /**
+     * Prüft, ob ein Fehler auch bei einem erneuten Senden auftreten würde.
+     *
+     * @param e Der Fehler des Sendeversuchs.
+     * @return true, wenn der Server die Nachricht endgültig abgelehnt hat.
+     */
+    static boolean isPermanent(Exception e) {
+        if (!(e instanceof FirebaseFirestoreException)) {
+            return false;
+        }
+        switch (((FirebaseFirestoreException) e).getCode()) {
+            case PERMISSION_DENIED:
+            case INVALID_ARGUMENT:
+            case NOT_FOUND:
+            case OUT_OF_RANGE:
+            case UNIMPLEMENTED:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
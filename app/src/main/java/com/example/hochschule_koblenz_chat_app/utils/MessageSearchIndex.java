@@ -0,0 +1,363 @@
+package com.example.hochschule_koblenz_chat_app.utils;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Der MessageSearchIndex ist ein lokaler Volltextindex (SQLite FTS4) über die
+ * Nachrichten aller Chats, die auf diesem Gerät angezeigt wurden.
+ * Die ChatActivity trägt jede Nachricht ein, sobald sie mit einem Snapshot
+ * ankommt; die Suche über alle Chats beantwortet danach eine einzige
+ * Indexabfrage, ohne den Verlauf aus Firestore zu laden.
+ *
+ * Die Nachrichten liegen in der Tabelle messages (Schlüssel: Chatroom und
+ * Zeitstempel), der FTS-Index verweist über deren id auf sie. Treffer werden
+ * nach BM25 über matchinfo() gewichtet, bei gleichem Gewicht gewinnt die
+ * neuere Nachricht.
+ *
+ * Der Index gehört zum angemeldeten Benutzer und wird beim Abmelden mit
+ * {@link #clear()} geleert.
+ *
+ * @autor: Mohamed Bebba
+ */
+public class MessageSearchIndex extends SQLiteOpenHelper {
+
+    private static final String DATABASE_NAME = "message_search.db";
+    private static final int DATABASE_VERSION = 1;
+    private static final String TABLE = "messages";
+    private static final String FTS_TABLE = "messages_fts";
+    // Markierungen der Suchbegriffe im Textausschnitt eines Treffers
+    public static final char MATCH_START = '\u0001';
+    public static final char MATCH_END = '\u0002';
+    // Anzahl der neuesten Treffer, unter denen gewichtet wird
+    private static final int MAX_CANDIDATES = 200;
+    // Parameter der BM25-Gewichtung
+    private static final double BM25_K1 = 1.2;
+    private static final double BM25_B = 0.75;
+    // Maximale Anzahl gemerkter IDs bereits eingetragener Nachrichten
+    static final int MAX_REMEMBERED_IDS = 2000;
+
+    private static MessageSearchIndex instance;
+
+    // Datenbankzugriffe laufen nacheinander auf einem Hintergrund-Thread
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    // IDs der zuletzt eingetragenen Nachrichten; ältere IDs werden vergessen und
+    // beim nächsten Snapshot über INSERT OR IGNORE erkannt
+    private final Set<String> indexedIds = Collections.newSetFromMap(
+            new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > MAX_REMEMBERED_IDS;
+                }
+            });
+
+    /**
+     * Ein Suchtreffer.
+     */
+    public static class Hit {
+        public final String messageId;
+        public final String chatroomId;
+        public final String otherUserId;
+        public final String senderId;
+        public final Timestamp timestamp;
+        // Textausschnitt mit MATCH_START/MATCH_END um die Suchbegriffe
+        public final String snippet;
+        public final double score;
+
+        Hit(String messageId, String chatroomId, String otherUserId, String senderId, Timestamp timestamp,
+                String snippet, double score) {
+            this.messageId = messageId;
+            this.chatroomId = chatroomId;
+            this.otherUserId = otherUserId;
+            this.senderId = senderId;
+            this.timestamp = timestamp;
+            this.snippet = snippet;
+            this.score = score;
+        }
+    }
+
+    /**
+     * Gibt die anwendungsweite Instanz des MessageSearchIndex zurück.
+     *
+     * @param context Ein beliebiger Kontext der Anwendung.
+     * @return Die gemeinsame MessageSearchIndex-Instanz.
+     */
+    public static synchronized MessageSearchIndex getInstance(Context context) {
+        if (instance == null) {
+            instance = new MessageSearchIndex(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Konstruktor für den MessageSearchIndex.
+     *
+     * @param context Der Anwendungskontext.
+     */
+    MessageSearchIndex(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE + " ("
+                + "id INTEGER PRIMARY KEY, "
+                + "message_id TEXT NOT NULL UNIQUE, "
+                + "chatroom_id TEXT NOT NULL, "
+                + "other_user_id TEXT NOT NULL, "
+                + "sender_id TEXT, "
+                + "message TEXT NOT NULL, "
+                + "timestamp_seconds INTEGER NOT NULL, "
+                + "timestamp_nanos INTEGER NOT NULL)");
+        db.execSQL("CREATE INDEX messages_chatroom_time ON " + TABLE
+                + " (chatroom_id, timestamp_seconds, timestamp_nanos)");
+        // Der FTS-Index speichert nur die Wortlisten, der Text liegt in messages
+        db.execSQL("CREATE VIRTUAL TABLE " + FTS_TABLE + " USING fts4(content=\"" + TABLE + "\", message, "
+                + "tokenize=unicode61 \"remove_diacritics=1\")");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        db.execSQL("DROP TABLE IF EXISTS " + FTS_TABLE);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE);
+        onCreate(db);
+    }
+
+    /**
+     * Trägt die Nachrichten eines Snapshots ein. Bereits eingetragene
+     * Nachrichten werden übersprungen, sodass jeder Snapshot nur die neu
+     * hinzugekommenen Nachrichten schreibt.
+     *
+     * @param chatroomId  Die ID des Chatrooms.
+     * @param otherUserId Die Benutzer-ID des anderen Teilnehmers, um den Chat
+     *                    aus einem Treffer heraus zu öffnen.
+     * @param messages    Die Nachrichtendokumente des Snapshots.
+     */
+    public void index(String chatroomId, String otherUserId, List<DocumentSnapshot> messages) {
+        List<Row> rows = new ArrayList<>();
+        synchronized (indexedIds) {
+            for (DocumentSnapshot document : messages) {
+                String text = document.getString("message");
+                Timestamp timestamp = document.getTimestamp("timestamp");
+                if (text == null || timestamp == null || !indexedIds.add(document.getId())) {
+                    continue;
+                }
+                rows.add(new Row(document.getId(), document.getString("senderId"), text, timestamp));
+            }
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+        executor.execute(() -> insert(chatroomId, otherUserId, rows));
+    }
+
+    /**
+     * Durchsucht die Nachrichten aller Chats. Jedes Wort des Suchbegriffs muss
+     * als Wort oder Wortanfang in der Nachricht vorkommen.
+     *
+     * @param term  Der eingegebene Suchbegriff.
+     * @param limit Die maximale Anzahl an Treffern.
+     * @return Ein Task mit den Treffern, bestes Gewicht zuerst.
+     */
+    public Task<List<Hit>> search(String term, int limit) {
+        String matchQuery = toMatchQuery(term);
+        if (matchQuery.isEmpty()) {
+            return Tasks.forResult(Collections.emptyList());
+        }
+        return Tasks.call(executor, () -> query(matchQuery, limit));
+    }
+
+    /**
+     * Entfernt alle eingetragenen Nachrichten, z. B. beim Abmelden, damit der
+     * nächste Benutzer die Nachrichten des vorherigen nicht finden kann.
+     *
+     * @return Ein Task, der abgeschlossen wird, sobald der Index geleert ist.
+     */
+    public Task<Void> clear() {
+        synchronized (indexedIds) {
+            indexedIds.clear();
+        }
+        // Auf dem Executor, damit zuvor eingereihte Einträge mit entfernt werden
+        return Tasks.call(executor, () -> {
+            SQLiteDatabase db = getWritableDatabase();
+            db.beginTransaction();
+            try {
+                db.execSQL("INSERT INTO " + FTS_TABLE + " (" + FTS_TABLE + ") VALUES ('delete-all')");
+                db.delete(TABLE, null, null);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            return null;
+        });
+    }
+
+    private void insert(String chatroomId, String otherUserId, List<Row> rows) {
+        SQLiteDatabase db = getWritableDatabase();
+        SQLiteStatement insertMessage = db.compileStatement("INSERT OR IGNORE INTO " + TABLE
+                + " (message_id, chatroom_id, other_user_id, sender_id, message, timestamp_seconds, timestamp_nanos)"
+                + " VALUES (?, ?, ?, ?, ?, ?, ?)");
+        SQLiteStatement insertFts = db.compileStatement("INSERT INTO " + FTS_TABLE
+                + " (docid, message) VALUES (?, ?)");
+        db.beginTransaction();
+        try {
+            for (Row row : rows) {
+                insertMessage.clearBindings();
+                insertMessage.bindString(1, row.messageId);
+                insertMessage.bindString(2, chatroomId);
+                insertMessage.bindString(3, otherUserId);
+                if (row.senderId != null) {
+                    insertMessage.bindString(4, row.senderId);
+                }
+                insertMessage.bindString(5, row.message);
+                insertMessage.bindLong(6, row.timestamp.getSeconds());
+                insertMessage.bindLong(7, row.timestamp.getNanoseconds());
+                long rowId = insertMessage.executeInsert();
+                if (rowId == -1) {
+                    continue; // Bereits aus einer früheren Sitzung vorhanden
+                }
+                insertFts.bindLong(1, rowId);
+                insertFts.bindString(2, row.message);
+                insertFts.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private List<Hit> query(String matchQuery, int limit) {
+        List<Hit> hits = new ArrayList<>();
+        String sql = "SELECT m.message_id, m.chatroom_id, m.other_user_id, m.sender_id, "
+                + "m.timestamp_seconds, m.timestamp_nanos, "
+                + "snippet(" + FTS_TABLE + ", '" + MATCH_START + "', '" + MATCH_END + "', '…', -1, 12), "
+                + "matchinfo(" + FTS_TABLE + ", 'pcnalx') "
+                + "FROM " + FTS_TABLE + " JOIN " + TABLE + " m ON m.id = " + FTS_TABLE + ".docid "
+                + "WHERE " + FTS_TABLE + " MATCH ? "
+                + "ORDER BY m.timestamp_seconds DESC, m.timestamp_nanos DESC LIMIT " + MAX_CANDIDATES;
+        try (Cursor cursor = getReadableDatabase().rawQuery(sql, new String[] { matchQuery })) {
+            while (cursor.moveToNext()) {
+                hits.add(new Hit(
+                        cursor.getString(0),
+                        cursor.getString(1),
+                        cursor.getString(2),
+                        cursor.getString(3),
+                        new Timestamp(cursor.getLong(4), cursor.getInt(5)),
+                        cursor.getString(6),
+                        bm25(toInts(cursor.getBlob(7)))));
+            }
+        }
+        // Stabile Sortierung: bei gleichem Gewicht bleibt die neuere Nachricht vorn
+        Collections.sort(hits, (a, b) -> Double.compare(b.score, a.score));
+        return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+    }
+
+    /**
+     * Wandelt einen eingegebenen Suchbegriff in eine FTS-Abfrage um: Jedes Wort
+     * wird klein geschrieben als Präfix gesucht, damit es nicht als Operator
+     * (OR, NOT, ...) gilt; Sonderzeichen der FTS-Syntax entfallen.
+     *
+     * @param term Der eingegebene Suchbegriff.
+     * @return Die MATCH-Abfrage; leer, wenn der Begriff kein Wort enthält.
+     */
+    static String toMatchQuery(String term) {
+        if (term == null) {
+            return "";
+        }
+        StringBuilder query = new StringBuilder();
+        for (String word : term.split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (query.length() > 0) {
+                query.append(' ');
+            }
+            query.append(word.toLowerCase(Locale.ROOT)).append('*');
+        }
+        return query.toString();
+    }
+
+    /**
+     * Berechnet das BM25-Gewicht eines Treffers aus dem Ergebnis von
+     * matchinfo(..., 'pcnalx').
+     *
+     * @param matchinfo Die Werte von matchinfo in der Reihenfolge p, c, n,
+     *                  a[c], l[c], x[3 * p * c].
+     * @return Das Gewicht; höher ist besser.
+     */
+    static double bm25(int[] matchinfo) {
+        int phrases = matchinfo[0];
+        int columns = matchinfo[1];
+        long rows = matchinfo[2] & 0xFFFFFFFFL;
+        int averageOffset = 3;
+        int lengthOffset = averageOffset + columns;
+        int hitsOffset = lengthOffset + columns;
+        double score = 0;
+        for (int phrase = 0; phrase < phrases; phrase++) {
+            for (int column = 0; column < columns; column++) {
+                int base = hitsOffset + 3 * (phrase * columns + column);
+                double hitsInRow = matchinfo[base];
+                double rowsWithHit = matchinfo[base + 2];
+                if (hitsInRow == 0) {
+                    continue;
+                }
+                double idf = Math.log((rows - rowsWithHit + 0.5) / (rowsWithHit + 0.5) + 1);
+                double length = matchinfo[lengthOffset + column];
+                double averageLength = Math.max(1, matchinfo[averageOffset + column]);
+                score += idf * hitsInRow * (BM25_K1 + 1)
+                        / (hitsInRow + BM25_K1 * (1 - BM25_B + BM25_B * length / averageLength));
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Liest das Ergebnis von matchinfo(), ein Feld vorzeichenloser 32-Bit-Werte
+     * in der Bytereihenfolge des Geräts.
+     */
+    private static int[] toInts(byte[] blob) {
+        ByteBuffer buffer = ByteBuffer.wrap(blob).order(ByteOrder.nativeOrder());
+        int[] values = new int[blob.length / 4];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = buffer.getInt();
+        }
+        return values;
+    }
+
+    /**
+     * Eine einzutragende Nachricht, auf dem Main-Thread aus dem Snapshot gelesen.
+     */
+    private static class Row {
+        final String messageId;
+        final String senderId;
+        final String message;
+        final Timestamp timestamp;
+
+        Row(String messageId, String senderId, String message, Timestamp timestamp) {
+            this.messageId = messageId;
+            this.senderId = senderId;
+            this.message = message;
+            this.timestamp = timestamp;
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.example.hochschule_koblenz_chat_app.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.example.hochschule_koblenz_chat_app.model.ChatMessageModel;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Der MessageSender schreibt Chat-Nachrichten zusammen mit der
+ * Chatroom-Zusammenfassung (letzte Nachricht, Absender, Zeitstempel) atomar in
+ * einem einzigen WriteBatch.
+ * Die Zusammenfassung wird feldweise zusammengeführt statt das ganze
+ * ChatroomModel zu überschreiben; der Zeitstempel kommt vom Server und der
+ * Ungelesen-Zähler des Empfängers wird serverseitig erhöht. Der Batch
+ * funktioniert offline, Nachricht und Chatliste erscheinen sofort über den
+ * lokalen Cache.
+ * Nachrichten, die innerhalb eines kurzen Zeitfensters gesendet werden, werden
+ * zu einem gemeinsamen Commit zusammengefasst.
+ *
+ * Das Erhöhen des Zählers ist nicht idempotent: Ein Batch darf nur einmal an
+ * Firestore übergeben werden. Firestore hält übergebene Batches als
+ * ausstehende Schreibvorgänge und sendet sie auch nach einem Neustart selbst;
+ * die {@link MessageOutbox} erfährt über den Rückruf beim Senden, ab wann das
+ * der Fall ist, und sendet solche Nachrichten nicht erneut.
+ *
+ * Für Tests kann eine eigene FirebaseFirestore-Instanz (z. B. mit
+ * {@code useEmulator}) und ein eigener Handler übergeben werden.
+ *
+ * @autor: Mohamed Bebba
+ */
+public class MessageSender {
+
+    // Zeitfenster, in dem aufeinanderfolgende Nachrichten gesammelt werden
+    static final long BATCH_WINDOW_MS = 50;
+    // Maximale Anzahl an Schreibvorgängen pro Commit (Firestore-Limit); jede
+    // Nachricht und jede Chatroom-Zusammenfassung zählt als ein Schreibvorgang
+    static final int MAX_WRITES_PER_BATCH = 500;
+
+    // Sonderwerte des Android-SDKs für die Chatroom-Zusammenfassung
+    private static final ChatroomSummary.FieldValues FIELD_VALUES = new ChatroomSummary.FieldValues() {
+        @Override
+        public Object increment(long n) {
+            return FieldValue.increment(n);
+        }
+
+        @Override
+        public Object arrayUnion(Object... elements) {
+            return FieldValue.arrayUnion(elements);
+        }
+
+        @Override
+        public Object serverTimestamp() {
+            return FieldValue.serverTimestamp();
+        }
+    };
+
+    private static MessageSender instance;
+
+    private final FirebaseFirestore firestore;
+    private final Handler handler;
+    // Ausstehende Nachrichten, gruppiert nach Chatroom-ID und Absender
+    private final Map<String, PendingRoom> pendingRooms = new LinkedHashMap<>();
+    // Schreibvorgänge der ausstehenden Nachrichten samt Zusammenfassungen
+    private int pendingWrites = 0;
+    private boolean flushScheduled = false;
+
+    private final Runnable flushRunnable = this::flush;
+
+    /**
+     * Gibt die anwendungsweite Instanz des MessageSenders zurück.
+     *
+     * @return Die gemeinsame MessageSender-Instanz.
+     */
+    public static synchronized MessageSender getInstance() {
+        if (instance == null) {
+            instance = new MessageSender(FirebaseFirestore.getInstance(), new Handler(Looper.getMainLooper()));
+        }
+        return instance;
+    }
+
+    /**
+     * Konstruktor für den MessageSender.
+     *
+     * @param firestore Die Firestore-Instanz, gegen die geschrieben wird.
+     * @param handler   Der Handler, auf dem das Sammeln und Abschicken der
+     *                  Batches geplant wird.
+     */
+    public MessageSender(FirebaseFirestore firestore, Handler handler) {
+        this.firestore = firestore;
+        this.handler = handler;
+    }
+
+    /**
+     * Reiht eine Nachricht zum Senden ein. Die Nachricht wird zusammen mit der
+     * Chatroom-Zusammenfassung im nächsten Batch geschrieben.
+     *
+     * @param chatroomId       Die ID des Chatrooms, in den gesendet wird.
+     * @param recipientId      Die Benutzer-ID des Empfängers.
+     * @param messageId        Die clientseitig erzeugte Dokument-ID der
+     *                         Nachricht.
+     * @param chatMessageModel Die zu sendende Nachricht.
+     * @return Ein Task, der abgeschlossen wird, sobald der Batch mit dieser
+     *         Nachricht bestätigt wurde.
+     */
+    public Task<Void> send(String chatroomId, String recipientId, String messageId,
+            ChatMessageModel chatMessageModel) {
+        return send(chatroomId, recipientId, messageId, chatMessageModel, null);
+    }
+
+    /**
+     * Reiht eine Nachricht zum Senden ein und meldet, sobald ihr Batch an
+     * Firestore übergeben wurde. Ab dann sendet Firestore den Batch selbst, auch
+     * nach einem Neustart der Anwendung.
+     *
+     * @param chatroomId       Die ID des Chatrooms, in den gesendet wird.
+     * @param recipientId      Die Benutzer-ID des Empfängers.
+     * @param messageId        Die clientseitig erzeugte Dokument-ID der
+     *                         Nachricht.
+     * @param chatMessageModel Die zu sendende Nachricht.
+     * @param onQueued         Wird auf dem Thread des Commits aufgerufen, sobald
+     *                         der Batch übergeben wurde; darf null sein.
+     * @return Ein Task, der abgeschlossen wird, sobald der Batch mit dieser
+     *         Nachricht bestätigt wurde.
+     */
+    public Task<Void> send(String chatroomId, String recipientId, String messageId,
+            ChatMessageModel chatMessageModel, Runnable onQueued) {
+        TaskCompletionSource<Void> source = new TaskCompletionSource<>();
+        // Jeder Absender erhält eine eigene Zusammenfassung für seinen Empfänger
+        String roomKey = chatroomId + "|" + chatMessageModel.getSenderId();
+        List<PendingRoom> full = null;
+        List<PendingRoom> ready = null;
+        synchronized (this) {
+            // Ein neuer Chatroom benötigt zusätzlich eine Zusammenfassung
+            int writes = pendingRooms.containsKey(roomKey) ? 1 : 2;
+            if (pendingWrites + writes > MAX_WRITES_PER_BATCH) {
+                // Passt nicht mehr in den laufenden Batch; im neuen Batch braucht der
+                // Chatroom wieder eine eigene Zusammenfassung
+                full = takePending();
+                writes = 2;
+            }
+            PendingRoom room = pendingRooms.get(roomKey);
+            if (room == null) {
+                room = new PendingRoom(chatroomId, recipientId);
+                pendingRooms.put(roomKey, room);
+            }
+            room.messageIds.add(messageId);
+            room.messages.add(chatMessageModel);
+            room.sources.add(source);
+            if (onQueued != null) {
+                room.onQueued.add(onQueued);
+            }
+            pendingWrites += writes;
+
+            if (pendingWrites >= MAX_WRITES_PER_BATCH) {
+                ready = takePending();
+            } else if (!flushScheduled) {
+                flushScheduled = true;
+                handler.postDelayed(flushRunnable, BATCH_WINDOW_MS);
+            }
+        }
+        if (full != null) {
+            commit(full);
+        }
+        if (ready != null) {
+            commit(ready);
+        }
+        return source.getTask();
+    }
+
+    /**
+     * Schreibt alle ausstehenden Nachrichten und die zugehörigen
+     * Chatroom-Zusammenfassungen in einem WriteBatch.
+     */
+    public void flush() {
+        List<PendingRoom> rooms;
+        synchronized (this) {
+            rooms = takePending();
+        }
+        if (!rooms.isEmpty()) {
+            commit(rooms);
+        }
+    }
+
+    /**
+     * Gibt einen Task zurück, der abgeschlossen wird, sobald alle bisher an
+     * Firestore übergebenen Batches vom Server bestätigt oder abgelehnt wurden,
+     * auch solche aus einem früheren Prozess.
+     *
+     * @return Der Task von {@link FirebaseFirestore#waitForPendingWrites()}.
+     */
+    public Task<Void> waitForPendingWrites() {
+        return firestore.waitForPendingWrites();
+    }
+
+    /**
+     * Entnimmt alle ausstehenden Chatrooms und bricht ein geplantes Abschicken
+     * ab. Muss mit dem Lock dieser Instanz aufgerufen werden.
+     */
+    private List<PendingRoom> takePending() {
+        handler.removeCallbacks(flushRunnable);
+        flushScheduled = false;
+        List<PendingRoom> rooms = new ArrayList<>(pendingRooms.values());
+        pendingRooms.clear();
+        pendingWrites = 0;
+        return rooms;
+    }
+
+    /**
+     * Schreibt die Nachrichten der angegebenen Chatrooms und ihre
+     * Zusammenfassungen in einem WriteBatch.
+     */
+    private void commit(List<PendingRoom> rooms) {
+        WriteBatch batch = firestore.batch();
+        List<TaskCompletionSource<Void>> sources = new ArrayList<>();
+        List<Runnable> onQueued = new ArrayList<>();
+        for (PendingRoom room : rooms) {
+            String chatroomId = room.chatroomId;
+            for (int i = 0; i < room.messages.size(); i++) {
+                batch.set(firestore.collection("chatrooms").document(chatroomId).collection("chats")
+                        .document(room.messageIds.get(i)), room.messages.get(i));
+            }
+
+            // Die Zusammenfassung spiegelt die letzte Nachricht des Batches wider
+            ChatMessageModel last = room.messages.get(room.messages.size() - 1);
+            batch.set(firestore.collection("chatrooms").document(chatroomId),
+                    ChatroomSummary.build(FIELD_VALUES, chatroomId, last.getSenderId(), room.recipientId,
+                            last.getMessage(), room.messages.size()),
+                    SetOptions.merge());
+
+            sources.addAll(room.sources);
+            onQueued.addAll(room.onQueued);
+        }
+
+        batch.commit().addOnCompleteListener(task -> {
+            for (TaskCompletionSource<Void> source : sources) {
+                if (task.isSuccessful()) {
+                    source.trySetResult(null);
+                } else {
+                    source.trySetException(task.getException());
+                }
+            }
+        });
+        for (Runnable runnable : onQueued) {
+            runnable.run();
+        }
+    }
+
+    /**
+     * Sammelt die ausstehenden Nachrichten eines Absenders in einem Chatroom.
+     */
+    private static class PendingRoom {
+        final String chatroomId;
+        final String recipientId;
+        final List<String> messageIds = new ArrayList<>();
+        final List<ChatMessageModel> messages = new ArrayList<>();
+        final List<TaskCompletionSource<Void>> sources = new ArrayList<>();
+        final List<Runnable> onQueued = new ArrayList<>();
+
+        PendingRoom(String chatroomId, String recipientId) {
+            this.chatroomId = chatroomId;
+            this.recipientId = recipientId;
+        }
+    }
+}
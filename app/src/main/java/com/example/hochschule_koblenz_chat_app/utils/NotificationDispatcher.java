@@ -0,0 +1,271 @@
+package com.example.hochschule_koblenz_chat_app.utils;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+/**
+ * Der NotificationDispatcher verschickt Push-Benachrichtigungen über die
+ * Firebase Cloud Messaging API mit einem einzigen, anwendungsweit geteilten
+ * OkHttpClient.
+ * Benachrichtigungen an denselben Empfänger, die innerhalb eines kurzen
+ * Zeitfensters eintreffen, werden zusammengefasst. Die Warteschlange ist
+ * begrenzt; fehlgeschlagene Aufrufe werden mit exponentiellem Backoff und
+ * Jitter wiederholt.
+ *
+ * @autor: Mohamed Bebba
+ */
+public class NotificationDispatcher {
+
+    static final String FCM_URL = "https://fcm.googleapis.com/fcm/send";
+    static final String AUTHORIZATION = "Bearer YOUR_API_KEY";
+    static final int MAX_QUEUE_SIZE = 64;
+    static final int MAX_ATTEMPTS = 4;
+    static final long COALESCE_WINDOW_MS = 250;
+    static final long BASE_BACKOFF_MS = 500;
+    static final long MAX_BACKOFF_MS = 30_000;
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    private static NotificationDispatcher instance;
+
+    private final OkHttpClient client;
+    private final HttpUrl endpoint;
+    private final String authorization;
+    private final ScheduledExecutorService scheduler;
+    private final Random random;
+    private final long coalesceWindowMs;
+    private final long baseBackoffMs;
+
+    // Wartende Benachrichtigungen, nach Empfänger-Token zusammengefasst
+    private final Map<String, PendingNotification> queue = new LinkedHashMap<>();
+
+    // Zähler für erfolgreiche, fehlgeschlagene, verworfene und zusammengefasste
+    // Benachrichtigungen sowie die aufsummierte Latenz
+    private final AtomicLong successCount = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong coalescedCount = new AtomicLong();
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong totalLatencyMs = new AtomicLong();
+
+    /**
+     * Gibt die anwendungsweite Instanz des NotificationDispatchers zurück.
+     *
+     * @return Die gemeinsame NotificationDispatcher-Instanz.
+     */
+    public static synchronized NotificationDispatcher getInstance() {
+        if (instance == null) {
+            instance = new NotificationDispatcher(new OkHttpClient(), HttpUrl.get(FCM_URL), AUTHORIZATION,
+                    Executors.newSingleThreadScheduledExecutor(), new Random(), COALESCE_WINDOW_MS,
+                    BASE_BACKOFF_MS);
+        }
+        return instance;
+    }
+
+    /**
+     * Konstruktor für den NotificationDispatcher.
+     *
+     * @param client           Der geteilte OkHttpClient.
+     * @param endpoint         Die URL der Messaging-API.
+     * @param authorization    Der Wert des Authorization-Headers.
+     * @param scheduler        Der Scheduler für Zusammenfassung und
+     *                         Wiederholungen.
+     * @param random           Die Zufallsquelle für den Jitter.
+     * @param coalesceWindowMs Das Zeitfenster für das Zusammenfassen pro
+     *                         Empfänger.
+     * @param baseBackoffMs    Die Basis-Wartezeit vor der ersten Wiederholung.
+     */
+    NotificationDispatcher(OkHttpClient client, HttpUrl endpoint, String authorization,
+            ScheduledExecutorService scheduler, Random random, long coalesceWindowMs, long baseBackoffMs) {
+        this.client = client;
+        this.endpoint = endpoint;
+        this.authorization = authorization;
+        this.scheduler = scheduler;
+        this.random = random;
+        this.coalesceWindowMs = coalesceWindowMs;
+        this.baseBackoffMs = baseBackoffMs;
+    }
+
+    /**
+     * Reiht eine Benachrichtigung ein. Wartet für denselben Empfänger bereits eine
+     * Benachrichtigung, wird diese durch die neue ersetzt.
+     *
+     * @param recipientToken Der FCM-Token des Empfängers.
+     * @param payload        Der JSON-Inhalt der Anfrage.
+     */
+    public void dispatch(String recipientToken, String payload) {
+        synchronized (queue) {
+            PendingNotification pending = queue.get(recipientToken);
+            if (pending != null) {
+                // Neuere Nachricht ersetzt die noch nicht gesendete
+                pending.payload = payload;
+                coalescedCount.incrementAndGet();
+                return;
+            }
+            if (queue.size() >= MAX_QUEUE_SIZE) {
+                // Älteste Benachrichtigung verwerfen, um die Warteschlange zu begrenzen
+                Iterator<String> oldest = queue.keySet().iterator();
+                oldest.next();
+                oldest.remove();
+                droppedCount.incrementAndGet();
+            }
+            queue.put(recipientToken, new PendingNotification(payload, System.currentTimeMillis()));
+        }
+        scheduler.schedule(() -> flush(recipientToken), coalesceWindowMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Entnimmt die Benachrichtigung eines Empfängers aus der Warteschlange und
+     * sendet sie.
+     */
+    private void flush(String recipientToken) {
+        PendingNotification pending;
+        synchronized (queue) {
+            pending = queue.remove(recipientToken);
+        }
+        if (pending != null) {
+            send(pending);
+        }
+    }
+
+    /**
+     * Führt den eigentlichen API-Aufruf aus und plant bei Bedarf eine
+     * Wiederholung.
+     */
+    private void send(PendingNotification pending) {
+        pending.attempts++;
+        Request request = new Request.Builder()
+                .url(endpoint)
+                .post(RequestBody.create(pending.payload, JSON))
+                .header("Authorization", authorization)
+                .build();
+        client.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                retryOrFail(pending);
+            }
+
+            @Override
+            public void onResponse(@NonNull Call call, @NonNull Response response) {
+                response.close();
+                if (response.isSuccessful()) {
+                    successCount.incrementAndGet();
+                    totalLatencyMs.addAndGet(System.currentTimeMillis() - pending.enqueuedAt);
+                } else if (response.code() == 429 || response.code() >= 500) {
+                    // Überlastung oder Serverfehler: erneut versuchen
+                    retryOrFail(pending);
+                } else {
+                    // Clientfehler werden nicht wiederholt
+                    failureCount.incrementAndGet();
+                }
+            }
+        });
+    }
+
+    /**
+     * Plant eine Wiederholung mit exponentiellem Backoff und vollem Jitter oder
+     * zählt die Benachrichtigung als fehlgeschlagen.
+     */
+    private void retryOrFail(PendingNotification pending) {
+        if (pending.attempts >= MAX_ATTEMPTS) {
+            failureCount.incrementAndGet();
+            return;
+        }
+        retryCount.incrementAndGet();
+        long ceiling = Math.min(MAX_BACKOFF_MS, baseBackoffMs << (pending.attempts - 1));
+        long delay = (long) (random.nextDouble() * ceiling);
+        scheduler.schedule(() -> send(pending), delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Gibt die Anzahl der erfolgreich zugestellten Benachrichtigungen zurück.
+     *
+     * @return Die Anzahl erfolgreicher Benachrichtigungen.
+     */
+    public long getSuccessCount() {
+        return successCount.get();
+    }
+
+    /**
+     * Gibt die Anzahl der endgültig fehlgeschlagenen Benachrichtigungen zurück.
+     *
+     * @return Die Anzahl fehlgeschlagener Benachrichtigungen.
+     */
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    /**
+     * Gibt die Anzahl der wegen voller Warteschlange verworfenen
+     * Benachrichtigungen zurück.
+     *
+     * @return Die Anzahl verworfener Benachrichtigungen.
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Gibt die Anzahl der durch neuere Nachrichten ersetzten Benachrichtigungen
+     * zurück.
+     *
+     * @return Die Anzahl zusammengefasster Benachrichtigungen.
+     */
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    /**
+     * Gibt die Anzahl der geplanten Wiederholungen zurück.
+     *
+     * @return Die Anzahl der Wiederholungen.
+     */
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    /**
+     * Gibt die durchschnittliche Latenz vom Einreihen bis zur erfolgreichen
+     * Zustellung zurück.
+     *
+     * @return Die durchschnittliche Latenz in Millisekunden oder 0, wenn noch
+     *         keine Benachrichtigung zugestellt wurde.
+     */
+    public long getAverageLatencyMs() {
+        long successes = successCount.get();
+        return successes == 0 ? 0 : totalLatencyMs.get() / successes;
+    }
+
+    /**
+     * Eine wartende Benachrichtigung mit ihrem Inhalt und der Anzahl bisheriger
+     * Versuche.
+     */
+    private static class PendingNotification {
+        volatile String payload;
+        final long enqueuedAt;
+        int attempts = 0;
+
+        PendingNotification(String payload, long enqueuedAt) {
+            this.payload = payload;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
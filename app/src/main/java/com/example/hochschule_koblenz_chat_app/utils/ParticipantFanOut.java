@@ -0,0 +1,148 @@
+package com.example.hochschule_koblenz_chat_app.utils;
+
+import com.example.hochschule_koblenz_chat_app.model.ChatroomModel;
+import com.example.hochschule_koblenz_chat_app.model.UserModel;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Der ParticipantFanOut hält Anzeigename und Profilbildversion eines Benutzers
+ * in den Chatrooms aktuell, in denen er Teilnehmer ist (Felder
+ * participantNames und participantPicVersions des ChatroomModels).
+ *
+ * Nach einer Profiländerung werden alle Chatrooms des Benutzers seitenweise
+ * gelesen und je Seite mit einem WriteBatch aktualisiert; eine Seite umfasst
+ * höchstens {@link #BATCH_SIZE} Chatrooms, das Limit eines Firestore-Batches.
+ * Es werden nur die Felder des angemeldeten Benutzers selbst geschrieben; die
+ * Angaben anderer Teilnehmer pflegt ausschließlich deren eigene App, da ein
+ * zwischengespeichertes fremdes Profil veraltet sein kann.
+ *
+ * @autor: Mohamed Bebba
+ */
+public class ParticipantFanOut {
+
+    // Felder des Chatroom-Dokuments
+    static final String NAMES_FIELD = "participantNames";
+    static final String PIC_VERSIONS_FIELD = "participantPicVersions";
+    // Maximale Anzahl an Schreibvorgängen pro WriteBatch
+    static final int BATCH_SIZE = 500;
+
+    private static ParticipantFanOut instance;
+
+    private final FirebaseFirestore firestore;
+    private final Supplier<String> currentUserId;
+
+    /**
+     * Gibt die anwendungsweite Instanz zurück.
+     *
+     * @return Die gemeinsame ParticipantFanOut-Instanz.
+     */
+    public static synchronized ParticipantFanOut getInstance() {
+        if (instance == null) {
+            instance = new ParticipantFanOut(FirebaseFirestore.getInstance(), FirebaseUtil::currentUserId);
+        }
+        return instance;
+    }
+
+    /**
+     * Konstruktor für den ParticipantFanOut.
+     *
+     * @param firestore     Die Firestore-Instanz, gegen die geschrieben wird.
+     * @param currentUserId Liefert die Benutzer-ID des angemeldeten Benutzers.
+     */
+    ParticipantFanOut(FirebaseFirestore firestore, Supplier<String> currentUserId) {
+        this.firestore = firestore;
+        this.currentUserId = currentUserId;
+    }
+
+    /**
+     * Schreibt Anzeigename und Profilbildversion des angemeldeten Benutzers in
+     * alle seine Chatrooms.
+     *
+     * @param user Der angemeldete Benutzer mit den neuen Profildaten.
+     * @return Ein Task mit der Anzahl aktualisierter Chatrooms.
+     */
+    public Task<Integer> fanOut(UserModel user) {
+        if (!isCurrentUser(user)) {
+            return Tasks.forException(new IllegalArgumentException("Nur das eigene Profil wird verteilt"));
+        }
+        Query query = firestore.collection("chatrooms")
+                .whereArrayContains("userIds", user.getUserId())
+                .orderBy(FieldPath.documentId())
+                .limit(BATCH_SIZE);
+        return fanOutPage(query, null, user, 0);
+    }
+
+    /**
+     * Ergänzt oder korrigiert die Angaben des angemeldeten Benutzers in einem
+     * einzelnen Chatroom, z. B. beim Öffnen eines Chats, der noch keine Angaben
+     * hat. Sind die Angaben aktuell oder ist der Benutzer nicht der angemeldete
+     * Benutzer, wird nichts geschrieben.
+     *
+     * @param chatroomId Die ID des Chatrooms.
+     * @param chatroom   Der zuletzt gelesene Stand des Chatrooms.
+     * @param user       Der angemeldete Benutzer.
+     */
+    public void refresh(String chatroomId, ChatroomModel chatroom, UserModel user) {
+        if (!isCurrentUser(user) || user.getUsername() == null) {
+            return;
+        }
+        String userId = user.getUserId();
+        if (chatroom.hasParticipant(userId)
+                && Objects.equals(chatroom.participantName(userId), user.getUsername())
+                && chatroom.participantPicVersion(userId) == user.getProfilePicVersion()) {
+            return;
+        }
+        DocumentReference reference = firestore.collection("chatrooms").document(chatroomId);
+        reference.update(FieldPath.of(NAMES_FIELD, userId), user.getUsername(),
+                FieldPath.of(PIC_VERSIONS_FIELD, userId), user.getProfilePicVersion());
+    }
+
+    /**
+     * Prüft, ob das Profil zum angemeldeten Benutzer gehört.
+     */
+    private boolean isCurrentUser(UserModel user) {
+        return user != null && user.getUserId() != null && user.getUserId().equals(currentUserId.get());
+    }
+
+    /**
+     * Aktualisiert eine Seite von Chatrooms in einem WriteBatch und fährt mit der
+     * nächsten Seite fort, bis eine Seite nicht mehr voll ist.
+     */
+    private Task<Integer> fanOutPage(Query query, DocumentSnapshot cursor, UserModel user, int updated) {
+        Query page = cursor == null ? query : query.startAfter(cursor);
+        return page.get().continueWithTask(task -> {
+            List<DocumentSnapshot> documents = task.getResult().getDocuments();
+            if (documents.isEmpty()) {
+                return Tasks.forResult(updated);
+            }
+            WriteBatch batch = firestore.batch();
+            for (DocumentSnapshot document : documents) {
+                batch.update(document.getReference(),
+                        FieldPath.of(NAMES_FIELD, user.getUserId()), user.getUsername(),
+                        FieldPath.of(PIC_VERSIONS_FIELD, user.getUserId()), user.getProfilePicVersion());
+            }
+            int total = updated + documents.size();
+            DocumentSnapshot last = documents.get(documents.size() - 1);
+            return batch.commit().continueWithTask(commit -> {
+                if (!commit.isSuccessful()) {
+                    return Tasks.forException(commit.getException());
+                }
+                if (documents.size() < BATCH_SIZE) {
+                    return Tasks.forResult(total);
+                }
+                return fanOutPage(query, last, user, total);
+            });
+        });
+    }
+}
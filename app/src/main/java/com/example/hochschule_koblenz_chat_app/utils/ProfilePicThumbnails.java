@@ -0,0 +1,113 @@
+package com.example.hochschule_koblenz_chat_app.utils;
+
+import android.content.ContentResolver;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Die ProfilePicThumbnails-Klasse erzeugt beim Hochladen eines Profilbilds
+ * zusätzlich verkleinerte Fassungen, damit Listen nur so viele Pixel laden
+ * und dekodieren, wie das jeweilige ImageView anzeigt.
+ *
+ * Das Originalbild (maximal 512 x 512) liegt weiterhin unter
+ * profile_pic/{userId}, die Vorschaubilder unter profile_pic/{userId}_{größe}.
+ *
+ * @autor: Mohamed Bebba
+ */
+public class ProfilePicThumbnails {
+
+    // Kantenlänge des Originalbilds in Pixeln
+    public static final int FULL_SIZE = 512;
+    // Kantenlängen der Vorschaubilder in Pixeln, aufsteigend
+    static final int[] THUMBNAIL_SIZES = { 96, 192 };
+
+    private static final int JPEG_QUALITY = 85;
+
+    // Dekodieren und Skalieren laufen außerhalb des Main-Threads
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor();
+
+    /**
+     * Wählt die kleinste vorhandene Bildgröße, die das Ziel ohne Hochskalieren
+     * ausfüllt.
+     *
+     * @param targetPx Die Kantenlänge des ImageViews in Pixeln; 0 oder kleiner,
+     *                 wenn sie unbekannt ist.
+     * @return Die zu ladende Bildgröße in Pixeln.
+     */
+    public static int pickSize(int targetPx) {
+        if (targetPx <= 0) {
+            return FULL_SIZE;
+        }
+        for (int size : THUMBNAIL_SIZES) {
+            if (size >= targetPx) {
+                return size;
+            }
+        }
+        return FULL_SIZE;
+    }
+
+    /**
+     * Lädt das ausgewählte Bild als Original und in allen Vorschaugrößen für den
+     * aktuellen Benutzer hoch.
+     *
+     * @param contentResolver Der ContentResolver zum Lesen des Bildes.
+     * @param imageUri        Die URI des ausgewählten Bildes.
+     * @return Ein Task, der abgeschlossen ist, wenn alle Fassungen hochgeladen
+     *         wurden.
+     */
+    public static Task<Void> upload(ContentResolver contentResolver, Uri imageUri) {
+        String userId = FirebaseUtil.currentUserId();
+        List<Task<?>> uploads = new ArrayList<>();
+        uploads.add(FirebaseUtil.getCurrentProfilePicStorageRef().putFile(imageUri));
+        for (int size : THUMBNAIL_SIZES) {
+            uploads.add(Tasks.call(EXECUTOR, () -> createThumbnail(contentResolver, imageUri, size))
+                    .onSuccessTask(bytes -> FirebaseUtil.getProfilePicStorageRef(userId, size).putBytes(bytes)));
+        }
+        return Tasks.whenAll(uploads);
+    }
+
+    /**
+     * Erzeugt ein quadratisches JPEG-Vorschaubild der angegebenen Kantenlänge.
+     * Das Bild wird bereits beim Dekodieren grob verkleinert, um Speicher zu
+     * sparen.
+     */
+    static byte[] createThumbnail(ContentResolver contentResolver, Uri imageUri, int size) throws IOException {
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream in = contentResolver.openInputStream(imageUri)) {
+            BitmapFactory.decodeStream(in, null, bounds);
+        }
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = 1;
+        while (Math.min(bounds.outWidth, bounds.outHeight) / (options.inSampleSize * 2) >= size) {
+            options.inSampleSize *= 2;
+        }
+        Bitmap decoded;
+        try (InputStream in = contentResolver.openInputStream(imageUri)) {
+            decoded = BitmapFactory.decodeStream(in, null, options);
+        }
+        if (decoded == null) {
+            throw new IOException("Bild konnte nicht gelesen werden: " + imageUri);
+        }
+        Bitmap scaled = Bitmap.createScaledBitmap(decoded, size, size, true);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        scaled.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out);
+        if (scaled != decoded) {
+            scaled.recycle();
+        }
+        decoded.recycle();
+        return out.toByteArray();
+    }
+}
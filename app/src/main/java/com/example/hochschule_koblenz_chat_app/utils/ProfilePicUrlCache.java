@@ -0,0 +1,135 @@
+package com.example.hochschule_koblenz_chat_app.utils;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.Uri;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.storage.StorageException;
+
+import java.io.FileNotFoundException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Der ProfilePicUrlCache speichert die Download-URLs der Profilbilder dauerhaft
+ * in den SharedPreferences. Ein Eintrag gilt nur für die Bildversion, mit der
+ * er gespeichert wurde; lädt ein Benutzer ein neues Bild hoch, ändert sich die
+ * Version auf seinem UserModel und die URL wird einmalig neu aufgelöst.
+ * URLs werden pro Bildgröße gespeichert. Fehlt ein Vorschaubild (z. B. bei
+ * älteren Profilbildern), wird auf das Originalbild zurückgegriffen.
+ * Hat ein Benutzer kein Profilbild, wird auch das pro Version gespeichert,
+ * sodass Zeilen ohne Bild nicht bei jedem Binden Storage abfragen.
+ *
+ * @autor: Mohamed Bebba
+ */
+public class ProfilePicUrlCache {
+
+    private static final String PREFS_NAME = "profile_pic_urls";
+
+    private static ProfilePicUrlCache instance;
+
+    private final SharedPreferences preferences;
+    // Löst die Download-URL eines Profilbilds in einer Größe auf
+    private final BiFunction<String, Integer, Task<Uri>> loader;
+    // Laufende Auflösungen pro Benutzer-ID und Version
+    private final Map<String, Task<Uri>> inFlight = new HashMap<>();
+
+    /**
+     * Gibt die anwendungsweite Instanz des ProfilePicUrlCaches zurück.
+     *
+     * @param context Ein beliebiger Kontext der Anwendung.
+     * @return Die gemeinsame ProfilePicUrlCache-Instanz.
+     */
+    public static synchronized ProfilePicUrlCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new ProfilePicUrlCache(
+                    context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE));
+        }
+        return instance;
+    }
+
+    /**
+     * Konstruktor für den ProfilePicUrlCache.
+     *
+     * @param preferences Die SharedPreferences für die gespeicherten URLs.
+     */
+    ProfilePicUrlCache(SharedPreferences preferences) {
+        this(preferences, (userId, size) -> FirebaseUtil.getProfilePicStorageRef(userId, size).getDownloadUrl());
+    }
+
+    /**
+     * Konstruktor mit eigener Auflösung der Download-URLs, z. B. für Tests.
+     *
+     * @param preferences Die SharedPreferences für die gespeicherten URLs.
+     * @param loader      Löst die Download-URL zu Benutzer-ID und Bildgröße auf.
+     */
+    ProfilePicUrlCache(SharedPreferences preferences, BiFunction<String, Integer, Task<Uri>> loader) {
+        this.preferences = preferences;
+        this.loader = loader;
+    }
+
+    /**
+     * Gibt die Download-URL eines Profilbilds zurück. Liegt für die angegebene
+     * Version bereits eine URL vor, wird sie ohne Netzwerkzugriff geliefert.
+     *
+     * @param userId  Die Benutzer-ID.
+     * @param version Die Version des Profilbilds aus dem UserModel.
+     * @param size    Die gewünschte Bildgröße aus {@link ProfilePicThumbnails}.
+     * @return Ein Task mit der Download-URL; schlägt mit einer
+     *         FileNotFoundException fehl, wenn der Benutzer kein Profilbild hat.
+     */
+    public synchronized Task<Uri> getDownloadUrl(String userId, long version, int size) {
+        // Vorschaubilder gibt es erst für versionierte Profilbilder
+        if (version == 0) {
+            size = ProfilePicThumbnails.FULL_SIZE;
+        }
+        String entryKey = size >= ProfilePicThumbnails.FULL_SIZE ? userId : userId + "_" + size;
+        String cached = preferences.getString(entryKey, null);
+        String prefix = version + "|";
+        if (cached != null && cached.startsWith(prefix)) {
+            if (cached.length() == prefix.length()) {
+                // Für diese Version ist bekannt, dass es kein Bild gibt
+                return Tasks.forException(new FileNotFoundException("Kein Profilbild für " + userId));
+            }
+            return Tasks.forResult(Uri.parse(cached.substring(prefix.length())));
+        }
+        String key = entryKey + ":" + version;
+        Task<Uri> running = inFlight.get(key);
+        if (running != null) {
+            return running;
+        }
+        Task<Uri> task = loader.apply(userId, size);
+        if (size < ProfilePicThumbnails.FULL_SIZE) {
+            // Fehlendes Vorschaubild: Originalbild verwenden
+            task = task.continueWithTask(t -> t.isSuccessful()
+                    ? t
+                    : getDownloadUrl(userId, version, ProfilePicThumbnails.FULL_SIZE));
+        }
+        inFlight.put(key, task);
+        task.addOnCompleteListener(t -> {
+            synchronized (this) {
+                inFlight.remove(key);
+            }
+            if (t.isSuccessful()) {
+                preferences.edit().putString(entryKey, prefix + t.getResult()).apply();
+            } else if (isMissing(t.getException())) {
+                // Leere URL: kein Bild für diese Version; Netzwerkfehler werden nicht
+                // gespeichert
+                preferences.edit().putString(entryKey, prefix).apply();
+            }
+        });
+        return task;
+    }
+
+    /**
+     * Prüft, ob eine Auflösung fehlgeschlagen ist, weil das Bild nicht existiert.
+     */
+    private static boolean isMissing(Exception e) {
+        return e instanceof FileNotFoundException
+                || e instanceof StorageException
+                        && ((StorageException) e).getErrorCode() == StorageException.ERROR_OBJECT_NOT_FOUND;
+    }
+}
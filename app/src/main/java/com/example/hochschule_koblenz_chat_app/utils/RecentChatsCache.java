@@ -0,0 +1,337 @@
+package com.example.hochschule_koblenz_chat_app.utils;
+
+import android.content.Context;
+import android.util.AtomicFile;
+
+import com.example.hochschule_koblenz_chat_app.model.ChatroomModel;
+import com.example.hochschule_koblenz_chat_app.model.UserModel;
+import com.google.firebase.Timestamp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Der RecentChatsCache speichert die zuletzt angezeigte Chatliste des
+ * angemeldeten Benutzers in einer Datei auf dem Gerät: Chatrooms mit letzter
+ * Nachricht, Ungelesen-Zählern sowie Name und Profilbildversion der
+ * Teilnehmer. Nach einem Kaltstart zeigt das ChatFragment diese Liste im
+ * ersten Frame an, der Snapshot-Listener gleicht sie danach per DiffUtil ab.
+ * Die Profilbilder kommen über den ProfilePicUrlCache und den Bildcache
+ * ebenfalls ohne Netzwerkzugriff.
+ *
+ * Die Datei wird beim Start der MainActivity im Hintergrund gelesen und
+ * gehört zu genau einem Benutzer; die Liste eines anderen Benutzers wird
+ * verworfen.
+ *
+ * @autor: Mohamed Bebba
+ */
+public class RecentChatsCache {
+
+    private static final String FILE_NAME = "recent_chats.bin";
+    // Version des Dateiformats; Dateien einer anderen Version werden ignoriert
+    static final int FORMAT_VERSION = 1;
+    // Maximale Anzahl gespeicherter Chatrooms, mehr als ein Bildschirm zeigt
+    static final int MAX_CHATROOMS = 50;
+
+    private static RecentChatsCache instance;
+
+    private final AtomicFile file;
+    // Lese- und Schreibzugriffe laufen nacheinander auf einem Hintergrund-Thread
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    // Laufender oder abgeschlossener Ladevorgang der Datei
+    private Future<List<ChatroomModel>> load;
+
+    /**
+     * Gibt die anwendungsweite Instanz des RecentChatsCaches zurück.
+     *
+     * @param context Ein beliebiger Kontext der Anwendung.
+     * @return Die gemeinsame RecentChatsCache-Instanz.
+     */
+    public static synchronized RecentChatsCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new RecentChatsCache(new File(context.getApplicationContext().getFilesDir(), FILE_NAME));
+        }
+        return instance;
+    }
+
+    /**
+     * Konstruktor für den RecentChatsCache.
+     *
+     * @param file Die Datei für die gespeicherte Chatliste.
+     */
+    RecentChatsCache(File file) {
+        this.file = new AtomicFile(file);
+    }
+
+    /**
+     * Beginnt, die gespeicherte Chatliste im Hintergrund zu lesen, damit sie
+     * bereitliegt, wenn das ChatFragment seine Ansicht erstellt.
+     */
+    public synchronized void preload() {
+        if (load == null) {
+            String userId = FirebaseUtil.currentUserId();
+            load = executor.submit(() -> readFromDisk(userId));
+        }
+    }
+
+    /**
+     * Gibt die gespeicherte Chatliste des angemeldeten Benutzers zurück. Ist das
+     * Lesen noch nicht abgeschlossen, wird darauf gewartet; die Datei umfasst
+     * höchstens {@link #MAX_CHATROOMS} Chatrooms.
+     *
+     * @return Die gespeicherten Chatrooms, neueste zuerst, oder eine leere Liste.
+     */
+    public List<ChatroomModel> getCached() {
+        Future<List<ChatroomModel>> pending;
+        synchronized (this) {
+            preload();
+            pending = load;
+        }
+        try {
+            return new ArrayList<>(pending.get());
+        } catch (Exception e) {
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Speichert die angezeigte Chatliste. Fehlen einem älteren Chatroom Name
+     * oder Profilbildversion des Chatpartners, werden sie aus den bereits
+     * geladenen Profilen ergänzt. Muss auf dem Main-Thread aufgerufen werden.
+     *
+     * @param chatrooms Die angezeigten Chatrooms, neueste zuerst.
+     */
+    public void save(List<ChatroomModel> chatrooms) {
+        String userId = FirebaseUtil.currentUserId();
+        if (userId == null) {
+            return;
+        }
+        List<ChatroomModel> saved = new ArrayList<>(
+                chatrooms.subList(0, Math.min(chatrooms.size(), MAX_CHATROOMS)));
+        Map<String, UserModel> profiles = new HashMap<>();
+        UserProfileRepository profileRepository = UserProfileRepository.getInstance();
+        for (ChatroomModel chatroom : saved) {
+            String otherUserId = FirebaseUtil.getOtherUserId(chatroom.getUserIds(), userId);
+            UserModel cached = profileRepository.getCached(otherUserId);
+            if (!chatroom.hasParticipant(otherUserId) && cached != null) {
+                profiles.put(otherUserId, cached);
+            }
+        }
+        synchronized (this) {
+            load = CompletableFuture.completedFuture(Collections.unmodifiableList(saved));
+        }
+        executor.execute(() -> writeToDisk(userId, saved, profiles));
+    }
+
+    /**
+     * Löscht die gespeicherte Chatliste, z. B. beim Abmelden.
+     */
+    public void clear() {
+        synchronized (this) {
+            load = CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        executor.execute(file::delete);
+    }
+
+    /**
+     * Liest die Chatliste aus der Datei, sofern sie zum angegebenen Benutzer
+     * gehört.
+     */
+    private List<ChatroomModel> readFromDisk(String userId) {
+        if (userId == null) {
+            return Collections.emptyList();
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(file.openRead()))) {
+            return read(in, userId);
+        } catch (IOException e) {
+            // Noch keine Liste gespeichert oder die Datei ist unvollständig
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Schreibt die Chatliste atomar in die Datei; eine beim Schreiben
+     * abgebrochene Datei ersetzt die vorherige nicht.
+     */
+    private void writeToDisk(String userId, List<ChatroomModel> chatrooms, Map<String, UserModel> profiles) {
+        FileOutputStream stream = null;
+        try {
+            stream = file.startWrite();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream));
+            write(out, userId, chatrooms, profiles);
+            out.flush();
+            file.finishWrite(stream);
+        } catch (IOException e) {
+            if (stream != null) {
+                file.failWrite(stream);
+            }
+        }
+    }
+
+    /**
+     * Schreibt die Chatliste eines Benutzers in einen Stream.
+     *
+     * @param out       Der Ziel-Stream.
+     * @param userId    Die Benutzer-ID des angemeldeten Benutzers.
+     * @param chatrooms Die Chatrooms, neueste zuerst.
+     * @param profiles  Profile der Chatpartner, deren Angaben im Chatroom fehlen.
+     */
+    static void write(DataOutputStream out, String userId, List<ChatroomModel> chatrooms,
+            Map<String, UserModel> profiles) throws IOException {
+        out.writeInt(FORMAT_VERSION);
+        writeString(out, userId);
+        out.writeInt(chatrooms.size());
+        for (ChatroomModel chatroom : chatrooms) {
+            writeString(out, chatroom.getChatroomId());
+            List<String> userIds = chatroom.getUserIds() == null ? Collections.emptyList() : chatroom.getUserIds();
+            out.writeInt(userIds.size());
+            for (String participant : userIds) {
+                writeString(out, participant);
+            }
+            Timestamp timestamp = chatroom.getLastMessageTimestamp();
+            out.writeBoolean(timestamp != null);
+            if (timestamp != null) {
+                out.writeLong(timestamp.getSeconds());
+                out.writeInt(timestamp.getNanoseconds());
+            }
+            writeString(out, chatroom.getLastMessageSenderId());
+            writeString(out, chatroom.getLastMessage());
+            writeLongMap(out, chatroom.getUnreadCounts());
+
+            Map<String, String> names = copyOrNew(chatroom.getParticipantNames());
+            Map<String, Long> picVersions = copyOrNew(chatroom.getParticipantPicVersions());
+            for (String participant : userIds) {
+                UserModel profile = profiles.get(participant);
+                if (profile != null && !chatroom.hasParticipant(participant)) {
+                    names.put(participant, profile.getUsername());
+                    picVersions.put(participant, profile.getProfilePicVersion());
+                }
+            }
+            writeStringMap(out, names);
+            writeLongMap(out, picVersions);
+        }
+    }
+
+    /**
+     * Liest die Chatliste aus einem Stream.
+     *
+     * @param in     Der Quell-Stream.
+     * @param userId Die Benutzer-ID des angemeldeten Benutzers.
+     * @return Die Chatrooms oder eine leere Liste, wenn Format oder Benutzer nicht
+     *         passen.
+     */
+    static List<ChatroomModel> read(DataInputStream in, String userId) throws IOException {
+        if (in.readInt() != FORMAT_VERSION || !userId.equals(readString(in))) {
+            return Collections.emptyList();
+        }
+        int count = in.readInt();
+        List<ChatroomModel> chatrooms = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ChatroomModel chatroom = new ChatroomModel();
+            chatroom.setChatroomId(readString(in));
+            int participants = in.readInt();
+            List<String> userIds = new ArrayList<>(participants);
+            for (int j = 0; j < participants; j++) {
+                userIds.add(readString(in));
+            }
+            chatroom.setUserIds(userIds);
+            if (in.readBoolean()) {
+                chatroom.setLastMessageTimestamp(new Timestamp(in.readLong(), in.readInt()));
+            }
+            chatroom.setLastMessageSenderId(readString(in));
+            chatroom.setLastMessage(readString(in));
+            chatroom.setUnreadCounts(readLongMap(in));
+            chatroom.setParticipantNames(readStringMap(in));
+            chatroom.setParticipantPicVersions(readLongMap(in));
+            chatrooms.add(chatroom);
+        }
+        return chatrooms;
+    }
+
+    private static <V> Map<String, V> copyOrNew(Map<String, V> map) {
+        return map == null ? new HashMap<>() : new HashMap<>(map);
+    }
+
+    /**
+     * Schreibt einen String, der null sein darf. Anders als writeUTF ist die
+     * Länge nicht auf 64 KB begrenzt.
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeStringMap(DataOutputStream out, Map<String, String> map) throws IOException {
+        out.writeInt(map == null ? -1 : map.size());
+        if (map != null) {
+            for (Map.Entry<String, String> entry : map.entrySet()) {
+                writeString(out, entry.getKey());
+                writeString(out, entry.getValue());
+            }
+        }
+    }
+
+    private static Map<String, String> readStringMap(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        if (size < 0) {
+            return null;
+        }
+        Map<String, String> map = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            map.put(readString(in), readString(in));
+        }
+        return map;
+    }
+
+    private static void writeLongMap(DataOutputStream out, Map<String, Long> map) throws IOException {
+        out.writeInt(map == null ? -1 : map.size());
+        if (map != null) {
+            for (Map.Entry<String, Long> entry : map.entrySet()) {
+                writeString(out, entry.getKey());
+                out.writeLong(entry.getValue() == null ? 0 : entry.getValue());
+            }
+        }
+    }
+
+    private static Map<String, Long> readLongMap(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        if (size < 0) {
+            return null;
+        }
+        Map<String, Long> map = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            map.put(readString(in), in.readLong());
+        }
+        return map;
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.hochschule_koblenz_chat_app.utils;
+
+import android.content.Context;
+import android.util.SparseArray;
+import android.view.ContextThemeWrapper;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.asynclayoutinflater.view.AsyncLayoutInflater;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.hochschule_koblenz_chat_app.R;
+
+import java.util.ArrayDeque;
+
+/**
+ * Der RowViewPool hält die Zeilen der Chat-, Chatlisten- und Suchlisten
+ * anwendungsweit vor:
+ * <ul>
+ * <li>Ein gemeinsamer {@link RecyclerView.RecycledViewPool}, in dem die
+ * ViewHolder geschlossener Bildschirme für den nächsten Bildschirm desselben
+ * Typs liegen bleiben. Die Layout-ID einer Zeile dient dabei als View-Typ,
+ * damit sich die Typen der Adapter nicht überschneiden.</li>
+ * <li>Im Leerlauf nach dem Start der MainActivity vorab aufgeblähte Zeilen
+ * ({@link AsyncLayoutInflater}), die die Adapter beim Erstellen ihrer ersten
+ * ViewHolder übernehmen, statt während des ersten Frames zu inflaten.</li>
+ * </ul>
+ * Alle Zeilen, auch die bei leerem Vorrat sofort aufgeblähten, werden mit dem
+ * Anwendungskontext und dem Theme der App aufgebläht, damit Zeilen im Pool
+ * keine geschlossene Aktivität festhalten.
+ *
+ * Alle Methoden müssen auf dem Main-Thread aufgerufen werden.
+ *
+ * @autor: Mohamed Bebba
+ */
+public class RowViewPool {
+
+    // Zeilenlayouts mit der Anzahl vorab aufgeblähter Zeilen bzw. der maximalen
+    // Anzahl ViewHolder im Pool
+    private static final int[] LAYOUTS = {
+            R.layout.recent_chat_recycler_row,
+            R.layout.search_user_recycler_row,
+            R.layout.chat_message_sent_row,
+            R.layout.chat_message_received_row,
+    };
+    private static final int[] WARM_UP_COUNTS = { 8, 8, 6, 6 };
+    private static final int[] MAX_RECYCLED = { 12, 12, 16, 16 };
+
+    private static RowViewPool instance;
+
+    private final RecyclerView.RecycledViewPool recycledViewPool = new RecyclerView.RecycledViewPool();
+    // Vorab aufgeblähte Zeilen je Layout-ID
+    private final SparseArray<ArrayDeque<View>> preInflated = new SparseArray<>();
+    private boolean warmedUp = false;
+    // Anwendungskontext mit dem Theme der App, mit dem alle Zeilen aufgebläht werden
+    private Context rowContext;
+
+    /**
+     * Gibt die gemeinsame Instanz zurück.
+     *
+     * @return Die RowViewPool-Instanz.
+     */
+    public static synchronized RowViewPool getInstance() {
+        if (instance == null) {
+            instance = new RowViewPool();
+        }
+        return instance;
+    }
+
+    private RowViewPool() {
+        for (int i = 0; i < LAYOUTS.length; i++) {
+            recycledViewPool.setMaxRecycledViews(LAYOUTS[i], MAX_RECYCLED[i]);
+            preInflated.put(LAYOUTS[i], new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Bläht die Zeilen der ersten Bildschirme im Hintergrund auf. Weitere Aufrufe
+     * haben keine Wirkung.
+     *
+     * @param context Ein beliebiger Kontext; verwendet wird der
+     *                Anwendungskontext.
+     */
+    public void warmUp(Context context) {
+        if (warmedUp) {
+            return;
+        }
+        warmedUp = true;
+        Context themedContext = rowContext(context);
+        // Die Eltern-View liefert nur die RecyclerView-LayoutParams der Zeilen
+        RecyclerView parent = new RecyclerView(themedContext);
+        parent.setLayoutManager(new LinearLayoutManager(themedContext));
+        AsyncLayoutInflater inflater = new AsyncLayoutInflater(themedContext);
+        AsyncLayoutInflater.OnInflateFinishedListener onInflated = (view, layout, p) -> preInflated.get(layout)
+                .push(view);
+        for (int i = 0; i < LAYOUTS.length; i++) {
+            for (int n = 0; n < WARM_UP_COUNTS[i]; n++) {
+                inflater.inflate(LAYOUTS[i], parent, onInflated);
+            }
+        }
+    }
+
+    /**
+     * Gibt eine vorab aufgeblähte Zeile zurück oder bläht sie sofort auf, falls
+     * keine mehr vorrätig ist.
+     *
+     * @param context Der Kontext des Adapters; verwendet wird der
+     *                Anwendungskontext mit dem Theme der App.
+     * @param layout  Die Layout-ID der Zeile.
+     * @param parent  Die RecyclerView, in der die Zeile angezeigt wird.
+     * @return Die Zeile.
+     */
+    @NonNull
+    public View obtain(Context context, int layout, ViewGroup parent) {
+        ArrayDeque<View> views = preInflated.get(layout);
+        if (views != null && !views.isEmpty()) {
+            return views.pop();
+        }
+        return LayoutInflater.from(rowContext(context)).inflate(layout, parent, false);
+    }
+
+    /**
+     * Gibt den Anwendungskontext mit dem Theme der App zurück. Ein Kontext einer
+     * Aktivität würde von den Zeilen im gemeinsamen Pool über deren Ende hinaus
+     * festgehalten.
+     */
+    private Context rowContext(Context context) {
+        if (rowContext == null) {
+            rowContext = new ContextThemeWrapper(context.getApplicationContext(),
+                    R.style.Theme_Hochschule_Koblenz_Chat_App);
+        }
+        return rowContext;
+    }
+
+    /**
+     * Verbindet eine RecyclerView mit dem gemeinsamen Pool und schaltet das
+     * Prefetching ihres LayoutManagers ein: Beim Scrollen erstellt und bindet der
+     * GapWorker die nächste Zeile in der Leerlaufzeit zwischen zwei Frames. Eine
+     * anfängliche Prefetch-Anzahl wird nicht gesetzt, da sie nur für in eine
+     * andere Liste verschachtelte Listen gilt.
+     *
+     * @param recyclerView Die RecyclerView eines Bildschirms; ihr LayoutManager
+     *                     muss bereits gesetzt sein.
+     */
+    public void attach(RecyclerView recyclerView) {
+        recyclerView.setRecycledViewPool(recycledViewPool);
+        recyclerView.getLayoutManager().setItemPrefetchEnabled(true);
+    }
+
+    /**
+     * Gibt die angezeigten Zeilen einer RecyclerView, deren Bildschirm beendet
+     * wird, an den gemeinsamen Pool zurück.
+     *
+     * @param recyclerView Die RecyclerView eines Bildschirms.
+     */
+    public void release(RecyclerView recyclerView) {
+        // swapAdapter statt setAdapter(null), damit der Pool dabei nicht geleert wird
+        recyclerView.swapAdapter(null, true);
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.hochschule_koblenz_chat_app.utils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * SearchKeywords bildet die Suchschlüssel eines Benutzers, die im Feld
+ * {@link #FIELD} des Benutzerdokuments gespeichert und per array-contains
+ * abgefragt werden:
+ * <ul>
+ * <li>alle Präfixe des normalisierten Namens und jedes seiner Wörter
+ * (Kleinschreibung, ohne Akzente), sodass "mül" auch "Anna Müller"
+ * findet;</li>
+ * <li>die letzten Ziffern der Telefonnummer ab {@link #MIN_PHONE_SUFFIX_LENGTH}
+ * Stellen bis zur vollständigen Nummer.</li>
+ * </ul>
+ * Die Klasse hängt nicht von Android ab, damit das Backfill-Werkzeug in
+ * tools dieselben Schlüssel erzeugt wie die App.
+ *
+ * @autor: Mohamed Bebba
+ */
+public class SearchKeywords {
+
+    // Name des Felds im Benutzerdokument
+    public static final String FIELD = "searchKeywords";
+    // Längere Suchbegriffe werden auf diese Länge gekürzt
+    static final int MAX_PREFIX_LENGTH = 15;
+    // Kürzester Teil einer Telefonnummer, nach dem gesucht werden kann
+    static final int MIN_PHONE_SUFFIX_LENGTH = 4;
+
+    private SearchKeywords() {
+    }
+
+    /**
+     * Normalisiert einen Text für die Suche: Kleinschreibung, ohne Akzente und
+     * mit einzelnen Leerzeichen zwischen Wörtern.
+     *
+     * @param text Der Text; null ergibt einen leeren Text.
+     * @return Der normalisierte Text.
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return decomposed.replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT)
+                .trim()
+                .replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Bildet alle Suchschlüssel eines Benutzers.
+     *
+     * @param username Der Benutzername; darf null sein.
+     * @param phone    Die Telefonnummer; darf null sein.
+     * @return Die Suchschlüssel ohne Duplikate.
+     */
+    public static List<String> forUser(String username, String phone) {
+        Set<String> keywords = new LinkedHashSet<>();
+        String name = normalize(username);
+        if (!name.isEmpty()) {
+            addPrefixes(name, keywords);
+            for (int i = name.indexOf(' '); i >= 0; i = name.indexOf(' ', i + 1)) {
+                addPrefixes(name.substring(i + 1), keywords);
+            }
+        }
+        String digits = digitsOf(phone);
+        for (int length = MIN_PHONE_SUFFIX_LENGTH; length <= digits.length(); length++) {
+            keywords.add(digits.substring(digits.length() - length));
+        }
+        return new ArrayList<>(keywords);
+    }
+
+    /**
+     * Wandelt einen eingegebenen Suchbegriff in den Schlüssel für die
+     * array-contains-Abfrage um. Begriffe aus Ziffern und Zeichen einer
+     * Telefonnummer werden als Telefonnummer behandelt.
+     *
+     * @param term Der eingegebene Suchbegriff.
+     * @return Der Suchschlüssel; leer, wenn der Begriff leer ist.
+     */
+    public static String searchKey(String term) {
+        if (isPhoneTerm(term)) {
+            return digitsOf(term);
+        }
+        String normalized = normalize(term);
+        return normalized.length() > MAX_PREFIX_LENGTH ? normalized.substring(0, MAX_PREFIX_LENGTH) : normalized;
+    }
+
+    /**
+     * Prüft, ob ein Benutzer zu einem Suchbegriff passt, mit denselben Regeln wie
+     * die Firestore-Abfrage.
+     *
+     * @param username Der Benutzername.
+     * @param phone    Die Telefonnummer.
+     * @param term     Der eingegebene Suchbegriff.
+     * @return true, wenn einer der Suchschlüssel des Benutzers passt.
+     */
+    public static boolean matches(String username, String phone, String term) {
+        String key = searchKey(term);
+        return !key.isEmpty() && forUser(username, phone).contains(key);
+    }
+
+    private static void addPrefixes(String word, Set<String> keywords) {
+        int maxLength = Math.min(word.length(), MAX_PREFIX_LENGTH);
+        for (int length = 1; length <= maxLength; length++) {
+            // Präfixe, die mit einem Leerzeichen enden, bringen keinen neuen Treffer
+            if (word.charAt(length - 1) != ' ') {
+                keywords.add(word.substring(0, length));
+            }
+        }
+    }
+
+    private static boolean isPhoneTerm(String term) {
+        if (term == null || digitsOf(term).isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < term.length(); i++) {
+            char c = term.charAt(i);
+            if (!Character.isDigit(c) && "+ -/()".indexOf(c) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String digitsOf(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder digits = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        return digits.toString();
+    }
+}
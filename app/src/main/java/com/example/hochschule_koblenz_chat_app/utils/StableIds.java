@@ -0,0 +1,57 @@
+package com.example.hochschule_koblenz_chat_app.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * StableIds vergibt stabile numerische IDs für die Dokument-IDs der Zeilen
+ * eines Adapters. Jede Dokument-ID erhält beim ersten Abruf den nächsten Wert
+ * eines Zählers, sodass es anders als bei {@code hashCode()} keine
+ * Kollisionen gibt. IDs von Zeilen, die nicht mehr angezeigt werden, können
+ * mit {@link #retain(Set)} entfernt werden; da der Zähler weiterläuft, wird
+ * eine ID nie doppelt vergeben.
+ *
+ * Alle Methoden müssen auf dem Main-Thread aufgerufen werden.
+ *
+ * @autor: Mohamed Bebba
+ */
+public class StableIds {
+
+    private final Map<String, Long> ids = new HashMap<>();
+    private long nextId = 0;
+
+    /**
+     * Gibt die stabile ID einer Dokument-ID zurück und vergibt bei Bedarf eine
+     * neue.
+     *
+     * @param key Die Dokument-ID der Zeile.
+     * @return Die stabile numerische ID.
+     */
+    public long idFor(String key) {
+        Long id = ids.get(key);
+        if (id == null) {
+            id = nextId++;
+            ids.put(key, id);
+        }
+        return id;
+    }
+
+    /**
+     * Gibt die Anzahl der vergebenen IDs zurück.
+     *
+     * @return Die Anzahl gemerkter Dokument-IDs.
+     */
+    public int size() {
+        return ids.size();
+    }
+
+    /**
+     * Entfernt die IDs aller Dokument-IDs, die nicht mehr angezeigt werden.
+     *
+     * @param keys Die Dokument-IDs der aktuellen Liste.
+     */
+    public void retain(Set<String> keys) {
+        ids.keySet().retainAll(keys);
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.hochschule_koblenz_chat_app.utils;
+
+import android.widget.TextView;
+
+/**
+ * Der TextBuffer setzt zusammengesetzte Texte (z. B. "Du : " + Nachricht)
+ * ohne neue String-Objekte in eine TextView. Die Zeichen werden in ein
+ * wiederverwendetes char-Array geschrieben und über
+ * {@link TextView#setText(char[], int, int)} übergeben, das die TextView ohne
+ * Kopie übernimmt.
+ *
+ * Da die TextView das Array direkt referenziert, gehört jeder TextBuffer zu
+ * genau einer TextView und wird nur beim Binden auf dem Main-Thread
+ * verändert. Ein unveränderter Inhalt wird nicht erneut gesetzt, sodass ein
+ * erneutes Binden derselben Zeile kein Neu-Layout der TextView auslöst.
+ *
+ * @autor: Mohamed Bebba
+ */
+public class TextBuffer {
+
+    private char[] chars;
+    private int length = 0;
+    // Kopie des zuletzt gesetzten Inhalts und das Textobjekt der TextView danach
+    private char[] applied;
+    private int appliedLength = -1;
+    private CharSequence appliedText;
+
+    /**
+     * Konstruktor für den TextBuffer.
+     *
+     * @param initialCapacity Die anfängliche Kapazität in Zeichen.
+     */
+    public TextBuffer(int initialCapacity) {
+        chars = new char[initialCapacity];
+    }
+
+    /**
+     * Leert den Puffer, ohne Speicher freizugeben.
+     *
+     * @return Dieser TextBuffer.
+     */
+    public TextBuffer clear() {
+        length = 0;
+        return this;
+    }
+
+    /**
+     * Hängt einen Text an. null wird ignoriert.
+     *
+     * @param text Der anzuhängende Text.
+     * @return Dieser TextBuffer.
+     */
+    public TextBuffer append(String text) {
+        if (text == null) {
+            return this;
+        }
+        ensureCapacity(length + text.length());
+        text.getChars(0, text.length(), chars, length);
+        length += text.length();
+        return this;
+    }
+
+    /**
+     * Hängt eine nicht negative Zahl in Dezimalschreibweise an.
+     *
+     * @param value Die anzuhängende Zahl.
+     * @return Dieser TextBuffer.
+     */
+    public TextBuffer append(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Negative Zahlen werden nicht unterstützt: " + value);
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        ensureCapacity(length + digits);
+        for (int i = length + digits - 1; i >= length; i--) {
+            chars[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        length += digits;
+        return this;
+    }
+
+    /**
+     * Gibt die aktuelle Anzahl an Zeichen zurück.
+     *
+     * @return Die Länge des Inhalts.
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Gibt den Inhalt als String zurück. Nur für Tests und Logausgaben gedacht,
+     * da dabei ein neuer String entsteht.
+     *
+     * @return Der Inhalt des Puffers.
+     */
+    @Override
+    public String toString() {
+        return new String(chars, 0, length);
+    }
+
+    /**
+     * Setzt den Inhalt des Puffers als Text der TextView.
+     *
+     * @param textView Die TextView, zu der dieser Puffer gehört.
+     */
+    public void applyTo(TextView textView) {
+        if (textView.getText() == appliedText && isApplied()) {
+            return; // Die TextView zeigt bereits diesen Inhalt
+        }
+        textView.setText(chars, 0, length);
+        if (applied == null || applied.length < length) {
+            applied = new char[chars.length];
+        }
+        System.arraycopy(chars, 0, applied, 0, length);
+        appliedLength = length;
+        appliedText = textView.getText();
+    }
+
+    /**
+     * Prüft, ob der Inhalt dem zuletzt gesetzten entspricht.
+     */
+    private boolean isApplied() {
+        if (appliedLength != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (applied[i] != chars[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Vergrößert das Array, falls die benötigte Kapazität nicht ausreicht.
+     */
+    private void ensureCapacity(int required) {
+        if (required > chars.length) {
+            char[] grown = new char[Math.max(required, chars.length * 2)];
+            System.arraycopy(chars, 0, grown, 0, length);
+            chars = grown;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.hochschule_koblenz_chat_app.utils;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * Der TimestampFormatter formatiert Zeitstempel für die Chat-Listen relativ
+ * zum aktuellen Tag:
+ * <ul>
+ * <li>heute: Uhrzeit ("14:05")</li>
+ * <li>gestern: "Gestern"</li>
+ * <li>innerhalb der letzten Woche: Wochentag ("Montag")</li>
+ * <li>älter: Datum ("03.02.24")</li>
+ * </ul>
+ * Die Formatierer aus java.time sind unveränderlich und damit threadsicher.
+ * Ergebnisse werden pro Minute zwischengespeichert, sodass wiederholte
+ * Zeitstempel derselben Minute nur einmal formatiert werden und ohne
+ * Allokation zurückkommen. Der Speicher wird beim Tageswechsel verworfen, da
+ * sich dann die Einteilung ändert.
+ *
+ * Die Klasse hängt nicht von Firebase ab und arbeitet mit Millisekunden seit
+ * der Epoche, damit sie auch in den JVM-Werkzeugen gemessen werden kann.
+ *
+ * @autor: Mohamed Bebba
+ */
+public class TimestampFormatter {
+
+    private static final long MILLIS_PER_MINUTE = 60_000;
+    private static final String YESTERDAY = "Gestern";
+    // Anzahl der Speicherplätze für Minuten; muss eine Zweierpotenz sein
+    static final int MEMO_SLOTS = 1024;
+
+    private static TimestampFormatter instance;
+
+    private final Clock clock;
+    private final DateTimeFormatter timeFormatter;
+    private final DateTimeFormatter weekdayFormatter;
+    private final DateTimeFormatter dateFormatter;
+
+    // Zwischengespeicherte Texte des aktuellen Tages
+    private volatile Memo memo;
+
+    /**
+     * Gibt die anwendungsweite Instanz für die Zeitzone des Geräts zurück.
+     *
+     * @return Die gemeinsame TimestampFormatter-Instanz.
+     */
+    public static synchronized TimestampFormatter getInstance() {
+        if (instance == null) {
+            instance = new TimestampFormatter(Clock.systemDefaultZone(), Locale.GERMANY);
+        }
+        return instance;
+    }
+
+    /**
+     * Konstruktor für den TimestampFormatter.
+     *
+     * @param clock  Die Uhr, die den aktuellen Tag und die Zeitzone liefert.
+     * @param locale Die Sprache für Wochentage.
+     */
+    public TimestampFormatter(Clock clock, Locale locale) {
+        this.clock = clock;
+        this.timeFormatter = DateTimeFormatter.ofPattern("HH:mm", locale);
+        this.weekdayFormatter = DateTimeFormatter.ofPattern("EEEE", locale);
+        this.dateFormatter = DateTimeFormatter.ofPattern("dd.MM.yy", locale);
+    }
+
+    /**
+     * Formatiert einen Zeitstempel relativ zum aktuellen Tag.
+     *
+     * @param epochMillis Der Zeitstempel in Millisekunden seit der Epoche.
+     * @return Der formatierte Text.
+     */
+    public String format(long epochMillis) {
+        long now = clock.millis();
+        Memo current = memo;
+        if (current == null || now < current.dayStart || now >= current.nextDayStart) {
+            current = new Memo(LocalDate.now(clock), clock.getZone());
+            memo = current;
+        }
+
+        long minute = Math.floorDiv(epochMillis, MILLIS_PER_MINUTE);
+        int slot = (int) (minute & (MEMO_SLOTS - 1));
+        Entry entry = current.entries[slot];
+        if (entry != null && entry.minute == minute) {
+            return entry.text;
+        }
+        String text = formatUncached(epochMillis, current.day, current.zone);
+        current.entries[slot] = new Entry(minute, text);
+        return text;
+    }
+
+    /**
+     * Ordnet den Zeitstempel einer Tagesgruppe zu und formatiert ihn.
+     */
+    private String formatUncached(long epochMillis, LocalDate today, ZoneId zone) {
+        ZonedDateTime dateTime = Instant.ofEpochMilli(epochMillis).atZone(zone);
+        LocalDate day = dateTime.toLocalDate();
+        // Leicht in der Zukunft liegende Zeitstempel (geschätzte Serverzeit)
+        // zählen als heute
+        if (!day.isBefore(today)) {
+            return timeFormatter.format(dateTime);
+        }
+        if (day.equals(today.minusDays(1))) {
+            return YESTERDAY;
+        }
+        if (day.isAfter(today.minusDays(7))) {
+            return weekdayFormatter.format(dateTime);
+        }
+        return dateFormatter.format(dateTime);
+    }
+
+    /**
+     * Die zwischengespeicherten Texte eines Tages. Jede Minute hat einen festen
+     * Speicherplatz; bei Kollisionen wird der ältere Eintrag überschrieben.
+     * Einträge sind unveränderlich und können daher ohne Sperre gelesen werden.
+     */
+    private static class Memo {
+        final LocalDate day;
+        final ZoneId zone;
+        final long dayStart;
+        final long nextDayStart;
+        final Entry[] entries = new Entry[MEMO_SLOTS];
+
+        Memo(LocalDate day, ZoneId zone) {
+            this.day = day;
+            this.zone = zone;
+            this.dayStart = day.atStartOfDay(zone).toInstant().toEpochMilli();
+            this.nextDayStart = day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        }
+    }
+
+    /**
+     * Ein formatierter Text für eine Minute seit der Epoche.
+     */
+    private static class Entry {
+        final long minute;
+        final String text;
+
+        Entry(long minute, String text) {
+            this.minute = minute;
+            this.text = text;
+        }
+    }
+}
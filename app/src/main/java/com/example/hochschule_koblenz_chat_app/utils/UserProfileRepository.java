@@ -0,0 +1,367 @@
+package com.example.hochschule_koblenz_chat_app.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.LruCache;
+
+import com.example.hochschule_koblenz_chat_app.model.UserModel;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Das UserProfileRepository lädt und cached die Profile anderer Benutzer.
+ * Anfragen werden gesammelt und als whereIn-Abfragen über die Dokument-ID in
+ * Blöcken zu je 30 IDs gestellt; gleichzeitige Anfragen für denselben
+ * Benutzer teilen sich einen Ladevorgang. Die geladenen Profile liegen in
+ * einem begrenzten LRU-Cache.
+ *
+ * Für die gerade angezeigten Benutzer kann ein Live-Listener registriert
+ * werden, der den Cache bei Profiländerungen aktualisiert und die
+ * registrierten {@link ProfileListener} benachrichtigt.
+ *
+ * Alle Methoden müssen auf dem Main-Thread aufgerufen werden.
+ *
+ * @autor: Mohamed Bebba
+ */
+public class UserProfileRepository {
+
+    // Maximale Anzahl an IDs in einer whereIn-Abfrage
+    static final int MAX_IDS_PER_QUERY = 30;
+    // Maximale Anzahl zwischengespeicherter Profile
+    static final int CACHE_SIZE = 200;
+
+    /**
+     * Wird aufgerufen, wenn sich ein beobachtetes Profil geändert hat.
+     */
+    public interface ProfileListener {
+        /**
+         * @param userModel Das aktualisierte Profil.
+         */
+        void onProfileChanged(UserModel userModel);
+    }
+
+    private static UserProfileRepository instance;
+
+    private final CollectionReference users;
+    private final Handler handler;
+    private final LruCache<String, UserModel> cache = new LruCache<>(CACHE_SIZE);
+    // Laufende Ladevorgänge pro Benutzer-ID
+    private final Map<String, TaskCompletionSource<UserModel>> inFlight = new HashMap<>();
+    // Gesammelte IDs, die beim nächsten Flush geladen werden
+    private final Set<String> pendingIds = new LinkedHashSet<>();
+    private boolean flushScheduled = false;
+
+    // Beobachtete Benutzer-IDs und die zugehörigen Live-Listener
+    private Set<String> watchedIds = new LinkedHashSet<>();
+    private final List<ListenerRegistration> watchRegistrations = new ArrayList<>();
+    // IDs, deren Anfrage durch den ersten Snapshot eines Live-Listeners
+    // abgeschlossen wird
+    private final Set<String> awaitingWatch = new LinkedHashSet<>();
+    private final List<ProfileListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final Runnable flushRunnable = this::flush;
+    // Erhöht sich bei jedem Leeren, um Antworten für das vorherige Konto zu
+    // ignorieren
+    private int generation = 0;
+
+    /**
+     * Gibt die anwendungsweite Instanz des UserProfileRepositorys zurück.
+     *
+     * @return Die gemeinsame UserProfileRepository-Instanz.
+     */
+    public static synchronized UserProfileRepository getInstance() {
+        if (instance == null) {
+            instance = new UserProfileRepository(FirebaseUtil.allUserCollectionReference(),
+                    new Handler(Looper.getMainLooper()));
+        }
+        return instance;
+    }
+
+    /**
+     * Konstruktor für das UserProfileRepository.
+     *
+     * @param users   Die Collection der Benutzerprofile.
+     * @param handler Der Handler, auf dem das Sammeln der Anfragen geplant wird.
+     */
+    UserProfileRepository(CollectionReference users, Handler handler) {
+        this.users = users;
+        this.handler = handler;
+    }
+
+    /**
+     * Gibt ein Profil aus dem Cache zurück, ohne es zu laden.
+     *
+     * @param userId Die Benutzer-ID.
+     * @return Das Profil oder null, falls es nicht im Cache liegt.
+     */
+    public UserModel getCached(String userId) {
+        return cache.get(userId);
+    }
+
+    /**
+     * Gibt ein Profil zurück. Liegt es nicht im Cache, wird es mit allen anderen
+     * Anfragen desselben Durchlaufs gebündelt geladen.
+     *
+     * @param userId Die Benutzer-ID.
+     * @return Ein Task mit dem Profil; das Ergebnis ist null, falls der Benutzer
+     *         nicht existiert.
+     */
+    public Task<UserModel> get(String userId) {
+        UserModel cached = cache.get(userId);
+        if (cached != null) {
+            return Tasks.forResult(cached);
+        }
+        TaskCompletionSource<UserModel> running = inFlight.get(userId);
+        if (running != null) {
+            return running.getTask(); // Bereits angefragt
+        }
+        TaskCompletionSource<UserModel> source = new TaskCompletionSource<>();
+        inFlight.put(userId, source);
+        pendingIds.add(userId);
+        scheduleFlush();
+        return source.getTask();
+    }
+
+    /**
+     * Gibt ein aktuelles Profil zurück, z. B. bevor ein Chat geöffnet wird. Nur
+     * live beobachtete Profile werden aus dem Cache geliefert; alle anderen
+     * Einträge können veraltet sein und werden neu geladen.
+     *
+     * @param userId Die Benutzer-ID.
+     * @return Ein Task mit dem Profil; das Ergebnis ist null, falls der Benutzer
+     *         nicht existiert.
+     */
+    public Task<UserModel> getFresh(String userId) {
+        if (!watchedIds.contains(userId)) {
+            cache.remove(userId);
+        }
+        return get(userId);
+    }
+
+    /**
+     * Lädt alle angegebenen Profile vor, die noch nicht im Cache liegen.
+     *
+     * @param userIds Die Benutzer-IDs, z. B. aller sichtbaren Chats.
+     */
+    public void prefetch(Collection<String> userIds) {
+        for (String userId : userIds) {
+            get(userId);
+        }
+    }
+
+    /**
+     * Setzt die Benutzer, deren Profile live beobachtet werden. Die Listener
+     * werden nur neu registriert, wenn sich die Menge geändert hat. Der erste
+     * Snapshot der Listener füllt zugleich den Cache, sodass für beobachtete
+     * Benutzer keine zusätzliche Abfrage nötig ist.
+     *
+     * @param userIds Die zu beobachtenden Benutzer-IDs; eine leere Menge beendet
+     *                die Beobachtung.
+     */
+    public void watch(Collection<String> userIds) {
+        Set<String> newIds = new LinkedHashSet<>(userIds);
+        if (newIds.equals(watchedIds)) {
+            return;
+        }
+        for (ListenerRegistration registration : watchRegistrations) {
+            registration.remove();
+        }
+        watchRegistrations.clear();
+        // Noch offene Anfragen der alten Listener über eine normale Abfrage
+        // abschließen
+        for (String userId : awaitingWatch) {
+            if (inFlight.containsKey(userId)) {
+                pendingIds.add(userId);
+                scheduleFlush();
+            }
+        }
+        awaitingWatch.clear();
+        watchedIds = newIds;
+
+        for (List<String> chunk : chunk(new ArrayList<>(newIds))) {
+            for (String userId : chunk) {
+                if (cache.get(userId) == null && !inFlight.containsKey(userId)) {
+                    inFlight.put(userId, new TaskCompletionSource<>());
+                    awaitingWatch.add(userId);
+                }
+            }
+            Query query = users.whereIn(FieldPath.documentId(), chunk);
+            watchRegistrations.add(ListenerRegistry.getInstance().listen(query, (snapshot, e) -> {
+                if (e != null || snapshot == null) {
+                    completeAwaitingWatch(chunk, e);
+                    return;
+                }
+                for (DocumentSnapshot document : snapshot.getDocuments()) {
+                    UserModel userModel = document.toObject(UserModel.class);
+                    if (userModel != null && hasChanged(cache.get(document.getId()), userModel)) {
+                        remember(document.getId(), userModel);
+                        for (ProfileListener listener : listeners) {
+                            listener.onProfileChanged(userModel);
+                        }
+                    }
+                }
+                completeAwaitingWatch(chunk, null);
+            }));
+        }
+    }
+
+    /**
+     * Schließt die Anfragen ab, die auf den ersten Snapshot eines Live-Listeners
+     * gewartet haben.
+     */
+    private void completeAwaitingWatch(List<String> chunk, Exception error) {
+        for (String userId : chunk) {
+            if (!awaitingWatch.remove(userId)) {
+                continue;
+            }
+            TaskCompletionSource<UserModel> source = inFlight.remove(userId);
+            if (source == null) {
+                continue;
+            }
+            if (error == null) {
+                source.setResult(cache.get(userId));
+            } else {
+                source.setException(error);
+            }
+        }
+    }
+
+    /**
+     * Registriert einen Listener für Profiländerungen.
+     *
+     * @param listener Der Listener.
+     */
+    public void addListener(ProfileListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Entfernt einen Listener für Profiländerungen.
+     *
+     * @param listener Der Listener.
+     */
+    public void removeListener(ProfileListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Leert den Cache und beendet die Beobachtung, z. B. beim Abmelden. Offene
+     * Anfragen schlagen fehl; ihre Antworten werden nicht mehr übernommen.
+     */
+    public void clear() {
+        generation++;
+        watch(Collections.emptySet());
+        handler.removeCallbacks(flushRunnable);
+        flushScheduled = false;
+        pendingIds.clear();
+        awaitingWatch.clear();
+        List<TaskCompletionSource<UserModel>> sources = new ArrayList<>(inFlight.values());
+        inFlight.clear();
+        for (TaskCompletionSource<UserModel> source : sources) {
+            source.trySetException(new FirebaseFirestoreException("Abgemeldet",
+                    FirebaseFirestoreException.Code.CANCELLED));
+        }
+        cache.evictAll();
+    }
+
+    /**
+     * Plant das Laden der gesammelten IDs für den nächsten Durchlauf des
+     * Main-Threads.
+     */
+    private void scheduleFlush() {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            handler.post(flushRunnable);
+        }
+    }
+
+    /**
+     * Lädt alle gesammelten IDs in Blöcken zu je 30 über whereIn auf die
+     * Dokument-ID.
+     */
+    private void flush() {
+        flushScheduled = false;
+        List<String> ids = new ArrayList<>(pendingIds);
+        pendingIds.clear();
+        int requestGeneration = generation;
+        for (List<String> chunk : chunk(ids)) {
+            users.whereIn(FieldPath.documentId(), chunk).get().addOnCompleteListener(task -> {
+                if (requestGeneration != generation) {
+                    return; // Antwort für ein inzwischen abgemeldetes Konto
+                }
+                if (task.isSuccessful()) {
+                    for (DocumentSnapshot document : task.getResult().getDocuments()) {
+                        UserModel userModel = document.toObject(UserModel.class);
+                        if (userModel != null) {
+                            remember(document.getId(), userModel);
+                        }
+                    }
+                }
+                // Alle wartenden Anfragen des Blocks abschließen, auch bei Fehlern oder
+                // nicht vorhandenen Benutzern
+                for (String userId : chunk) {
+                    TaskCompletionSource<UserModel> source = inFlight.remove(userId);
+                    if (source == null) {
+                        continue;
+                    }
+                    if (task.isSuccessful()) {
+                        source.setResult(cache.get(userId));
+                    } else {
+                        source.setException(task.getException());
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Legt ein geladenes Profil im Cache ab und trägt es in den lokalen
+     * Suchindex ein.
+     */
+    private void remember(String userId, UserModel userModel) {
+        cache.put(userId, userModel);
+        UserSearchIndex.getInstance().put(userModel);
+    }
+
+    /**
+     * Prüft, ob sich die angezeigten Felder eines Profils geändert haben.
+     */
+    private static boolean hasChanged(UserModel oldModel, UserModel newModel) {
+        if (oldModel == null) {
+            return true;
+        }
+        return !Objects.equals(oldModel.getUsername(), newModel.getUsername())
+                || !Objects.equals(oldModel.getFcmToken(), newModel.getFcmToken())
+                || !Objects.equals(oldModel.getPhone(), newModel.getPhone())
+                || oldModel.getProfilePicVersion() != newModel.getProfilePicVersion();
+    }
+
+    /**
+     * Teilt eine Liste von IDs in Blöcke, die in eine whereIn-Abfrage passen.
+     */
+    private static List<List<String>> chunk(List<String> ids) {
+        List<List<String>> chunks = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += MAX_IDS_PER_QUERY) {
+            chunks.add(new ArrayList<>(ids.subList(i, Math.min(i + MAX_IDS_PER_QUERY, ids.size()))));
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.hochschule_koblenz_chat_app.utils;
+
+import com.example.hochschule_koblenz_chat_app.model.ChatroomModel;
+import com.example.hochschule_koblenz_chat_app.model.UserModel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Der UserSearchIndex ist ein lokaler Suchindex über die Benutzernamen aller
+ * bekannten Benutzer (Chatpartner und frühere Suchergebnisse). Er ist als
+ * Präfixbaum (Trie) aufgebaut und beantwortet Präfixsuchen ohne
+ * Netzwerkzugriff.
+ *
+ * Die Namen werden normalisiert (Kleinschreibung, ohne Akzente) und sowohl als
+ * Ganzes als auch je Wort eingetragen, sodass "mül" sowohl "Müller" als auch
+ * "Anna Müller" findet. Der Index wird vom UserProfileRepository laufend mit
+ * jedem geladenen oder geänderten Profil ergänzt, die Chatpartner kommen mit
+ * ihrem im Chatroom hinterlegten Namen aus der Chatliste hinzu.
+ *
+ * Alle Methoden müssen auf dem Main-Thread aufgerufen werden.
+ *
+ * @autor: Mohamed Bebba
+ */
+public class UserSearchIndex {
+
+    private static UserSearchIndex instance;
+
+    private Node root = new Node();
+    // Eingetragene Benutzer und ihre indizierten Schlüssel, für Aktualisierungen
+    private final Map<String, UserModel> users = new HashMap<>();
+    private final Map<String, List<String>> keysByUser = new HashMap<>();
+
+    /**
+     * Gibt die gemeinsame Instanz zurück.
+     *
+     * @return Die UserSearchIndex-Instanz.
+     */
+    public static synchronized UserSearchIndex getInstance() {
+        if (instance == null) {
+            instance = new UserSearchIndex();
+        }
+        return instance;
+    }
+
+    /**
+     * Normalisiert einen Text für die Suche: Kleinschreibung, ohne Akzente und
+     * mit einzelnen Leerzeichen zwischen Wörtern.
+     *
+     * @param text Der Text; null ergibt einen leeren Text.
+     * @return Der normalisierte Text.
+     */
+    public static String normalize(String text) {
+        return SearchKeywords.normalize(text);
+    }
+
+    /**
+     * Trägt einen Benutzer ein oder aktualisiert ihn nach einer Namensänderung.
+     *
+     * @param user Der Benutzer.
+     */
+    public void put(UserModel user) {
+        if (user == null || user.getUserId() == null) {
+            return;
+        }
+        String userId = user.getUserId();
+        List<String> keys = keysFor(user.getUsername());
+        List<String> oldKeys = keysByUser.get(userId);
+        users.put(userId, user);
+        if (keys.equals(oldKeys)) {
+            return;
+        }
+        if (oldKeys != null) {
+            for (String key : oldKeys) {
+                Node node = find(key);
+                if (node != null && node.userIds != null) {
+                    node.userIds.remove(userId);
+                }
+            }
+        }
+        for (String key : keys) {
+            insert(key, userId);
+        }
+        keysByUser.put(userId, keys);
+    }
+
+    /**
+     * Trägt die Chatpartner eines Chatrooms mit ihrem dort hinterlegten Namen
+     * und ihrer Profilbildversion ein. Benutzer, deren vollständiges Profil
+     * bereits eingetragen ist, bleiben unverändert.
+     *
+     * @param chatroom      Der Chatroom.
+     * @param currentUserId Die Benutzer-ID des aktuellen Benutzers, der nicht
+     *                      eingetragen wird.
+     */
+    public void putParticipants(ChatroomModel chatroom, String currentUserId) {
+        Map<String, String> names = chatroom.getParticipantNames();
+        if (names == null) {
+            return;
+        }
+        Map<String, Long> picVersions = chatroom.getParticipantPicVersions();
+        for (Map.Entry<String, String> entry : names.entrySet()) {
+            String userId = entry.getKey();
+            UserModel known = users.get(userId);
+            if (userId.equals(currentUserId) || known != null && known.getPhone() != null) {
+                continue;
+            }
+            // Nur Name und Profilbildversion sind bekannt
+            UserModel user = new UserModel(null, entry.getValue(), null, userId);
+            Long picVersion = picVersions == null ? null : picVersions.get(userId);
+            user.setProfilePicVersion(picVersion == null ? 0 : picVersion);
+            put(user);
+        }
+    }
+
+    /**
+     * Sucht alle bekannten Benutzer, deren Name oder eines der Wörter im Namen
+     * mit dem Suchbegriff beginnt.
+     *
+     * @param query Der eingegebene Suchbegriff.
+     * @param limit Die maximale Anzahl an Ergebnissen.
+     * @return Die gefundenen Benutzer in alphabetischer Reihenfolge der
+     *         Schlüssel; leer bei leerem Suchbegriff.
+     */
+    public List<UserModel> search(String query, int limit) {
+        String prefix = normalize(query);
+        if (prefix.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Node node = find(prefix);
+        if (node == null) {
+            return Collections.emptyList();
+        }
+        Set<String> found = new LinkedHashSet<>();
+        collect(node, found, limit);
+        List<UserModel> result = new ArrayList<>(found.size());
+        for (String userId : found) {
+            result.add(users.get(userId));
+        }
+        return result;
+    }
+
+    /**
+     * Entfernt alle Benutzer, z. B. beim Abmelden, damit ein anderes Konto nicht
+     * die Kontakte des vorherigen findet.
+     */
+    public void clear() {
+        root = new Node();
+        users.clear();
+        keysByUser.clear();
+    }
+
+    /**
+     * Gibt die Anzahl eingetragener Benutzer zurück.
+     *
+     * @return Die Anzahl der Benutzer.
+     */
+    public int size() {
+        return users.size();
+    }
+
+    /**
+     * Bildet die Schlüssel eines Namens: den ganzen normalisierten Namen und
+     * jedes weitere Wort ab seinem Anfang.
+     */
+    private static List<String> keysFor(String username) {
+        String name = normalize(username);
+        if (name.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Set<String> keys = new LinkedHashSet<>();
+        keys.add(name);
+        for (int i = name.indexOf(' '); i >= 0; i = name.indexOf(' ', i + 1)) {
+            keys.add(name.substring(i + 1));
+        }
+        return new ArrayList<>(keys);
+    }
+
+    private void insert(String key, String userId) {
+        Node node = root;
+        for (int i = 0; i < key.length(); i++) {
+            node = node.childOrCreate(key.charAt(i));
+        }
+        if (node.userIds == null) {
+            node.userIds = new LinkedHashSet<>();
+        }
+        node.userIds.add(userId);
+    }
+
+    private Node find(String prefix) {
+        Node node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.child(prefix.charAt(i));
+        }
+        return node;
+    }
+
+    /**
+     * Sammelt die Benutzer eines Teilbaums in Tiefensuche, bis das Limit erreicht
+     * ist.
+     */
+    private static void collect(Node node, Set<String> found, int limit) {
+        if (node.userIds != null) {
+            for (String userId : node.userIds) {
+                if (found.size() >= limit) {
+                    return;
+                }
+                found.add(userId);
+            }
+        }
+        for (int i = 0; i < node.childCount && found.size() < limit; i++) {
+            collect(node.children[i], found, limit);
+        }
+    }
+
+    /**
+     * Ein Knoten des Präfixbaums. Die Kinder liegen nach Zeichen sortiert in
+     * einem Array, damit die Suche ohne Boxing auskommt.
+     */
+    private static class Node {
+        char[] chars = new char[0];
+        Node[] children = new Node[0];
+        int childCount = 0;
+        // Benutzer, deren Schlüssel in diesem Knoten endet
+        Set<String> userIds;
+
+        Node child(char c) {
+            int index = Arrays.binarySearch(chars, 0, childCount, c);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node childOrCreate(char c) {
+            int index = Arrays.binarySearch(chars, 0, childCount, c);
+            if (index >= 0) {
+                return children[index];
+            }
+            int insertAt = -index - 1;
+            if (childCount == chars.length) {
+                int capacity = Math.max(2, childCount * 2);
+                chars = Arrays.copyOf(chars, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            System.arraycopy(chars, insertAt, chars, insertAt + 1, childCount - insertAt);
+            System.arraycopy(children, insertAt, children, insertAt + 1, childCount - insertAt);
+            Node node = new Node();
+            chars[insertAt] = c;
+            children[insertAt] = node;
+            childCount++;
+            return node;
+        }
+    }
+}
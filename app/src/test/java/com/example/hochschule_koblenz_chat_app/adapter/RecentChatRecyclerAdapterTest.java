@@ -0,0 +1,118 @@
+package com.example.hochschule_koblenz_chat_app.adapter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import android.content.Context;
+import android.view.ContextThemeWrapper;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import com.example.hochschule_koblenz_chat_app.R;
+import com.example.hochschule_koblenz_chat_app.model.ChatroomModel;
+import com.example.hochschule_koblenz_chat_app.utils.UserProfileRepository;
+import com.google.firebase.Timestamp;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Tests für das Binden einer Zeile der Chatliste.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class RecentChatRecyclerAdapterTest {
+
+    private RecentChatRecyclerAdapter adapter;
+    private RecentChatRecyclerAdapter.ChatroomModelViewHolder holder;
+
+    @Before
+    public void setUp() {
+        Context context = new ContextThemeWrapper(RuntimeEnvironment.getApplication(),
+                R.style.Theme_Hochschule_Koblenz_Chat_App);
+        adapter = new RecentChatRecyclerAdapter(context, "alice", mock(UserProfileRepository.class));
+
+        ChatroomModel chatroom = new ChatroomModel("alice_bob", Arrays.asList("alice", "bob"),
+                Timestamp.now(), "alice");
+        chatroom.setLastMessage("Bis gleich im Hörsaal");
+        chatroom.setUnreadCounts(Collections.singletonMap("alice", 3L));
+        chatroom.setParticipantNames(Collections.singletonMap("bob", "Bob"));
+        chatroom.setParticipantPicVersions(Collections.singletonMap("bob", 2L));
+        // Ein neuer Chat ohne Nachricht und damit ohne Zeitstempel
+        ChatroomModel empty = new ChatroomModel("alice_carol", Arrays.asList("alice", "carol"), null, null);
+        empty.setParticipantNames(Collections.singletonMap("carol", "Carol"));
+        empty.setParticipantPicVersions(Collections.singletonMap("carol", 1L));
+        adapter.submitList(Arrays.asList(chatroom, empty));
+
+        View row = LayoutInflater.from(context).inflate(R.layout.recent_chat_recycler_row,
+                new FrameLayout(context), false);
+        holder = new RecentChatRecyclerAdapter.ChatroomModelViewHolder(row);
+        // Die Zeile zeigt bereits diesen Chat und sein Profilbild, sodass beim
+        // Binden kein Bild geladen wird
+        holder.otherUserId = "bob";
+        holder.picUserId = "bob";
+        holder.picVersion = 2;
+    }
+
+    @Test
+    public void bindsParticipantAndLastMessage() {
+        adapter.onBindViewHolder(holder, 0);
+
+        assertEquals("Bob", holder.usernameText.getText().toString());
+        assertEquals("Du : Bis gleich im Hörsaal", holder.lastMessageText.getText().toString());
+        assertEquals("3", holder.unreadCountText.getText().toString());
+        assertEquals(View.VISIBLE, holder.unreadCountText.getVisibility());
+    }
+
+    @Test
+    public void clearsTimeOfPreviousChat() {
+        adapter.onBindViewHolder(holder, 0);
+        assertNotEquals("", holder.lastMessageTime.getText().toString());
+
+        holder.otherUserId = "carol";
+        holder.picUserId = "carol";
+        holder.picVersion = 1;
+        adapter.onBindViewHolder(holder, 1);
+
+        assertEquals("Carol", holder.usernameText.getText().toString());
+        assertEquals("", holder.lastMessageTime.getText().toString());
+        assertEquals(View.GONE, holder.unreadCountText.getVisibility());
+    }
+
+    @Test
+    public void itemIdsAreStableAndDistinct() {
+        long first = adapter.getItemId(0);
+
+        assertNotEquals(first, adapter.getItemId(1));
+        assertEquals(first, adapter.getItemId(0));
+    }
+
+    @Test
+    public void rebindingDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        // Aufwärmen, damit Puffer, Zeitformat und JIT feststehen
+        for (int i = 0; i < 10_000; i++) {
+            adapter.onBindViewHolder(holder, 0);
+        }
+
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100_000; i++) {
+            adapter.onBindViewHolder(holder, 0);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertTrue("Beim Binden wurden " + allocated + " Bytes allokiert", allocated < 1024);
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.hochschule_koblenz_chat_app.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.LifecycleRegistry;
+
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.EventListener;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.MetadataChanges;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests für das Verwerfen der aus dem Live-Fenster gerutschten Nachrichten im
+ * ChatHistoryPager gegen eine gemockte Query.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ChatHistoryPagerTest implements LifecycleOwner {
+
+    private static final int PAGE_SIZE = ChatHistoryPager.PAGE_SIZE;
+
+    private final LifecycleRegistry lifecycle = new LifecycleRegistry(this);
+    private final List<DocumentSnapshot> published = new ArrayList<>();
+    private Query query;
+    private EventListener<QuerySnapshot> liveListener;
+    private ChatHistoryPager pager;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        query = mock(Query.class);
+        Query liveQuery = mock(Query.class);
+        when(query.limit(PAGE_SIZE)).thenReturn(liveQuery);
+        when(liveQuery.addSnapshotListener(any(MetadataChanges.class), any()))
+                .thenReturn(mock(ListenerRegistration.class));
+
+        pager = new ChatHistoryPager(query, messages -> {
+            published.clear();
+            published.addAll(messages);
+        });
+        lifecycle.handleLifecycleEvent(Lifecycle.Event.ON_START);
+        pager.start(this);
+
+        ArgumentCaptor<EventListener<QuerySnapshot>> captor = ArgumentCaptor.forClass(EventListener.class);
+        verify(liveQuery).addSnapshotListener(any(MetadataChanges.class), captor.capture());
+        liveListener = captor.getValue();
+    }
+
+    @NonNull
+    @Override
+    public Lifecycle getLifecycle() {
+        return lifecycle;
+    }
+
+    @Test
+    public void keepsSpilledMessagesWhileNearby() {
+        receiveMessages(PAGE_SIZE + 10);
+
+        assertEquals(PAGE_SIZE + 10, published.size());
+    }
+
+    @Test
+    public void trimsSpilledMessagesFarOffScreen() {
+        // Eine lange Sitzung: 500 Nachrichten sind aus dem Live-Fenster gerutscht
+        int total = PAGE_SIZE + 500;
+        receiveMessages(total);
+        assertEquals(total, published.size());
+
+        pager.trimOlderPages(10);
+
+        // Sichtbarer Bereich plus eine Seite Puffer
+        assertEquals(10 + PAGE_SIZE + 1, published.size());
+        assertEquals("m" + (total - 1), published.get(0).getId());
+    }
+
+    @Test
+    public void reloadsOlderMessagesAfterLastKeptMessage() {
+        receiveMessages(PAGE_SIZE + 500);
+        pager.trimOlderPages(10);
+
+        Query olderQuery = mock(Query.class);
+        when(query.startAfter(any(DocumentSnapshot.class))).thenReturn(olderQuery);
+        when(olderQuery.limit(PAGE_SIZE)).thenReturn(olderQuery);
+        when(olderQuery.get()).thenReturn(new TaskCompletionSource<QuerySnapshot>().getTask());
+        pager.loadOlder();
+
+        verify(query).startAfter(published.get(published.size() - 1));
+    }
+
+    /**
+     * Liefert nacheinander Snapshots des Live-Fensters, während eine Nachricht
+     * nach der anderen eintrifft.
+     */
+    private void receiveMessages(int count) {
+        List<DocumentSnapshot> all = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            DocumentSnapshot document = mock(DocumentSnapshot.class);
+            when(document.getId()).thenReturn("m" + i);
+            all.add(0, document);
+            List<DocumentSnapshot> window = new ArrayList<>(all.subList(0, Math.min(PAGE_SIZE, all.size())));
+            QuerySnapshot snapshot = mock(QuerySnapshot.class);
+            when(snapshot.getDocuments()).thenReturn(window);
+            liveListener.onEvent(snapshot, null);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.hochschule_koblenz_chat_app.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Tests für die Felder der Chatroom-Zusammenfassung.
+ */
+public class ChatroomSummaryTest {
+
+    // Macht die Sonderwerte im Test lesbar
+    private static final ChatroomSummary.FieldValues VALUES = new ChatroomSummary.FieldValues() {
+        @Override
+        public Object increment(long n) {
+            return "+" + n;
+        }
+
+        @Override
+        public Object arrayUnion(Object... elements) {
+            return Arrays.asList(elements);
+        }
+
+        @Override
+        public Object serverTimestamp() {
+            return "now";
+        }
+    };
+
+    @Test
+    public void buildsMergeFieldsForRecipient() {
+        Map<String, Object> summary = ChatroomSummary.build(VALUES, "alice_bob", "alice", "bob", "Hallo", 3);
+
+        assertEquals("alice_bob", summary.get("chatroomId"));
+        assertEquals(Arrays.asList("alice", "bob"), summary.get("userIds"));
+        assertEquals("Hallo", summary.get("lastMessage"));
+        assertEquals("alice", summary.get("lastMessageSenderId"));
+        assertEquals("now", summary.get("lastMessageTimestamp"));
+        assertEquals(Collections.singletonMap("bob", "+3"), summary.get("unreadCounts"));
+    }
+
+    @Test
+    public void leavesParticipantFieldsUntouched() {
+        Map<String, Object> summary = ChatroomSummary.build(VALUES, "alice_bob", "alice", "bob", "Hallo", 1);
+
+        assertFalse(summary.containsKey("participantNames"));
+        assertFalse(summary.containsKey("participantPicVersions"));
+        assertEquals(6, summary.size());
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.hochschule_koblenz_chat_app.utils;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * Tests für die Snapshot-Rate der ListenerRegistry.
+ */
+public class EventRateMeterTest {
+
+    private final ManualClock clock = new ManualClock();
+    private final EventRateMeter meter = new EventRateMeter(clock, 10);
+
+    @Test
+    public void averagesEventsOverTheWindow() {
+        for (int second = 0; second < 5; second++) {
+            meter.record();
+            meter.record();
+            clock.millis += 1000;
+        }
+        assertEquals(1.0, meter.perSecond(), 1e-9);
+        assertEquals(10, meter.total());
+    }
+
+    @Test
+    public void forgetsEventsOlderThanTheWindow() {
+        meter.record();
+        clock.millis += 5_000;
+        meter.record();
+        clock.millis += 6_000;
+        assertEquals(0.1, meter.perSecond(), 1e-9);
+        clock.millis += 10_000;
+        assertEquals(0, meter.perSecond(), 1e-9);
+        assertEquals(2, meter.total());
+    }
+
+    @Test
+    public void reusesSlotsAfterTheWindowHasPassed() {
+        meter.record();
+        clock.millis += 10_000;
+        meter.record();
+        assertEquals(0.1, meter.perSecond(), 1e-9);
+    }
+
+    /**
+     * Eine Uhr, die nur im Test weitergestellt wird.
+     */
+    private static class ManualClock extends Clock {
+        long millis = 1_700_000_000_000L;
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.example.hochschule_koblenz_chat_app.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.LifecycleRegistry;
+
+import com.google.firebase.firestore.EventListener;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.MetadataChanges;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests für das Teilen der Firestore-Listener und ihre Bindung an den
+ * Lebenszyklus gegen eine gemockte Query.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ListenerRegistryTest implements LifecycleOwner {
+
+    private final LifecycleRegistry lifecycle = new LifecycleRegistry(this);
+    private ListenerRegistry registry;
+    private Query query;
+    private ListenerRegistration firestoreRegistration;
+
+    @Before
+    public void setUp() {
+        registry = new ListenerRegistry();
+        query = mock(Query.class);
+        firestoreRegistration = mock(ListenerRegistration.class);
+        when(query.addSnapshotListener(any(MetadataChanges.class), any())).thenReturn(firestoreRegistration);
+    }
+
+    @NonNull
+    @Override
+    public Lifecycle getLifecycle() {
+        return lifecycle;
+    }
+
+    @Test
+    public void subscribersShareOneListener() {
+        ListenerRegistration first = registry.listen(query, new RecordingListener());
+        ListenerRegistration second = registry.listen(query, new RecordingListener());
+
+        verify(query, times(1)).addSnapshotListener(eq(MetadataChanges.EXCLUDE), any());
+        assertEquals(1, registry.getActiveListenerCount());
+        assertEquals(2, registry.getSubscriptionCount());
+
+        first.remove();
+        verify(firestoreRegistration, never()).remove();
+
+        second.remove();
+        verify(firestoreRegistration).remove();
+        assertEquals(0, registry.getActiveListenerCount());
+    }
+
+    @Test
+    public void metadataChangesGetTheirOwnListener() {
+        registry.listen(query, MetadataChanges.EXCLUDE, new RecordingListener());
+        registry.listen(query, MetadataChanges.INCLUDE, new RecordingListener());
+
+        assertEquals(2, registry.getActiveListenerCount());
+    }
+
+    @Test
+    public void snapshotsReachEverySubscriber() {
+        RecordingListener first = new RecordingListener();
+        RecordingListener second = new RecordingListener();
+        registry.listen(query, first);
+        registry.listen(query, second);
+
+        QuerySnapshot snapshot = mock(QuerySnapshot.class);
+        firestoreListener().onEvent(snapshot, null);
+
+        assertEquals(1, first.snapshots.size());
+        assertSame(snapshot, second.snapshots.get(0));
+    }
+
+    @Test
+    public void lateSubscriberReceivesCachedSnapshot() {
+        registry.listen(query, new RecordingListener());
+        QuerySnapshot snapshot = mock(QuerySnapshot.class);
+        firestoreListener().onEvent(snapshot, null);
+
+        RecordingListener late = new RecordingListener();
+        registry.listen(query, late);
+        // Wie bei Firestore kommt der erste Snapshot asynchron
+        assertEquals(0, late.snapshots.size());
+
+        idle();
+        assertSame(snapshot, late.snapshots.get(0));
+    }
+
+    @Test
+    public void removedLateSubscriberGetsNoCachedSnapshot() {
+        registry.listen(query, new RecordingListener());
+        firestoreListener().onEvent(mock(QuerySnapshot.class), null);
+
+        RecordingListener late = new RecordingListener();
+        registry.listen(query, late).remove();
+        idle();
+
+        assertEquals(0, late.snapshots.size());
+    }
+
+    @Test
+    public void errorDropsListenerAndNextSubscriberStartsANewOne() {
+        RecordingListener subscriber = new RecordingListener();
+        ListenerRegistration subscription = registry.listen(query, subscriber);
+
+        FirebaseFirestoreException error = new FirebaseFirestoreException("denied",
+                FirebaseFirestoreException.Code.PERMISSION_DENIED);
+        firestoreListener().onEvent(null, error);
+
+        assertSame(error, subscriber.errors.get(0));
+        assertEquals(0, registry.getActiveListenerCount());
+
+        registry.listen(query, new RecordingListener());
+        verify(query, times(2)).addSnapshotListener(any(MetadataChanges.class), any());
+
+        // Das alte Abonnement darf den neuen Listener nicht entfernen
+        subscription.remove();
+        assertEquals(1, registry.getActiveListenerCount());
+    }
+
+    @Test
+    public void lifecycleBindingFollowsStartAndStop() {
+        registry.listen(this, query, MetadataChanges.EXCLUDE, new RecordingListener());
+        lifecycle.handleLifecycleEvent(Lifecycle.Event.ON_CREATE);
+        assertEquals(0, registry.getActiveListenerCount());
+
+        lifecycle.handleLifecycleEvent(Lifecycle.Event.ON_START);
+        assertEquals(1, registry.getActiveListenerCount());
+
+        lifecycle.handleLifecycleEvent(Lifecycle.Event.ON_STOP);
+        verify(firestoreRegistration).remove();
+        assertEquals(0, registry.getActiveListenerCount());
+
+        lifecycle.handleLifecycleEvent(Lifecycle.Event.ON_START);
+        assertEquals(1, registry.getActiveListenerCount());
+        verify(query, times(2)).addSnapshotListener(any(MetadataChanges.class), any());
+    }
+
+    @Test
+    public void lifecycleBindingEndsWithDestroy() {
+        registry.listen(this, query, MetadataChanges.EXCLUDE, new RecordingListener());
+        lifecycle.handleLifecycleEvent(Lifecycle.Event.ON_START);
+
+        lifecycle.handleLifecycleEvent(Lifecycle.Event.ON_DESTROY);
+
+        assertEquals(0, registry.getActiveListenerCount());
+        assertEquals(0, lifecycle.getObserverCount());
+    }
+
+    @Test
+    public void lifecycleBindingCanBeRemovedEarly() {
+        ListenerRegistration binding = registry.listen(this, query, MetadataChanges.EXCLUDE,
+                new RecordingListener());
+        lifecycle.handleLifecycleEvent(Lifecycle.Event.ON_START);
+
+        binding.remove();
+        lifecycle.handleLifecycleEvent(Lifecycle.Event.ON_STOP);
+        lifecycle.handleLifecycleEvent(Lifecycle.Event.ON_START);
+
+        assertEquals(0, registry.getActiveListenerCount());
+        verify(query, times(1)).addSnapshotListener(any(MetadataChanges.class), any());
+    }
+
+    /**
+     * Gibt den zuletzt bei Firestore registrierten Listener zurück.
+     */
+    @SuppressWarnings("unchecked")
+    private EventListener<QuerySnapshot> firestoreListener() {
+        ArgumentCaptor<EventListener<QuerySnapshot>> captor = ArgumentCaptor.forClass(EventListener.class);
+        verify(query, atLeastOnce()).addSnapshotListener(any(MetadataChanges.class),
+                captor.capture());
+        return captor.getValue();
+    }
+
+    private static void idle() {
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+
+    /**
+     * Hält alle gelieferten Snapshots und Fehler fest.
+     */
+    private static class RecordingListener implements EventListener<QuerySnapshot> {
+        final List<QuerySnapshot> snapshots = new ArrayList<>();
+        final List<FirebaseFirestoreException> errors = new ArrayList<>();
+
+        @Override
+        public void onEvent(QuerySnapshot snapshot, FirebaseFirestoreException e) {
+            if (e != null) {
+                errors.add(e);
+            } else {
+                snapshots.add(snapshot);
+            }
+        }
+    }
+}
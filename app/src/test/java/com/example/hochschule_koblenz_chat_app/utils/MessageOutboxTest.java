@@ -0,0 +1,166 @@
+package com.example.hochschule_koblenz_chat_app.utils;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.example.hochschule_koblenz_chat_app.model.ChatMessageModel;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+/**
+ * Tests für das erneute Senden, das Verwerfen und das Leeren der Outbox gegen
+ * einen gemockten MessageSender.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class MessageOutboxTest {
+
+    private MessageSender sender;
+    private MessageOutbox outbox;
+
+    @Before
+    public void setUp() {
+        sender = mock(MessageSender.class);
+        outbox = new MessageOutbox(RuntimeEnvironment.getApplication(), sender);
+    }
+
+    @After
+    public void tearDown() {
+        outbox.close();
+    }
+
+    @Test
+    public void confirmedMessageIsNotResent() throws InterruptedException {
+        sendReturns(Tasks.forResult(null));
+
+        outbox.enqueue("alice_bob", "bob", "m1", message());
+        await(outbox.drain());
+
+        verifySent(1);
+    }
+
+    @Test
+    public void transientFailureIsResent() throws InterruptedException {
+        sendReturns(failure(FirebaseFirestoreException.Code.UNAVAILABLE));
+
+        outbox.enqueue("alice_bob", "bob", "m1", message());
+        await(outbox.drain());
+
+        verifySent(2);
+    }
+
+    @Test
+    public void permanentFailureIsDropped() throws InterruptedException {
+        sendReturns(failure(FirebaseFirestoreException.Code.PERMISSION_DENIED));
+
+        outbox.enqueue("alice_bob", "bob", "m1", message());
+        await(outbox.drain());
+
+        verifySent(1);
+    }
+
+    @Test
+    public void transientFailuresAreCapped() throws InterruptedException {
+        sendReturns(failure(FirebaseFirestoreException.Code.UNAVAILABLE));
+
+        outbox.enqueue("alice_bob", "bob", "m1", message());
+        // Ein Durchlauf mehr, als Versuche erlaubt sind
+        for (int i = 0; i < MessageOutbox.MAX_SEND_ATTEMPTS; i++) {
+            await(outbox.drain());
+        }
+
+        verifySent(MessageOutbox.MAX_SEND_ATTEMPTS);
+    }
+
+    @Test
+    public void clearDropsMessagesOfPreviousUser() throws InterruptedException {
+        sendReturns(failure(FirebaseFirestoreException.Code.UNAVAILABLE));
+
+        outbox.enqueue("alice_bob", "bob", "m1", message());
+        await(outbox.clear());
+        await(outbox.drain());
+
+        verifySent(1);
+    }
+
+    @Test
+    public void queuedMessageIsLeftToFirestore() throws InterruptedException {
+        // Offline: Der Batch wird an Firestore übergeben, aber nie bestätigt
+        when(sender.send(any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(4)).run();
+            return new TaskCompletionSource<Void>().getTask();
+        });
+        outbox.enqueue("alice_bob", "bob", "m1", message());
+        await(outbox.drain());
+
+        // Neustart: Firestore sendet den Batch selbst, die Outbox darf ihn nicht
+        // erneut übergeben
+        outbox.close();
+        MessageSender restarted = mock(MessageSender.class);
+        when(restarted.waitForPendingWrites()).thenReturn(Tasks.forResult(null));
+        outbox = new MessageOutbox(RuntimeEnvironment.getApplication(), restarted);
+        await(outbox.drain());
+        await(outbox.drain());
+
+        verify(restarted, never()).send(any(), any(), any(), any(), any());
+        // Nach der Bestätigung durch Firestore ist die Nachricht entfernt
+        verify(restarted, times(1)).waitForPendingWrites();
+    }
+
+    @Test
+    public void classifiesFailures() {
+        assertTrue(MessageOutbox.isPermanent(exception(FirebaseFirestoreException.Code.PERMISSION_DENIED)));
+        assertTrue(MessageOutbox.isPermanent(exception(FirebaseFirestoreException.Code.INVALID_ARGUMENT)));
+        assertFalse(MessageOutbox.isPermanent(exception(FirebaseFirestoreException.Code.UNAVAILABLE)));
+        assertFalse(MessageOutbox.isPermanent(exception(FirebaseFirestoreException.Code.ABORTED)));
+        assertFalse(MessageOutbox.isPermanent(new IllegalStateException()));
+    }
+
+    private void sendReturns(Task<Void> result) {
+        when(sender.send(any(), any(), any(), any(), any())).thenReturn(result);
+    }
+
+    private void verifySent(int times) {
+        verify(sender, times(times)).send(eq("alice_bob"), eq("bob"), eq("m1"), any(ChatMessageModel.class),
+                any());
+    }
+
+    private static ChatMessageModel message() {
+        return new ChatMessageModel("Hallo", "alice", new Timestamp(100, 0));
+    }
+
+    private static Task<Void> failure(FirebaseFirestoreException.Code code) {
+        return Tasks.forException(exception(code));
+    }
+
+    private static FirebaseFirestoreException exception(FirebaseFirestoreException.Code code) {
+        return new FirebaseFirestoreException(code.name(), code);
+    }
+
+    /**
+     * Wartet auf einen Task des Outbox-Executors; Tasks.await ist auf dem
+     * Main-Thread des Tests nicht erlaubt.
+     */
+    private static <T> T await(Task<T> task) throws InterruptedException {
+        while (!task.isComplete()) {
+            Thread.sleep(5);
+        }
+        return task.getResult();
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.hochschule_koblenz_chat_app.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.SQLiteMode;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests für die Abfragebildung und die Gewichtung der Nachrichtensuche sowie
+ * für Eintragen, Suchen und Leeren gegen eine echte SQLite-Datenbank.
+ */
+@RunWith(RobolectricTestRunner.class)
+@SQLiteMode(SQLiteMode.Mode.NATIVE)
+public class MessageSearchIndexTest {
+
+    private MessageSearchIndex index;
+
+    @Before
+    public void setUp() {
+        index = new MessageSearchIndex(RuntimeEnvironment.getApplication());
+    }
+
+    @After
+    public void tearDown() {
+        index.close();
+    }
+
+    @Test
+    public void matchQuerySearchesEveryWordAsPrefix() {
+        assertEquals("treffen* morgen*", MessageSearchIndex.toMatchQuery("Treffen morgen"));
+        assertEquals("mensa* or* 12*", MessageSearchIndex.toMatchQuery("  \"mensa\" OR-12 "));
+        assertEquals("", MessageSearchIndex.toMatchQuery("*?!"));
+        assertEquals("", MessageSearchIndex.toMatchQuery(null));
+    }
+
+    @Test
+    public void rareTermsWeighMoreThanCommonTerms() {
+        // p = 1, c = 1, n = 100 Zeilen, a = 10 Wörter, l = 10 Wörter,
+        // x = Treffer in dieser Zeile, Treffer gesamt, Zeilen mit Treffer
+        int[] rare = { 1, 1, 100, 10, 10, 1, 2, 2 };
+        int[] common = { 1, 1, 100, 10, 10, 1, 80, 80 };
+        assertTrue(MessageSearchIndex.bm25(rare) > MessageSearchIndex.bm25(common));
+    }
+
+    @Test
+    public void shortMessagesWithMoreHitsWeighMore() {
+        int[] shortMessage = { 1, 1, 100, 10, 4, 2, 10, 5 };
+        int[] longMessage = { 1, 1, 100, 10, 40, 1, 10, 5 };
+        assertTrue(MessageSearchIndex.bm25(shortMessage) > MessageSearchIndex.bm25(longMessage));
+        assertEquals(0, MessageSearchIndex.bm25(new int[] { 1, 1, 100, 10, 10, 0, 10, 5 }), 0);
+    }
+
+    @Test
+    public void findsIndexedMessagesByPrefix() throws InterruptedException {
+        index.index("alice_bob", "bob", Arrays.asList(
+                message("m1", "bob", "Treffen wir uns morgen in der Mensa?", 100),
+                message("m2", "alice", "Gern, um zwölf vor dem Eingang", 101),
+                message("m3", "bob", "Die Klausur war schwer", 102)));
+
+        List<MessageSearchIndex.Hit> hits = await(index.search("mens", 10));
+
+        assertEquals(1, hits.size());
+        MessageSearchIndex.Hit hit = hits.get(0);
+        assertEquals("m1", hit.messageId);
+        assertEquals("alice_bob", hit.chatroomId);
+        assertEquals("bob", hit.otherUserId);
+        assertEquals("bob", hit.senderId);
+        assertEquals(new Timestamp(100, 0), hit.timestamp);
+        assertTrue(hit.snippet, hit.snippet.contains(
+                MessageSearchIndex.MATCH_START + "Mensa" + MessageSearchIndex.MATCH_END));
+        assertTrue(hit.score > 0);
+    }
+
+    @Test
+    public void ignoresDiacriticsAndRanksByMatchinfo() throws InterruptedException {
+        index.index("alice_bob", "bob", Arrays.asList(
+                message("m1", "bob", "Grüße an Müller und alle anderen aus dem Kurs von gestern", 100),
+                message("m2", "bob", "Müller Müller", 101),
+                message("m3", "bob", "Nichts davon", 102)));
+
+        List<MessageSearchIndex.Hit> hits = await(index.search("muller", 10));
+
+        assertEquals(2, hits.size());
+        // Die kurze Nachricht mit zwei Treffern wiegt mehr
+        assertEquals("m2", hits.get(0).messageId);
+        assertTrue(hits.get(0).score > hits.get(1).score);
+    }
+
+    @Test
+    public void indexesEachMessageOnce() throws InterruptedException {
+        DocumentSnapshot document = message("m1", "bob", "Mensa", 100);
+        index.index("alice_bob", "bob", Collections.singletonList(document));
+        index.index("alice_bob", "bob", Collections.singletonList(document));
+
+        assertEquals(1, await(index.search("mensa", 10)).size());
+    }
+
+    @Test
+    public void clearRemovesAllMessages() throws InterruptedException {
+        DocumentSnapshot document = message("m1", "bob", "Mensa", 100);
+        index.index("alice_bob", "bob", Collections.singletonList(document));
+        await(index.clear());
+
+        assertTrue(await(index.search("mensa", 10)).isEmpty());
+
+        // Nach dem Leeren wird dieselbe Nachricht wieder eingetragen
+        index.index("alice_bob", "bob", Collections.singletonList(document));
+        assertEquals(1, await(index.search("mensa", 10)).size());
+    }
+
+    private static DocumentSnapshot message(String id, String senderId, String text, long seconds) {
+        DocumentSnapshot document = mock(DocumentSnapshot.class);
+        when(document.getId()).thenReturn(id);
+        when(document.getString("message")).thenReturn(text);
+        when(document.getString("senderId")).thenReturn(senderId);
+        when(document.getTimestamp("timestamp")).thenReturn(new Timestamp(seconds, 0));
+        return document;
+    }
+
+    /**
+     * Wartet auf einen Task des Index-Executors; Tasks.await ist auf dem
+     * Main-Thread des Tests nicht erlaubt.
+     */
+    private static <T> T await(Task<T> task) throws InterruptedException {
+        while (!task.isComplete()) {
+            Thread.sleep(5);
+        }
+        return task.getResult();
+    }
+}
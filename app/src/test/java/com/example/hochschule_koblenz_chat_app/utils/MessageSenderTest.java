@@ -0,0 +1,175 @@
+package com.example.hochschule_koblenz_chat_app.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.when;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import com.example.hochschule_koblenz_chat_app.model.ChatMessageModel;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.WriteBatch;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.Invocation;
+import org.robolectric.RobolectricTestRunner;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.List;
+
+/**
+ * Tests für das Bündeln der Nachrichten im MessageSender gegen eine gemockte
+ * Firestore-Instanz, die jeden WriteBatch festhält.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class MessageSenderTest {
+
+    private final List<WriteBatch> batches = new ArrayList<>();
+    private Task<Void> commitResult = Tasks.forResult(null);
+    private MessageSender sender;
+
+    @Before
+    public void setUp() {
+        FirebaseFirestore firestore = mock(FirebaseFirestore.class);
+        CollectionReference chatrooms = mock(CollectionReference.class);
+        DocumentReference chatroom = mock(DocumentReference.class);
+        CollectionReference chats = mock(CollectionReference.class);
+        when(firestore.collection("chatrooms")).thenReturn(chatrooms);
+        when(chatrooms.document(anyString())).thenReturn(chatroom);
+        when(chatroom.collection("chats")).thenReturn(chats);
+        when(chats.document(anyString())).thenReturn(mock(DocumentReference.class));
+        when(firestore.batch()).thenAnswer(invocation -> {
+            WriteBatch batch = mock(WriteBatch.class);
+            when(batch.commit()).thenAnswer(commit -> commitResult);
+            batches.add(batch);
+            return batch;
+        });
+        sender = new MessageSender(firestore, new Handler(Looper.getMainLooper()));
+    }
+
+    @Test
+    public void coalescesMessagesWithinWindow() {
+        List<Task<Void>> tasks = new ArrayList<>();
+        tasks.add(sender.send("alice_bob", "bob", "m1", message("Hallo")));
+        tasks.add(sender.send("alice_bob", "bob", "m2", message("Wie geht's?")));
+        tasks.add(sender.send("alice_carol", "carol", "m3", message("Hi")));
+
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(MessageSender.BATCH_WINDOW_MS));
+
+        assertEquals(1, batches.size());
+        // Drei Nachrichten und je eine Zusammenfassung für zwei Chatrooms
+        assertEquals(5, writesOf(batches.get(0)));
+        for (Task<Void> task : tasks) {
+            assertTrue(task.isSuccessful());
+        }
+    }
+
+    @Test
+    public void summariesCountAgainstBatchLimit() {
+        // Jede Nachricht in einem eigenen Chatroom benötigt zwei Schreibvorgänge
+        int messages = MessageSender.MAX_WRITES_PER_BATCH;
+        List<Task<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < messages; i++) {
+            tasks.add(sender.send("room" + i, "user" + i, "m" + i, message("Nachricht " + i)));
+        }
+        sender.flush();
+        shadowOf(Looper.getMainLooper()).idle();
+
+        int total = 0;
+        for (WriteBatch batch : batches) {
+            int writes = writesOf(batch);
+            assertTrue("Batch mit " + writes + " Schreibvorgängen", writes <= MessageSender.MAX_WRITES_PER_BATCH);
+            total += writes;
+        }
+        assertEquals(2 * messages, total);
+        assertEquals(2, batches.size());
+        for (Task<Void> task : tasks) {
+            assertTrue(task.isSuccessful());
+        }
+    }
+
+    @Test
+    public void oddWriteCountStartsNewBatchBeforeOverflow() {
+        // 499 Schreibvorgänge: 498 Nachrichten in einem Chatroom plus Zusammenfassung
+        for (int i = 0; i < MessageSender.MAX_WRITES_PER_BATCH - 2; i++) {
+            sender.send("alice_bob", "bob", "m" + i, message("Nachricht " + i));
+        }
+        // Ein neuer Chatroom bräuchte zwei weitere Schreibvorgänge
+        sender.send("alice_carol", "carol", "c1", message("Hi"));
+        sender.flush();
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertEquals(2, batches.size());
+        assertEquals(MessageSender.MAX_WRITES_PER_BATCH - 1, writesOf(batches.get(0)));
+        assertEquals(2, writesOf(batches.get(1)));
+    }
+
+    @Test
+    public void failedCommitFailsEveryMessage() {
+        commitResult = Tasks.forException(new FirebaseFirestoreException("denied",
+                FirebaseFirestoreException.Code.PERMISSION_DENIED));
+        Task<Void> first = sender.send("alice_bob", "bob", "m1", message("Hallo"));
+        Task<Void> second = sender.send("alice_bob", "bob", "m2", message("Hallo?"));
+        sender.flush();
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertFalse(first.isSuccessful());
+        assertFalse(second.isSuccessful());
+    }
+
+    @Test
+    public void reportsWhenBatchIsHandedToFirestore() {
+        AtomicInteger queued = new AtomicInteger();
+        commitResult = new TaskCompletionSource<Void>().getTask();
+        sender.send("alice_bob", "bob", "m1", message("Hallo"), queued::incrementAndGet);
+        assertEquals(0, queued.get());
+
+        // Offline wird der Batch übergeben, aber nicht bestätigt
+        sender.flush();
+        assertEquals(1, queued.get());
+    }
+
+    @Test
+    public void eachSenderGetsOwnSummary() {
+        sender.send("alice_bob", "bob", "m1", message("Hallo"));
+        sender.send("alice_bob", "alice", "m2", new ChatMessageModel("Hi", "bob", Timestamp.now()));
+        sender.flush();
+
+        // Zwei Nachrichten und je eine Zusammenfassung pro Absender
+        assertEquals(4, writesOf(batches.get(0)));
+    }
+
+    private static ChatMessageModel message(String text) {
+        return new ChatMessageModel(text, "alice", Timestamp.now());
+    }
+
+    /**
+     * Zählt die Schreibvorgänge eines Batches (alle Aufrufe außer commit).
+     */
+    private static int writesOf(WriteBatch batch) {
+        int writes = 0;
+        for (Invocation invocation : mockingDetails(batch).getInvocations()) {
+            if (!invocation.getMethod().getName().equals("commit")) {
+                writes++;
+            }
+        }
+        return writes;
+    }
+}
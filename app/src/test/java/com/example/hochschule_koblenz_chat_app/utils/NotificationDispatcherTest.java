@@ -0,0 +1,105 @@
+package com.example.hochschule_koblenz_chat_app.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+/**
+ * Tests für den NotificationDispatcher gegen einen lokalen MockWebServer.
+ */
+public class NotificationDispatcherTest {
+
+    private MockWebServer server;
+    private ScheduledExecutorService scheduler;
+    private NotificationDispatcher dispatcher;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        dispatcher = new NotificationDispatcher(new OkHttpClient(), server.url("/fcm/send"), "Bearer test",
+                scheduler, new Random(42), 50, 10);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        scheduler.shutdownNow();
+        server.shutdown();
+    }
+
+    @Test
+    public void coalescesNotificationsForSameRecipient() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(200));
+
+        dispatcher.dispatch("token-a", "{\"body\":\"first\"}");
+        dispatcher.dispatch("token-a", "{\"body\":\"second\"}");
+
+        RecordedRequest request = server.takeRequest(2, TimeUnit.SECONDS);
+        assertEquals("{\"body\":\"second\"}", request.getBody().readUtf8());
+        assertEquals("Bearer test", request.getHeader("Authorization"));
+        awaitCount(dispatcher::getSuccessCount, 1);
+        assertNull(server.takeRequest(200, TimeUnit.MILLISECONDS));
+        assertEquals(1, dispatcher.getCoalescedCount());
+    }
+
+    @Test
+    public void retriesServerErrorsUntilSuccess() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(503));
+        server.enqueue(new MockResponse().setResponseCode(500));
+        server.enqueue(new MockResponse().setResponseCode(200));
+
+        dispatcher.dispatch("token-b", "{}");
+
+        awaitCount(dispatcher::getSuccessCount, 1);
+        assertEquals(3, server.getRequestCount());
+        assertEquals(2, dispatcher.getRetryCount());
+        assertEquals(0, dispatcher.getFailureCount());
+    }
+
+    @Test
+    public void givesUpAfterMaxAttempts() throws Exception {
+        for (int i = 0; i < NotificationDispatcher.MAX_ATTEMPTS; i++) {
+            server.enqueue(new MockResponse().setResponseCode(500));
+        }
+
+        dispatcher.dispatch("token-c", "{}");
+
+        awaitCount(dispatcher::getFailureCount, 1);
+        assertEquals(NotificationDispatcher.MAX_ATTEMPTS, server.getRequestCount());
+        assertEquals(0, dispatcher.getSuccessCount());
+    }
+
+    @Test
+    public void doesNotRetryClientErrors() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(400));
+
+        dispatcher.dispatch("token-d", "{}");
+
+        awaitCount(dispatcher::getFailureCount, 1);
+        assertEquals(1, server.getRequestCount());
+        assertEquals(0, dispatcher.getRetryCount());
+    }
+
+    private static void awaitCount(LongSupplier counter, long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (counter.getAsLong() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, counter.getAsLong());
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.hochschule_koblenz_chat_app.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Looper;
+
+import com.example.hochschule_koblenz_chat_app.model.ChatroomModel;
+import com.example.hochschule_koblenz_chat_app.model.UserModel;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.WriteBatch;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests für den ParticipantFanOut gegen gemockte Firestore-Referenzen.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ParticipantFanOutTest {
+
+    private static final FieldPath ALICE_NAME = FieldPath.of(ParticipantFanOut.NAMES_FIELD, "alice");
+    private static final FieldPath ALICE_PIC = FieldPath.of(ParticipantFanOut.PIC_VERSIONS_FIELD, "alice");
+
+    private FirebaseFirestore firestore;
+    private CollectionReference chatrooms;
+    private DocumentReference chatroomReference;
+    private ParticipantFanOut fanOut;
+
+    @Before
+    public void setUp() {
+        firestore = mock(FirebaseFirestore.class);
+        chatrooms = mock(CollectionReference.class);
+        chatroomReference = mock(DocumentReference.class);
+        when(firestore.collection("chatrooms")).thenReturn(chatrooms);
+        when(chatrooms.document("alice_bob")).thenReturn(chatroomReference);
+        fanOut = new ParticipantFanOut(firestore, () -> "alice");
+    }
+
+    @Test
+    public void refreshNeverWritesAnotherParticipant() {
+        fanOut.refresh("alice_bob", chatroom(), user("bob", "Bob (alt)", 1));
+
+        verifyNoInteractions(firestore);
+    }
+
+    @Test
+    public void refreshWritesOwnStaleEntry() {
+        ChatroomModel chatroom = chatroom();
+        chatroom.setParticipantNames(Collections.singletonMap("alice", "Alice"));
+        chatroom.setParticipantPicVersions(Collections.singletonMap("alice", 2L));
+
+        fanOut.refresh("alice_bob", chatroom, user("alice", "Alice", 3));
+
+        verify(chatroomReference).update(ALICE_NAME, "Alice", ALICE_PIC, 3L);
+    }
+
+    @Test
+    public void refreshSkipsCurrentEntry() {
+        ChatroomModel chatroom = chatroom();
+        chatroom.setParticipantNames(Collections.singletonMap("alice", "Alice"));
+        chatroom.setParticipantPicVersions(Collections.singletonMap("alice", 3L));
+
+        fanOut.refresh("alice_bob", chatroom, user("alice", "Alice", 3));
+
+        verifyNoInteractions(firestore);
+    }
+
+    @Test
+    public void fanOutWritesOneBatchPerPage() {
+        Query firstPage = mock(Query.class);
+        Query secondPage = mock(Query.class);
+        Query byUser = mock(Query.class);
+        Query ordered = mock(Query.class);
+        when(chatrooms.whereArrayContains("userIds", "alice")).thenReturn(byUser);
+        when(byUser.orderBy(FieldPath.documentId())).thenReturn(ordered);
+        when(ordered.limit(ParticipantFanOut.BATCH_SIZE)).thenReturn(firstPage);
+
+        List<DocumentSnapshot> full = documents(ParticipantFanOut.BATCH_SIZE);
+        List<DocumentSnapshot> rest = documents(3);
+        when(firstPage.get()).thenReturn(Tasks.forResult(snapshot(full)));
+        when(firstPage.startAfter(full.get(full.size() - 1))).thenReturn(secondPage);
+        when(secondPage.get()).thenReturn(Tasks.forResult(snapshot(rest)));
+
+        WriteBatch batch = mock(WriteBatch.class);
+        when(firestore.batch()).thenReturn(batch);
+        when(batch.commit()).thenReturn(Tasks.forResult(null));
+
+        Task<Integer> task = fanOut.fanOut(user("alice", "Alice", 3));
+        shadowOf(Looper.getMainLooper()).idle();
+
+        assertTrue(task.isSuccessful());
+        assertEquals(ParticipantFanOut.BATCH_SIZE + 3, (int) task.getResult());
+        verify(batch, times(2)).commit();
+        verify(batch, times(ParticipantFanOut.BATCH_SIZE + 3)).update(any(DocumentReference.class),
+                eq(ALICE_NAME), eq("Alice"), eq(ALICE_PIC), eq(3L));
+    }
+
+    @Test
+    public void fanOutRejectsAnotherUser() {
+        Task<Integer> task = fanOut.fanOut(user("bob", "Bob", 1));
+
+        assertFalse(task.isSuccessful());
+        verifyNoInteractions(firestore);
+    }
+
+    private static ChatroomModel chatroom() {
+        return new ChatroomModel("alice_bob", Arrays.asList("alice", "bob"), null, null);
+    }
+
+    private static UserModel user(String userId, String username, long picVersion) {
+        UserModel user = new UserModel(null, username, null, userId);
+        user.setProfilePicVersion(picVersion);
+        return user;
+    }
+
+    private static List<DocumentSnapshot> documents(int count) {
+        List<DocumentSnapshot> documents = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            DocumentSnapshot document = mock(DocumentSnapshot.class);
+            when(document.getReference()).thenReturn(mock(DocumentReference.class));
+            documents.add(document);
+        }
+        return documents;
+    }
+
+    private static QuerySnapshot snapshot(List<DocumentSnapshot> documents) {
+        QuerySnapshot snapshot = mock(QuerySnapshot.class);
+        when(snapshot.getDocuments()).thenReturn(documents);
+        return snapshot;
+    }
+}
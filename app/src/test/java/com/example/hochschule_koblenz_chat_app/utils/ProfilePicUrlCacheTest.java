@@ -0,0 +1,110 @@
+package com.example.hochschule_koblenz_chat_app.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Looper;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests für das Zwischenspeichern der Profilbild-URLs gegen eine gefälschte
+ * Auflösung, die jede Anfrage festhält.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ProfilePicUrlCacheTest {
+
+    private static final int THUMBNAIL = ProfilePicThumbnails.THUMBNAIL_SIZES[0];
+
+    // Ergebnis der Auflösung pro "Benutzer-ID:Größe"
+    private final Map<String, Task<Uri>> results = new HashMap<>();
+    private final List<String> requests = new ArrayList<>();
+    private ProfilePicUrlCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new ProfilePicUrlCache(RuntimeEnvironment.getApplication()
+                .getSharedPreferences("profile_pic_urls_test", Context.MODE_PRIVATE), (userId, size) -> {
+                    String key = userId + ":" + size;
+                    requests.add(key);
+                    return results.get(key);
+                });
+    }
+
+    @Test
+    public void cachesUrlPerVersion() {
+        results.put("bob:" + ProfilePicThumbnails.FULL_SIZE, Tasks.forResult(Uri.parse("https://example.com/bob")));
+
+        resolve("bob", 3, ProfilePicThumbnails.FULL_SIZE);
+        Task<Uri> cached = resolve("bob", 3, ProfilePicThumbnails.FULL_SIZE);
+
+        assertEquals(Uri.parse("https://example.com/bob"), cached.getResult());
+        assertEquals(1, requests.size());
+    }
+
+    @Test
+    public void cachesMissingPicturePerVersion() {
+        results.put("bob:" + ProfilePicThumbnails.FULL_SIZE,
+                Tasks.forException(new FileNotFoundException("bob")));
+
+        assertFalse(resolve("bob", 3, ProfilePicThumbnails.FULL_SIZE).isSuccessful());
+        Task<Uri> cached = resolve("bob", 3, ProfilePicThumbnails.FULL_SIZE);
+
+        assertTrue(cached.getException() instanceof FileNotFoundException);
+        assertEquals(1, requests.size());
+
+        // Ein neu hochgeladenes Bild hat eine neue Version und wird aufgelöst
+        results.put("bob:" + ProfilePicThumbnails.FULL_SIZE, Tasks.forResult(Uri.parse("https://example.com/bob")));
+        assertTrue(resolve("bob", 4, ProfilePicThumbnails.FULL_SIZE).isSuccessful());
+        assertEquals(2, requests.size());
+    }
+
+    @Test
+    public void missingThumbnailAndPictureAreCachedTogether() {
+        results.put("bob:" + THUMBNAIL, Tasks.forException(new FileNotFoundException("bob_96")));
+        results.put("bob:" + ProfilePicThumbnails.FULL_SIZE,
+                Tasks.forException(new FileNotFoundException("bob")));
+
+        assertFalse(resolve("bob", 3, THUMBNAIL).isSuccessful());
+        assertFalse(resolve("bob", 3, THUMBNAIL).isSuccessful());
+
+        assertEquals(2, requests.size());
+    }
+
+    @Test
+    public void doesNotCacheOtherFailures() {
+        results.put("bob:" + ProfilePicThumbnails.FULL_SIZE, Tasks.forException(new IOException("offline")));
+
+        resolve("bob", 3, ProfilePicThumbnails.FULL_SIZE);
+        resolve("bob", 3, ProfilePicThumbnails.FULL_SIZE);
+
+        assertEquals(2, requests.size());
+    }
+
+    /**
+     * Fragt eine URL an und führt die Rückrufe auf dem Main-Thread aus.
+     */
+    private Task<Uri> resolve(String userId, long version, int size) {
+        Task<Uri> task = cache.getDownloadUrl(userId, version, size);
+        shadowOf(Looper.getMainLooper()).idle();
+        return task;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.hochschule_koblenz_chat_app.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.example.hochschule_koblenz_chat_app.model.ChatroomModel;
+import com.example.hochschule_koblenz_chat_app.model.UserModel;
+import com.google.firebase.Timestamp;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests für das Dateiformat der gespeicherten Chatliste.
+ */
+public class RecentChatsCacheTest {
+
+    @Test
+    public void roundTripKeepsRenderedFields() throws IOException {
+        ChatroomModel chatroom = new ChatroomModel("alice_bob", Arrays.asList("alice", "bob"),
+                new Timestamp(1700000000, 123), "bob");
+        chatroom.setLastMessage("Bis morgen in der Mensa 👋");
+        chatroom.setUnreadCounts(Collections.singletonMap("alice", 3L));
+        chatroom.setParticipantNames(names("alice", "Alice", "bob", "Bob"));
+        chatroom.setParticipantPicVersions(versions("alice", 1L, "bob", 7L));
+
+        List<ChatroomModel> read = roundTrip("alice", Collections.singletonList(chatroom),
+                Collections.emptyMap(), "alice");
+
+        assertEquals(1, read.size());
+        ChatroomModel restored = read.get(0);
+        assertEquals("alice_bob", restored.getChatroomId());
+        assertEquals(Arrays.asList("alice", "bob"), restored.getUserIds());
+        assertEquals(new Timestamp(1700000000, 123), restored.getLastMessageTimestamp());
+        assertEquals("bob", restored.getLastMessageSenderId());
+        assertEquals("Bis morgen in der Mensa 👋", restored.getLastMessage());
+        assertEquals(3, restored.unreadCountFor("alice"));
+        assertEquals("Bob", restored.participantName("bob"));
+        assertEquals(7, restored.participantPicVersion("bob"));
+    }
+
+    @Test
+    public void fillsMissingParticipantsFromProfiles() throws IOException {
+        ChatroomModel legacy = new ChatroomModel("alice_carol", Arrays.asList("alice", "carol"), null, null);
+        UserModel carol = new UserModel(null, "Carol", null, "carol");
+        carol.setProfilePicVersion(4);
+
+        ChatroomModel restored = roundTrip("alice", Collections.singletonList(legacy),
+                Collections.singletonMap("carol", carol), "alice").get(0);
+
+        assertTrue(restored.hasParticipant("carol"));
+        assertEquals("Carol", restored.participantName("carol"));
+        assertEquals(4, restored.participantPicVersion("carol"));
+        assertNull(restored.getLastMessageTimestamp());
+        assertNull(restored.getLastMessage());
+        assertNull(restored.getUnreadCounts());
+    }
+
+    @Test
+    public void ignoresListOfAnotherUser() throws IOException {
+        ChatroomModel chatroom = new ChatroomModel("alice_bob", Arrays.asList("alice", "bob"), null, "alice");
+
+        assertTrue(roundTrip("alice", Collections.singletonList(chatroom), Collections.emptyMap(), "bob")
+                .isEmpty());
+    }
+
+    private static List<ChatroomModel> roundTrip(String writer, List<ChatroomModel> chatrooms,
+            Map<String, UserModel> profiles, String reader) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        RecentChatsCache.write(new DataOutputStream(bytes), writer, chatrooms, profiles);
+        return RecentChatsCache.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), reader);
+    }
+
+    private static Map<String, String> names(String firstId, String first, String secondId, String second) {
+        Map<String, String> map = new HashMap<>();
+        map.put(firstId, first);
+        map.put(secondId, second);
+        return map;
+    }
+
+    private static Map<String, Long> versions(String firstId, long first, String secondId, long second) {
+        Map<String, Long> map = new HashMap<>();
+        map.put(firstId, first);
+        map.put(secondId, second);
+        return map;
+    }
+}
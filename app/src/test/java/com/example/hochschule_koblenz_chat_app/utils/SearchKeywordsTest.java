@@ -0,0 +1,51 @@
+package com.example.hochschule_koblenz_chat_app.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * Tests für die Suchschlüssel aus Namen und Telefonnummern.
+ */
+public class SearchKeywordsTest {
+
+    @Test
+    public void containsPrefixesOfNameAndEachWord() {
+        List<String> keywords = SearchKeywords.forUser("Anna Müller", null);
+        assertTrue(keywords.contains("a"));
+        assertTrue(keywords.contains("anna m"));
+        assertTrue(keywords.contains("mul"));
+        assertTrue(keywords.contains("muller"));
+        assertFalse(keywords.contains("anna "));
+        assertFalse(keywords.contains("nna"));
+    }
+
+    @Test
+    public void containsPhoneSuffixes() {
+        List<String> keywords = SearchKeywords.forUser(null, "+49 170 1234");
+        assertTrue(keywords.contains("1234"));
+        assertTrue(keywords.contains("491701234"));
+        assertFalse(keywords.contains("234"));
+    }
+
+    @Test
+    public void searchKeyNormalizesNamesAndPhoneNumbers() {
+        assertEquals("mul", SearchKeywords.searchKey("  MÜL"));
+        assertEquals("1701234", SearchKeywords.searchKey("170 1234"));
+        assertEquals(SearchKeywords.MAX_PREFIX_LENGTH,
+                SearchKeywords.searchKey("ein sehr langer suchbegriff").length());
+    }
+
+    @Test
+    public void matchesUsesSameRulesAsTheQuery() {
+        assertTrue(SearchKeywords.matches("Anna Müller", "+491701234", "müll"));
+        assertTrue(SearchKeywords.matches("Anna Müller", "+491701234", "01234"));
+        assertTrue(SearchKeywords.matches("Ein sehr langer Benutzername", null, "ein sehr langer benutzer"));
+        assertFalse(SearchKeywords.matches("Anna Müller", "+491701234", "nna"));
+        assertFalse(SearchKeywords.matches("Anna Müller", "+491701234", ""));
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.hochschule_koblenz_chat_app.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.junit.Test;
+
+import java.util.Collections;
+
+/**
+ * Tests für die Vergabe stabiler Zeilen-IDs.
+ */
+public class StableIdsTest {
+
+    @Test
+    public void keepsIdPerKey() {
+        StableIds stableIds = new StableIds();
+        long first = stableIds.idFor("a");
+
+        assertNotEquals(first, stableIds.idFor("b"));
+        assertEquals(first, stableIds.idFor("a"));
+    }
+
+    @Test
+    public void collidingHashCodesGetDistinctIds() {
+        // "Aa" und "BB" haben denselben hashCode
+        StableIds stableIds = new StableIds();
+
+        assertNotEquals(stableIds.idFor("Aa"), stableIds.idFor("BB"));
+    }
+
+    @Test
+    public void retainDropsRemovedKeysWithoutReusingIds() {
+        StableIds stableIds = new StableIds();
+        long a = stableIds.idFor("a");
+        long b = stableIds.idFor("b");
+
+        stableIds.retain(Collections.singleton("b"));
+
+        assertEquals(1, stableIds.size());
+        assertEquals(b, stableIds.idFor("b"));
+        long c = stableIds.idFor("c");
+        assertNotEquals(a, c);
+        assertNotEquals(b, c);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.hochschule_koblenz_chat_app.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import android.widget.TextView;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Tests für den TextBuffer, der beim Binden der Listenzeilen verwendet wird.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class TextBufferTest {
+
+    @Test
+    public void appliesComposedTextToTextView() {
+        TextView textView = new TextView(RuntimeEnvironment.getApplication());
+        TextBuffer buffer = new TextBuffer(4);
+
+        buffer.clear().append("Du : ").append("Hallo").applyTo(textView);
+        assertEquals("Du : Hallo", textView.getText().toString());
+
+        buffer.clear().append(42).applyTo(textView);
+        assertEquals("42", textView.getText().toString());
+    }
+
+    @Test
+    public void appliesChangedTextOfSameLength() {
+        TextView textView = new TextView(RuntimeEnvironment.getApplication());
+        TextBuffer buffer = new TextBuffer(4);
+
+        buffer.clear().append(12).applyTo(textView);
+        buffer.clear().append(12).applyTo(textView);
+        assertEquals("12", textView.getText().toString());
+
+        buffer.clear().append(13).applyTo(textView);
+        assertEquals("13", textView.getText().toString());
+
+        // Von außen gesetzter Text wird beim nächsten Binden überschrieben
+        textView.setText("Hallo");
+        buffer.clear().append(13).applyTo(textView);
+        assertEquals("13", textView.getText().toString());
+    }
+
+    @Test
+    public void rebindingDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        TextBuffer buffer = new TextBuffer(64);
+        String message = "Bis gleich im Hörsaal";
+
+        // Aufwärmen, damit Kapazität und JIT feststehen
+        for (int i = 0; i < 10_000; i++) {
+            buffer.clear().append("Du : ").append(message).append(i);
+        }
+
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < 100_000; i++) {
+            buffer.clear().append("Du : ").append(message).append(i);
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        assertTrue("Beim Binden wurden " + allocated + " Bytes allokiert", allocated < 1024);
+    }
+}
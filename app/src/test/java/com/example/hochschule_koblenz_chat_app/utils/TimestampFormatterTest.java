@@ -0,0 +1,49 @@
+package com.example.hochschule_koblenz_chat_app.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Locale;
+
+/**
+ * Tests für die Tagesgruppen und den Minutenspeicher des TimestampFormatters.
+ */
+public class TimestampFormatterTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Europe/Berlin");
+    // Mittwoch, 15. Mai 2024, 12:00 Uhr
+    private static final ZonedDateTime NOW = ZonedDateTime.of(2024, 5, 15, 12, 0, 0, 0, ZONE);
+
+    private final TimestampFormatter formatter = new TimestampFormatter(Clock.fixed(NOW.toInstant(), ZONE),
+            Locale.GERMANY);
+
+    @Test
+    public void formatsRelativeDayBuckets() {
+        assertEquals("09:30", formatter.format(millis(NOW.withHour(9).withMinute(30))));
+        assertEquals("Gestern", formatter.format(millis(NOW.minusDays(1))));
+        assertEquals("Montag", formatter.format(millis(NOW.minusDays(2))));
+        assertEquals("08.05.24", formatter.format(millis(NOW.minusDays(7))));
+    }
+
+    @Test
+    public void treatsSlightlyFutureTimestampsAsToday() {
+        assertEquals("12:01", formatter.format(millis(NOW.plusMinutes(1))));
+    }
+
+    @Test
+    public void reusesTextWithinTheSameMinute() {
+        String first = formatter.format(millis(NOW.withHour(10).withSecond(5)));
+        String second = formatter.format(millis(NOW.withHour(10).withSecond(55)));
+
+        assertSame(first, second);
+    }
+
+    private static long millis(ZonedDateTime dateTime) {
+        return dateTime.toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.hochschule_koblenz_chat_app.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.example.hochschule_koblenz_chat_app.model.ChatroomModel;
+import com.example.hochschule_koblenz_chat_app.model.UserModel;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests für die Präfixsuche und die Normalisierung des UserSearchIndex.
+ */
+public class UserSearchIndexTest {
+
+    private final UserSearchIndex index = new UserSearchIndex();
+
+    @Test
+    public void findsNamesByPrefixIgnoringCaseAndAccents() {
+        index.put(user("1", "Jürgen Müller"));
+        index.put(user("2", "Julia"));
+        index.put(user("3", "Anna"));
+
+        assertEquals(Arrays.asList("2", "1"), ids(index.search("JU", 10)));
+        assertEquals(Collections.singletonList("1"), ids(index.search("jurg", 10)));
+        assertEquals(Collections.singletonList("1"), ids(index.search("mull", 10)));
+        assertTrue(index.search("x", 10).isEmpty());
+        assertTrue(index.search("", 10).isEmpty());
+    }
+
+    @Test
+    public void removesOldKeysWhenUserIsRenamed() {
+        index.put(user("1", "Max"));
+        index.put(user("1", "Moritz"));
+
+        assertTrue(index.search("max", 10).isEmpty());
+        assertEquals(Collections.singletonList("1"), ids(index.search("mor", 10)));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void stopsAtLimit() {
+        for (int i = 0; i < 50; i++) {
+            index.put(user(String.valueOf(i), "user" + i));
+        }
+        assertEquals(5, index.search("user", 5).size());
+    }
+
+    @Test
+    public void addsChatPartnersFromChatroom() {
+        Map<String, String> names = new HashMap<>();
+        names.put("alice", "Alice");
+        names.put("bob", "Bob Meier");
+        ChatroomModel chatroom = new ChatroomModel();
+        chatroom.setParticipantNames(names);
+        chatroom.setParticipantPicVersions(Collections.singletonMap("bob", 4L));
+
+        index.putParticipants(chatroom, "alice");
+
+        List<UserModel> found = index.search("meier", 10);
+        assertEquals(Collections.singletonList("bob"), ids(found));
+        assertEquals(4, found.get(0).getProfilePicVersion());
+        // Der aktuelle Benutzer selbst wird nicht eingetragen
+        assertTrue(index.search("alice", 10).isEmpty());
+    }
+
+    @Test
+    public void keepsFullProfileOverChatroomName() {
+        UserModel bob = user("bob", "Bob");
+        bob.setPhone("+49 261 000");
+        index.put(bob);
+        ChatroomModel chatroom = new ChatroomModel();
+        chatroom.setParticipantNames(Collections.singletonMap("bob", "Bobby"));
+
+        index.putParticipants(chatroom, "alice");
+
+        assertEquals("+49 261 000", index.search("bob", 10).get(0).getPhone());
+        assertTrue(index.search("bobby", 10).isEmpty());
+    }
+
+    @Test
+    public void clearRemovesAllUsers() {
+        index.put(user("1", "Max"));
+        index.clear();
+
+        assertTrue(index.search("max", 10).isEmpty());
+        assertEquals(0, index.size());
+
+        index.put(user("2", "Moritz"));
+        assertEquals(Collections.singletonList("2"), ids(index.search("m", 10)));
+    }
+
+    private static UserModel user(String userId, String username) {
+        UserModel user = new UserModel();
+        user.setUserId(userId);
+        user.setUsername(username);
+        return user;
+    }
+
+    private static List<String> ids(List<UserModel> users) {
+        List<String> ids = new ArrayList<>();
+        for (UserModel user : users) {
+            ids.add(user.getUserId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.hochschule_koblenz_chat_app.tools.bench;
+
+import com.example.hochschule_koblenz_chat_app.utils.TimestampFormatter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.text.SimpleDateFormat;
+import java.time.Clock;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vergleicht die bisherige Formatierung der Chat-Zeitstempel (ein neues
+ * SimpleDateFormat pro Aufruf) mit dem TimestampFormatter.
+ *
+ * Die Zeitstempel bilden eine Liste letzter Chats nach: viele Nachrichten des
+ * heutigen Tages, einige ältere.
+ *
+ * Aufruf: ./gradlew :tools:jmh
+ *
+ * @autor: Mohamed Bebba
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TimestampFormatterBenchmark {
+
+    private static final int ROWS = 200;
+
+    private long[] timestamps;
+    private TimestampFormatter formatter;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        long now = System.currentTimeMillis();
+        timestamps = new long[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            // Drei Viertel innerhalb der letzten Stunden, der Rest bis zu 30 Tage alt
+            long age = i % 4 == 0
+                    ? (long) (random.nextDouble() * TimeUnit.DAYS.toMillis(30))
+                    : (long) (random.nextDouble() * TimeUnit.HOURS.toMillis(6));
+            timestamps[i] = now - age;
+        }
+        formatter = new TimestampFormatter(Clock.systemDefaultZone(), Locale.GERMANY);
+    }
+
+    /**
+     * Bisheriger Weg aus FirebaseUtil.timestampToString.
+     */
+    @Benchmark
+    public void simpleDateFormatPerCall(Blackhole blackhole) {
+        for (long timestamp : timestamps) {
+            blackhole.consume(new SimpleDateFormat("HH:mm").format(new Date(timestamp)));
+        }
+    }
+
+    /**
+     * TimestampFormatter mit Minutenspeicher, wie beim wiederholten Binden der
+     * Liste.
+     */
+    @Benchmark
+    public void timestampFormatter(Blackhole blackhole) {
+        for (long timestamp : timestamps) {
+            blackhole.consume(formatter.format(timestamp));
+        }
+    }
+
+    /**
+     * TimestampFormatter ohne Vorwissen: jeder Durchlauf beginnt mit leerem
+     * Speicher.
+     */
+    @Benchmark
+    public void timestampFormatterCold(Blackhole blackhole) {
+        TimestampFormatter cold = new TimestampFormatter(Clock.systemDefaultZone(), Locale.GERMANY);
+        for (long timestamp : timestamps) {
+            blackhole.consume(cold.format(timestamp));
+        }
+    }
+}
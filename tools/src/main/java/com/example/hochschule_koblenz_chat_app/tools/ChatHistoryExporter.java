@@ -0,0 +1,77 @@
+package com.example.hochschule_koblenz_chat_app.tools;
+
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Der ChatHistoryExporter liest die "chats"-Untersammlung eines Chatrooms
+ * seitenweise und schreibt jede Nachricht als JSON-Zeile (NDJSON).
+ * Es wird immer nur eine Seite im Speicher gehalten, unabhängig von der Länge
+ * des Verlaufs.
+ *
+ * @autor: Mohamed Bebba
+ */
+public class ChatHistoryExporter {
+
+    public static final int DEFAULT_PAGE_SIZE = 500;
+
+    private final Firestore firestore;
+    private final int pageSize;
+
+    /**
+     * Konstruktor für den ChatHistoryExporter.
+     *
+     * @param firestore Die Firestore-Instanz (Produktion oder Emulator).
+     * @param pageSize  Die Anzahl der Nachrichten pro gelesener Seite.
+     */
+    public ChatHistoryExporter(Firestore firestore, int pageSize) {
+        this.firestore = firestore;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Exportiert alle Nachrichten eines Chatrooms in aufsteigender zeitlicher
+     * Reihenfolge.
+     *
+     * @param chatroomId Die ID des Chatrooms.
+     * @param out        Das Ziel für die JSON-Zeilen.
+     * @return Die Zähler des Exports.
+     * @throws IOException          Wenn das Schreiben fehlschlägt.
+     * @throws ExecutionException   Wenn eine Firestore-Abfrage fehlschlägt.
+     * @throws InterruptedException Wenn der Export unterbrochen wird.
+     */
+    public ThroughputCounter export(String chatroomId, Writer out)
+            throws IOException, ExecutionException, InterruptedException {
+        ThroughputCounter counter = new ThroughputCounter();
+        Query query = firestore.collection("chatrooms").document(chatroomId).collection("chats")
+                .orderBy("timestamp").limit(pageSize);
+
+        QueryDocumentSnapshot cursor = null;
+        while (true) {
+            Query page = cursor == null ? query : query.startAfter(cursor);
+            QuerySnapshot snapshot = page.get().get();
+            counter.addRequest();
+            List<QueryDocumentSnapshot> documents = snapshot.getDocuments();
+            for (QueryDocumentSnapshot document : documents) {
+                String line = MessageCodec.encode(MessageCodec.fromDocument(document));
+                out.write(line);
+                out.write('\n');
+                counter.addDocument(line.getBytes(StandardCharsets.UTF_8).length + 1);
+            }
+            if (documents.size() < pageSize) {
+                break;
+            }
+            cursor = documents.get(documents.size() - 1);
+        }
+        out.flush();
+        return counter;
+    }
+}
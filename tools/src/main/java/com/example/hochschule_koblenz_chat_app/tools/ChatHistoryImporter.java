@@ -0,0 +1,101 @@
+package com.example.hochschule_koblenz_chat_app.tools;
+
+import com.google.api.core.ApiFuture;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.WriteBatch;
+import com.google.cloud.firestore.WriteResult;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Der ChatHistoryImporter liest Nachrichten im Export-Format (NDJSON) und
+ * schreibt sie mit WriteBatches zurück in die "chats"-Untersammlung eines
+ * Chatrooms.
+ * Die Dokument-IDs bleiben erhalten, sodass ein wiederholter Import keine
+ * Duplikate erzeugt. Es sind höchstens {@link #MAX_IN_FLIGHT} Batches
+ * gleichzeitig unterwegs, damit der Speicherbedarf begrenzt bleibt.
+ *
+ * @autor: Mohamed Bebba
+ */
+public class ChatHistoryImporter {
+
+    // Firestore erlaubt höchstens 500 Schreibvorgänge pro Batch
+    public static final int MAX_BATCH_SIZE = 500;
+    static final int MAX_IN_FLIGHT = 4;
+
+    private final Firestore firestore;
+    private final int batchSize;
+
+    /**
+     * Konstruktor für den ChatHistoryImporter.
+     *
+     * @param firestore Die Firestore-Instanz (Produktion oder Emulator).
+     * @param batchSize Die Anzahl der Nachrichten pro Batch (höchstens 500).
+     */
+    public ChatHistoryImporter(Firestore firestore, int batchSize) {
+        this.firestore = firestore;
+        this.batchSize = Math.min(batchSize, MAX_BATCH_SIZE);
+    }
+
+    /**
+     * Importiert alle Nachrichten aus der Eingabe in den angegebenen Chatroom.
+     *
+     * @param chatroomId Die ID des Ziel-Chatrooms.
+     * @param in         Die Quelle der JSON-Zeilen.
+     * @return Die Zähler des Imports.
+     * @throws IOException          Wenn das Lesen fehlschlägt.
+     * @throws ExecutionException   Wenn ein Commit fehlschlägt.
+     * @throws InterruptedException Wenn der Import unterbrochen wird.
+     */
+    public ThroughputCounter importInto(String chatroomId, BufferedReader in)
+            throws IOException, ExecutionException, InterruptedException {
+        ThroughputCounter counter = new ThroughputCounter();
+        CollectionReference chats = firestore.collection("chatrooms").document(chatroomId).collection("chats");
+        ArrayDeque<ApiFuture<List<WriteResult>>> inFlight = new ArrayDeque<>();
+
+        WriteBatch batch = firestore.batch();
+        int batchCount = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            ExportedMessage message = MessageCodec.decode(line);
+            batch.set(chats.document(message.getId()), MessageCodec.toFields(message));
+            counter.addDocument(line.getBytes(StandardCharsets.UTF_8).length + 1);
+            batchCount++;
+
+            if (batchCount == batchSize) {
+                commit(batch, inFlight, counter);
+                batch = firestore.batch();
+                batchCount = 0;
+            }
+        }
+        if (batchCount > 0) {
+            commit(batch, inFlight, counter);
+        }
+        while (!inFlight.isEmpty()) {
+            inFlight.poll().get();
+        }
+        return counter;
+    }
+
+    /**
+     * Schickt einen Batch ab und wartet auf den ältesten offenen Commit, sobald
+     * zu viele Batches gleichzeitig unterwegs sind.
+     */
+    private void commit(WriteBatch batch, ArrayDeque<ApiFuture<List<WriteResult>>> inFlight,
+            ThroughputCounter counter) throws ExecutionException, InterruptedException {
+        inFlight.add(batch.commit());
+        counter.addRequest();
+        if (inFlight.size() >= MAX_IN_FLIGHT) {
+            inFlight.poll().get();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.hochschule_koblenz_chat_app.tools;
+
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.FirestoreOptions;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Kommandozeilen-Einstieg für Export und Import von Chatverläufen.
+ *
+ * Aufruf:
+ * 
+ * <pre>
+ * export &lt;projectId&gt; &lt;chatroomId&gt; &lt;datei.ndjson&gt;
+ * import &lt;projectId&gt; &lt;chatroomId&gt; &lt;datei.ndjson&gt;
+ * </pre>
+ *
+ * Ist die Umgebungsvariable FIRESTORE_EMULATOR_HOST gesetzt, wird gegen den
+ * Firestore-Emulator gearbeitet.
+ *
+ * @autor: Mohamed Bebba
+ */
+public class ChatHistoryTool {
+
+    /**
+     * Führt den Export oder Import aus und gibt die Zähler aus.
+     *
+     * @param args Befehl, Projekt-ID, Chatroom-ID und Dateipfad.
+     * @throws Exception Wenn der Export oder Import fehlschlägt.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length != 4) {
+            System.err.println("Aufruf: (export|import) <projectId> <chatroomId> <datei.ndjson>");
+            System.exit(2);
+        }
+        String command = args[0];
+        String chatroomId = args[2];
+        String path = args[3];
+
+        try (Firestore firestore = openFirestore(args[1])) {
+            ThroughputCounter counter;
+            if ("export".equals(command)) {
+                try (BufferedWriter out = new BufferedWriter(
+                        new OutputStreamWriter(new FileOutputStream(path), StandardCharsets.UTF_8))) {
+                    counter = new ChatHistoryExporter(firestore, ChatHistoryExporter.DEFAULT_PAGE_SIZE)
+                            .export(chatroomId, out);
+                }
+            } else if ("import".equals(command)) {
+                try (BufferedReader in = new BufferedReader(
+                        new InputStreamReader(new FileInputStream(path), StandardCharsets.UTF_8))) {
+                    counter = new ChatHistoryImporter(firestore, ChatHistoryImporter.MAX_BATCH_SIZE)
+                            .importInto(chatroomId, in);
+                }
+            } else {
+                System.err.println("Unbekannter Befehl: " + command);
+                System.exit(2);
+                return;
+            }
+            System.out.println(command + ": " + counter);
+        }
+    }
+
+    /**
+     * Öffnet eine Firestore-Verbindung für das angegebene Projekt. Die
+     * Emulator-Adresse wird vom SDK automatisch aus FIRESTORE_EMULATOR_HOST
+     * übernommen.
+     *
+     * @param projectId Die Firebase-Projekt-ID.
+     * @return Die Firestore-Instanz.
+     */
+    public static Firestore openFirestore(String projectId) {
+        return FirestoreOptions.getDefaultInstance().toBuilder()
+                .setProjectId(projectId)
+                .build()
+                .getService();
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.hochschule_koblenz_chat_app.tools;
+
+/**
+ * Die ExportedMessage-Klasse ist die Austauschform einer Chat-Nachricht im
+ * Export-Format. Sie entspricht den Feldern des ChatMessageModels der App,
+ * ergänzt um die Dokument-ID; der Zeitstempel wird in Sekunden und
+ * Nanosekunden zerlegt.
+ *
+ * @autor: Mohamed Bebba
+ */
+public class ExportedMessage {
+
+    private String id; // Dokument-ID der Nachricht
+    private String message; // Inhalt der Nachricht
+    private String senderId; // Benutzer-ID des Absenders
+    private long timestampSeconds; // Sekundenanteil des Zeitstempels
+    private int timestampNanos; // Nanosekundenanteil des Zeitstempels
+
+    /**
+     * Standardkonstruktor für ExportedMessage.
+     */
+    public ExportedMessage() {
+    }
+
+    /**
+     * Konstruktor für ExportedMessage mit Parametern.
+     *
+     * @param id               Die Dokument-ID der Nachricht.
+     * @param message          Der Inhalt der Nachricht.
+     * @param senderId         Die Benutzer-ID des Absenders.
+     * @param timestampSeconds Der Sekundenanteil des Zeitstempels.
+     * @param timestampNanos   Der Nanosekundenanteil des Zeitstempels.
+     */
+    public ExportedMessage(String id, String message, String senderId, long timestampSeconds, int timestampNanos) {
+        this.id = id;
+        this.message = message;
+        this.senderId = senderId;
+        this.timestampSeconds = timestampSeconds;
+        this.timestampNanos = timestampNanos;
+    }
+
+    /**
+     * Gibt die Dokument-ID der Nachricht zurück.
+     *
+     * @return Die Dokument-ID.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Gibt den Inhalt der Nachricht zurück.
+     *
+     * @return Der Nachrichtentext.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Gibt die Benutzer-ID des Absenders zurück.
+     *
+     * @return Die Benutzer-ID des Absenders.
+     */
+    public String getSenderId() {
+        return senderId;
+    }
+
+    /**
+     * Gibt den Sekundenanteil des Zeitstempels zurück.
+     *
+     * @return Die Sekunden seit der Epoche.
+     */
+    public long getTimestampSeconds() {
+        return timestampSeconds;
+    }
+
+    /**
+     * Gibt den Nanosekundenanteil des Zeitstempels zurück.
+     *
+     * @return Die Nanosekunden innerhalb der Sekunde.
+     */
+    public int getTimestampNanos() {
+        return timestampNanos;
+    }
+}
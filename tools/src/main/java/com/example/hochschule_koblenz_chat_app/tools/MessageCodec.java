@@ -0,0 +1,72 @@
+package com.example.hochschule_koblenz_chat_app.tools;
+
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.gson.Gson;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Der MessageCodec wandelt Chat-Nachrichten zwischen Firestore-Dokumenten und
+ * dem zeilenweisen JSON-Format (NDJSON) des Exports um.
+ *
+ * @autor: Mohamed Bebba
+ */
+public class MessageCodec {
+
+    private static final Gson GSON = new Gson();
+
+    private MessageCodec() {
+    }
+
+    /**
+     * Erstellt eine ExportedMessage aus einem Nachrichtendokument.
+     *
+     * @param document Das Firestore-Dokument der Nachricht.
+     * @return Die Nachricht im Austauschformat.
+     */
+    public static ExportedMessage fromDocument(DocumentSnapshot document) {
+        Timestamp timestamp = document.getTimestamp("timestamp");
+        return new ExportedMessage(document.getId(), document.getString("message"),
+                document.getString("senderId"),
+                timestamp == null ? 0 : timestamp.getSeconds(),
+                timestamp == null ? 0 : timestamp.getNanos());
+    }
+
+    /**
+     * Erstellt die Felder eines Nachrichtendokuments in derselben Form, wie die
+     * App sie schreibt.
+     *
+     * @param message Die Nachricht im Austauschformat.
+     * @return Die Felder für Firestore.
+     */
+    public static Map<String, Object> toFields(ExportedMessage message) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("message", message.getMessage());
+        fields.put("senderId", message.getSenderId());
+        fields.put("timestamp",
+                Timestamp.ofTimeSecondsAndNanos(message.getTimestampSeconds(), message.getTimestampNanos()));
+        return fields;
+    }
+
+    /**
+     * Kodiert eine Nachricht als einzelne JSON-Zeile.
+     *
+     * @param message Die zu kodierende Nachricht.
+     * @return Die JSON-Zeile ohne Zeilenumbruch.
+     */
+    public static String encode(ExportedMessage message) {
+        return GSON.toJson(message);
+    }
+
+    /**
+     * Dekodiert eine JSON-Zeile zu einer Nachricht.
+     *
+     * @param line Die JSON-Zeile.
+     * @return Die dekodierte Nachricht.
+     */
+    public static ExportedMessage decode(String line) {
+        return GSON.fromJson(line, ExportedMessage.class);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.hochschule_koblenz_chat_app.tools;
+
+import com.example.hochschule_koblenz_chat_app.utils.SearchKeywords;
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+import com.google.cloud.firestore.WriteBatch;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Der SearchKeywordsBackfill ergänzt bestehende Dokumente der Sammlung "users"
+ * um das Feld {@link SearchKeywords#FIELD}. Die Benutzer werden seitenweise
+ * nach Dokument-ID gelesen; jede Seite wird mit einem WriteBatch
+ * aktualisiert. Dokumente mit bereits aktuellen Schlüsseln werden nicht
+ * geschrieben, sodass ein abgebrochener Lauf einfach wiederholt werden kann.
+ *
+ * @autor: Mohamed Bebba
+ */
+public class SearchKeywordsBackfill {
+
+    // Firestore erlaubt höchstens 500 Schreibvorgänge pro Batch
+    public static final int MAX_BATCH_SIZE = 500;
+
+    private final Firestore firestore;
+    private final int pageSize;
+
+    /**
+     * Konstruktor für den SearchKeywordsBackfill.
+     *
+     * @param firestore Die Firestore-Instanz (Produktion oder Emulator).
+     * @param pageSize  Die Anzahl der Benutzer pro Seite und Batch (höchstens
+     *                  500).
+     */
+    public SearchKeywordsBackfill(Firestore firestore, int pageSize) {
+        this.firestore = firestore;
+        this.pageSize = Math.min(pageSize, MAX_BATCH_SIZE);
+    }
+
+    /**
+     * Liest alle Benutzer und schreibt fehlende oder veraltete Suchschlüssel.
+     *
+     * @return Die Zähler des Laufs; Dokumente zählen nur die aktualisierten
+     *         Benutzer.
+     * @throws ExecutionException   Wenn das Lesen oder ein Commit fehlschlägt.
+     * @throws InterruptedException Wenn der Lauf unterbrochen wird.
+     */
+    public ThroughputCounter run() throws ExecutionException, InterruptedException {
+        ThroughputCounter counter = new ThroughputCounter();
+        Query query = firestore.collection("users").orderBy(FieldPath.documentId()).limit(pageSize);
+        QueryDocumentSnapshot cursor = null;
+        while (true) {
+            QuerySnapshot page = (cursor == null ? query : query.startAfter(cursor)).get().get();
+            counter.addRequest();
+
+            WriteBatch batch = firestore.batch();
+            int writes = 0;
+            for (QueryDocumentSnapshot document : page.getDocuments()) {
+                List<String> keywords = SearchKeywords.forUser(document.getString("username"),
+                        document.getString("phone"));
+                if (!keywords.equals(document.get(SearchKeywords.FIELD))) {
+                    batch.update(document.getReference(), SearchKeywords.FIELD, keywords);
+                    counter.addDocument(String.join("", keywords).length());
+                    writes++;
+                }
+                cursor = document;
+            }
+            if (writes > 0) {
+                batch.commit().get();
+                counter.addRequest();
+            }
+            if (page.size() < pageSize) {
+                return counter;
+            }
+        }
+    }
+}
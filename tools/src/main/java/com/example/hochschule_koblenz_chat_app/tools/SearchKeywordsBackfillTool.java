@@ -0,0 +1,39 @@
+package com.example.hochschule_koblenz_chat_app.tools;
+
+import com.google.cloud.firestore.Firestore;
+
+/**
+ * Kommandozeilen-Einstieg für das Nachtragen der Suchschlüssel.
+ *
+ * Aufruf:
+ * 
+ * <pre>
+ * &lt;projectId&gt; [seitengröße]
+ * </pre>
+ *
+ * Ist die Umgebungsvariable FIRESTORE_EMULATOR_HOST gesetzt, wird gegen den
+ * Firestore-Emulator gearbeitet.
+ *
+ * @autor: Mohamed Bebba
+ */
+public class SearchKeywordsBackfillTool {
+
+    /**
+     * Führt den Backfill aus und gibt die Zähler aus.
+     *
+     * @param args Projekt-ID und optional die Seitengröße.
+     * @throws Exception Wenn der Backfill fehlschlägt.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Aufruf: <projectId> [seitengröße]");
+            System.exit(2);
+        }
+        int pageSize = args.length > 1 ? Integer.parseInt(args[1]) : SearchKeywordsBackfill.MAX_BATCH_SIZE;
+
+        try (Firestore firestore = ChatHistoryTool.openFirestore(args[0])) {
+            ThroughputCounter counter = new SearchKeywordsBackfill(firestore, pageSize).run();
+            System.out.println("backfill: " + counter);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.hochschule_koblenz_chat_app.tools;
+
+import java.util.Locale;
+
+/**
+ * Der ThroughputCounter zählt verarbeitete Dokumente und Bytes und berechnet
+ * daraus den Durchsatz seit dem Start.
+ *
+ * @autor: Mohamed Bebba
+ */
+public class ThroughputCounter {
+
+    private final long startNanos = System.nanoTime();
+    private long documents = 0;
+    private long bytes = 0;
+    private long requests = 0;
+
+    /**
+     * Zählt ein verarbeitetes Dokument.
+     *
+     * @param size Die Größe des Dokuments im Export-Format in Bytes.
+     */
+    public synchronized void addDocument(long size) {
+        documents++;
+        bytes += size;
+    }
+
+    /**
+     * Zählt eine Anfrage an Firestore (eine gelesene Seite oder einen Commit).
+     */
+    public synchronized void addRequest() {
+        requests++;
+    }
+
+    /**
+     * Gibt die Anzahl verarbeiteter Dokumente zurück.
+     *
+     * @return Die Anzahl der Dokumente.
+     */
+    public synchronized long getDocuments() {
+        return documents;
+    }
+
+    /**
+     * Gibt die Anzahl verarbeiteter Bytes zurück.
+     *
+     * @return Die Anzahl der Bytes im Export-Format.
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Gibt die Anzahl der Anfragen an Firestore zurück.
+     *
+     * @return Die Anzahl gelesener Seiten bzw. Commits.
+     */
+    public synchronized long getRequests() {
+        return requests;
+    }
+
+    /**
+     * Gibt den Durchsatz in Dokumenten pro Sekunde zurück.
+     *
+     * @return Die verarbeiteten Dokumente pro Sekunde.
+     */
+    public synchronized double documentsPerSecond() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        return seconds <= 0 ? 0 : documents / seconds;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.ROOT, "%d Dokumente, %d Bytes, %d Anfragen, %.1f Dokumente/s",
+                documents, bytes, requests, documentsPerSecond());
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.hochschule_koblenz_chat_app.tools.load;
+
+/**
+ * Das ChatBackend abstrahiert die Schreib- und Lesepfade der App, gegen die der
+ * Lastgenerator arbeitet: Senden einer Nachricht wie in
+ * ChatActivity.sendMessageToUser, der Live-Listener des Chatverlaufs und die
+ * Abfrage der letzten Chats aus dem ChatFragment.
+ *
+ * @autor: Mohamed Bebba
+ */
+public interface ChatBackend extends AutoCloseable {
+
+    /**
+     * Wird für jede neu beim Empfänger angekommene Nachricht aufgerufen.
+     */
+    interface MessageListener {
+        /**
+         * @param messageId Die Dokument-ID der angekommenen Nachricht.
+         */
+        void onMessage(String messageId);
+    }
+
+    /**
+     * Eine aktive Listener-Registrierung.
+     */
+    interface Subscription {
+        /**
+         * Beendet den Listener.
+         */
+        void remove();
+    }
+
+    /**
+     * Schreibt eine Nachricht und die Chatroom-Zusammenfassung in einem Batch.
+     *
+     * @param chatroomId  Die ID des Chatrooms.
+     * @param senderId    Die Benutzer-ID des Absenders.
+     * @param recipientId Die Benutzer-ID des Empfängers.
+     * @param messageId   Die clientseitig erzeugte Dokument-ID.
+     * @param message     Der Nachrichtentext.
+     * @throws Exception Wenn der Schreibvorgang fehlschlägt.
+     */
+    void send(String chatroomId, String senderId, String recipientId, String messageId, String message)
+            throws Exception;
+
+    /**
+     * Registriert einen Listener auf die neuesten Nachrichten eines Chatrooms.
+     *
+     * @param chatroomId Die ID des Chatrooms.
+     * @param listener   Der Empfänger neuer Nachrichten.
+     * @return Die Registrierung zum späteren Entfernen.
+     */
+    Subscription listenForMessages(String chatroomId, MessageListener listener);
+
+    /**
+     * Führt die Abfrage der letzten Chats eines Benutzers aus.
+     *
+     * @param userId Die Benutzer-ID.
+     * @return Die Anzahl der gefundenen Chatrooms.
+     * @throws Exception Wenn die Abfrage fehlschlägt.
+     */
+    int queryRecentChats(String userId) throws Exception;
+}
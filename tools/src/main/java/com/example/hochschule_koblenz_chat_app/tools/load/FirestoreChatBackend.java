@@ -0,0 +1,112 @@
+package com.example.hochschule_koblenz_chat_app.tools.load;
+
+import com.example.hochschule_koblenz_chat_app.utils.ChatroomSummary;
+import com.google.cloud.Timestamp;
+import com.google.cloud.firestore.DocumentChange;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.ListenerRegistration;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.SetOptions;
+import com.google.cloud.firestore.WriteBatch;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ChatBackend gegen Firestore bzw. den Firestore-Emulator. Die Schreibvorgänge
+ * und Abfragen entsprechen denen der App (MessageSender, ChatHistoryPager und
+ * ChatFragment): Jede Nachricht wird mit der Chatroom-Zusammenfassung aus
+ * {@link ChatroomSummary} in einem WriteBatch geschrieben. Da jeder virtuelle
+ * Benutzer auf die Bestätigung wartet, enthält jeder Batch eine Nachricht, wie
+ * in der App bei einzeln gesendeten Nachrichten.
+ *
+ * @autor: Mohamed Bebba
+ */
+public class FirestoreChatBackend implements ChatBackend {
+
+    // Größe des Live-Fensters wie im ChatHistoryPager der App
+    static final int LIVE_WINDOW = 30;
+
+    // Sonderwerte des Server-SDKs für die Chatroom-Zusammenfassung
+    private static final ChatroomSummary.FieldValues FIELD_VALUES = new ChatroomSummary.FieldValues() {
+        @Override
+        public Object increment(long n) {
+            return FieldValue.increment(n);
+        }
+
+        @Override
+        public Object arrayUnion(Object... elements) {
+            return FieldValue.arrayUnion(elements);
+        }
+
+        @Override
+        public Object serverTimestamp() {
+            return FieldValue.serverTimestamp();
+        }
+    };
+
+    private final Firestore firestore;
+
+    /**
+     * Konstruktor für das FirestoreChatBackend.
+     *
+     * @param firestore Die Firestore-Instanz (Produktion oder Emulator).
+     */
+    public FirestoreChatBackend(Firestore firestore) {
+        this.firestore = firestore;
+    }
+
+    @Override
+    public void send(String chatroomId, String senderId, String recipientId, String messageId, String message)
+            throws Exception {
+        DocumentReference chatroom = firestore.collection("chatrooms").document(chatroomId);
+
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("message", message);
+        fields.put("senderId", senderId);
+        fields.put("timestamp", Timestamp.now());
+
+        // Dieselben Felder wie der MessageSender der App, für eine Nachricht
+        Map<String, Object> summary = ChatroomSummary.build(FIELD_VALUES, chatroomId, senderId, recipientId,
+                message, 1);
+
+        WriteBatch batch = firestore.batch();
+        batch.set(chatroom.collection("chats").document(messageId), fields);
+        batch.set(chatroom, summary, SetOptions.merge());
+        batch.commit().get();
+    }
+
+    @Override
+    public Subscription listenForMessages(String chatroomId, MessageListener listener) {
+        ListenerRegistration registration = firestore.collection("chatrooms").document(chatroomId)
+                .collection("chats")
+                .orderBy("timestamp", Query.Direction.DESCENDING)
+                .limit(LIVE_WINDOW)
+                .addSnapshotListener((snapshot, e) -> {
+                    if (e != null || snapshot == null) {
+                        return;
+                    }
+                    for (DocumentChange change : snapshot.getDocumentChanges()) {
+                        if (change.getType() == DocumentChange.Type.ADDED) {
+                            listener.onMessage(change.getDocument().getId());
+                        }
+                    }
+                });
+        return registration::remove;
+    }
+
+    @Override
+    public int queryRecentChats(String userId) throws Exception {
+        return firestore.collection("chatrooms")
+                .whereArrayContains("userIds", userId)
+                .orderBy("lastMessageTimestamp", Query.Direction.DESCENDING)
+                .get().get().size();
+    }
+
+    @Override
+    public void close() throws Exception {
+        firestore.close();
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.hochschule_koblenz_chat_app.tools.load;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * ChatBackend im Arbeitsspeicher. Es bildet dieselben Zugriffsmuster ab wie das
+ * FirestoreChatBackend und liefert Listener-Ereignisse asynchron aus, damit
+ * der Lastgenerator ohne Emulator als Referenz laufen kann. Wie bei Firestore
+ * überschreibt eine bereits vorhandene Nachrichten-ID das Dokument und wird
+ * dem Listener nicht als neue Nachricht gemeldet.
+ *
+ * @autor: Mohamed Bebba
+ */
+public class InMemoryChatBackend implements ChatBackend {
+
+    // Nachrichten-IDs pro Chatroom
+    private final Map<String, Set<String>> messages = new ConcurrentHashMap<>();
+    // Chatroom-IDs pro Benutzer
+    private final Map<String, Set<String>> chatroomsByUser = new ConcurrentHashMap<>();
+    private final Map<String, List<MessageListener>> listeners = new ConcurrentHashMap<>();
+    // Zustellung der Listener-Ereignisse auf einem eigenen Thread
+    private final ExecutorService deliveryExecutor = Executors.newSingleThreadExecutor();
+
+    @Override
+    public void send(String chatroomId, String senderId, String recipientId, String messageId, String message) {
+        boolean added = messages.computeIfAbsent(chatroomId, id -> ConcurrentHashMap.newKeySet()).add(messageId);
+        chatroomsByUser.computeIfAbsent(senderId, id -> ConcurrentHashMap.newKeySet()).add(chatroomId);
+        chatroomsByUser.computeIfAbsent(recipientId, id -> ConcurrentHashMap.newKeySet()).add(chatroomId);
+        if (!added) {
+            return; // Überschriebenes Dokument, keine neue Nachricht
+        }
+        for (MessageListener listener : listeners.getOrDefault(chatroomId, new CopyOnWriteArrayList<>())) {
+            deliveryExecutor.execute(() -> listener.onMessage(messageId));
+        }
+    }
+
+    @Override
+    public Subscription listenForMessages(String chatroomId, MessageListener listener) {
+        List<MessageListener> roomListeners = listeners.computeIfAbsent(chatroomId,
+                id -> new CopyOnWriteArrayList<>());
+        roomListeners.add(listener);
+        return () -> roomListeners.remove(listener);
+    }
+
+    @Override
+    public int queryRecentChats(String userId) {
+        Set<String> chatrooms = chatroomsByUser.get(userId);
+        return chatrooms == null ? 0 : chatrooms.size();
+    }
+
+    @Override
+    public void close() {
+        deliveryExecutor.shutdown();
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.hochschule_koblenz_chat_app.tools.load;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Der LatencyRecorder sammelt gemessene Latenzen in Nanosekunden und berechnet
+ * daraus Perzentile.
+ *
+ * @autor: Mohamed Bebba
+ */
+public class LatencyRecorder {
+
+    private final String name;
+    private long[] samples = new long[1024];
+    private int count = 0;
+
+    /**
+     * Konstruktor für den LatencyRecorder.
+     *
+     * @param name Der Name der Messreihe für die Ausgabe.
+     */
+    public LatencyRecorder(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Speichert eine gemessene Latenz.
+     *
+     * @param nanos Die Latenz in Nanosekunden.
+     */
+    public synchronized void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+    }
+
+    /**
+     * Gibt die Anzahl der Messwerte zurück.
+     *
+     * @return Die Anzahl der Messwerte.
+     */
+    public synchronized int getCount() {
+        return count;
+    }
+
+    /**
+     * Berechnet ein Perzentil der gemessenen Latenzen.
+     *
+     * @param percentile Das Perzentil zwischen 0 und 100.
+     * @return Die Latenz in Millisekunden oder 0 ohne Messwerte.
+     */
+    public synchronized double percentileMillis(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+        return sorted[Math.max(0, Math.min(index, count - 1))] / 1e6;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%s: n=%d p50=%.1fms p90=%.1fms p99=%.1fms max=%.1fms",
+                name, getCount(), percentileMillis(50), percentileMillis(90), percentileMillis(99),
+                percentileMillis(100));
+    }
+}
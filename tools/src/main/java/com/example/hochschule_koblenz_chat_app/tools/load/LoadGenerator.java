@@ -0,0 +1,211 @@
+package com.example.hochschule_koblenz_chat_app.tools.load;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Der LoadGenerator simuliert N virtuelle Benutzer, die paarweise in
+ * Chatrooms Nachrichten austauschen. Jeder Benutzer sendet Nachrichten über
+ * denselben Schreibpfad wie die App und fragt regelmäßig seine letzten Chats
+ * ab. Gemessen werden die Latenz vom Senden bis zur Zustellung beim Listener,
+ * die Dauer der Schreibvorgänge und Abfragen sowie der Durchsatz.
+ * Die Nachrichten-IDs tragen eine zufällige Kennung des Laufs, damit ein
+ * erneuter Lauf gegen dieselbe Datenbank neue Dokumente anlegt, statt die
+ * eines früheren Laufs zu überschreiben (die dann nicht als neu zugestellt
+ * gemeldet würden).
+ *
+ * @autor: Mohamed Bebba
+ */
+public class LoadGenerator {
+
+    private final ChatBackend backend;
+    private final int users;
+    private final int messagesPerUser;
+    private final long sendIntervalMs;
+    private final int recentChatsEvery;
+
+    /**
+     * Konstruktor für den LoadGenerator.
+     *
+     * @param backend          Das Backend, gegen das die Last erzeugt wird.
+     * @param users            Die Anzahl virtueller Benutzer (mindestens 2).
+     * @param messagesPerUser  Die Anzahl der Nachrichten pro Benutzer.
+     * @param sendIntervalMs   Die Pause zwischen zwei Nachrichten eines Benutzers.
+     * @param recentChatsEvery Nach wie vielen Nachrichten die letzten Chats
+     *                         abgefragt werden.
+     */
+    public LoadGenerator(ChatBackend backend, int users, int messagesPerUser, long sendIntervalMs,
+            int recentChatsEvery) {
+        if (users < 2) {
+            throw new IllegalArgumentException("Mindestens zwei virtuelle Benutzer erforderlich");
+        }
+        this.backend = backend;
+        this.users = users;
+        this.messagesPerUser = messagesPerUser;
+        this.sendIntervalMs = sendIntervalMs;
+        this.recentChatsEvery = Math.max(1, recentChatsEvery);
+    }
+
+    /**
+     * Führt den Lasttest aus und wartet, bis alle Nachrichten zugestellt wurden
+     * oder die Wartezeit abgelaufen ist.
+     *
+     * @param deliveryTimeoutMs Die maximale Wartezeit auf ausstehende
+     *                          Zustellungen nach dem letzten Senden.
+     * @return Der Bericht mit den Messergebnissen.
+     * @throws Exception Wenn ein virtueller Benutzer fehlschlägt.
+     */
+    public LoadReport run(long deliveryTimeoutMs) throws Exception {
+        LatencyRecorder delivery = new LatencyRecorder("send->listener");
+        LatencyRecorder writes = new LatencyRecorder("batch commit");
+        LatencyRecorder queries = new LatencyRecorder("recent chats query");
+        Map<String, Long> sentAt = new ConcurrentHashMap<>();
+        CountDownLatch delivered = new CountDownLatch(users * messagesPerUser);
+        String runId = UUID.randomUUID().toString().substring(0, 8);
+
+        // Je ein Listener pro Chatroom, wie die geöffnete ChatActivity
+        List<ChatBackend.Subscription> subscriptions = new ArrayList<>();
+        Set<String> chatroomIds = new LinkedHashSet<>();
+        for (int user = 0; user < users; user++) {
+            chatroomIds.add(chatroomId(user));
+        }
+        for (String chatroomId : chatroomIds) {
+            subscriptions.add(backend.listenForMessages(chatroomId, messageId -> {
+                Long start = sentAt.remove(messageId);
+                if (start != null) {
+                    delivery.record(System.nanoTime() - start);
+                    delivered.countDown();
+                }
+            }));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(users);
+        long startNanos = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int user = 0; user < users; user++) {
+            final int sender = user;
+            futures.add(pool.submit(() -> {
+                simulateUser(runId, sender, sentAt, writes, queries);
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long sendNanos = System.nanoTime() - startNanos;
+        boolean complete = delivered.await(deliveryTimeoutMs, TimeUnit.MILLISECONDS);
+        long totalNanos = System.nanoTime() - startNanos;
+
+        pool.shutdown();
+        for (ChatBackend.Subscription subscription : subscriptions) {
+            subscription.remove();
+        }
+        return new LoadReport(users * messagesPerUser, delivery.getCount(), complete, sendNanos, totalNanos,
+                delivery, writes, queries);
+    }
+
+    /**
+     * Ablauf eines virtuellen Benutzers: Nachrichten senden und regelmäßig die
+     * letzten Chats abfragen.
+     */
+    private void simulateUser(String runId, int user, Map<String, Long> sentAt, LatencyRecorder writes,
+            LatencyRecorder queries) throws Exception {
+        String userId = userId(user);
+        String recipientId = userId(partnerOf(user));
+        String chatroomId = chatroomId(user);
+        for (int i = 0; i < messagesPerUser; i++) {
+            String messageId = messageId(runId, userId, i);
+            long start = System.nanoTime();
+            sentAt.put(messageId, start);
+            backend.send(chatroomId, userId, recipientId, messageId, "Nachricht " + i + " von " + userId);
+            writes.record(System.nanoTime() - start);
+
+            if ((i + 1) % recentChatsEvery == 0) {
+                long queryStart = System.nanoTime();
+                backend.queryRecentChats(userId);
+                queries.record(System.nanoTime() - queryStart);
+            }
+            if (sendIntervalMs > 0) {
+                Thread.sleep(sendIntervalMs);
+            }
+        }
+    }
+
+    /**
+     * Gibt den Gesprächspartner eines Benutzers zurück. Benutzer werden paarweise
+     * zugeordnet; bei ungerader Anzahl schreibt der letzte mit Benutzer 0.
+     */
+    private int partnerOf(int user) {
+        int partner = user ^ 1;
+        return partner < users ? partner : 0;
+    }
+
+    private String chatroomId(int user) {
+        int partner = partnerOf(user);
+        return "load_" + Math.min(user, partner) + "_" + Math.max(user, partner);
+    }
+
+    private static String userId(int user) {
+        return "load-user-" + user;
+    }
+
+    /**
+     * Gibt die Dokument-ID einer Nachricht zurück, eindeutig über alle Läufe.
+     */
+    static String messageId(String runId, String userId, int index) {
+        return runId + "-" + userId + "-" + index;
+    }
+
+    /**
+     * Die Ergebnisse eines Lasttests.
+     */
+    public static class LoadReport {
+        public final int sent;
+        public final int delivered;
+        public final boolean complete;
+        public final long sendNanos;
+        public final long totalNanos;
+        public final LatencyRecorder delivery;
+        public final LatencyRecorder writes;
+        public final LatencyRecorder queries;
+
+        LoadReport(int sent, int delivered, boolean complete, long sendNanos, long totalNanos,
+                LatencyRecorder delivery, LatencyRecorder writes, LatencyRecorder queries) {
+            this.sent = sent;
+            this.delivered = delivered;
+            this.complete = complete;
+            this.sendNanos = sendNanos;
+            this.totalNanos = totalNanos;
+            this.delivery = delivery;
+            this.writes = writes;
+            this.queries = queries;
+        }
+
+        /**
+         * Gibt den Sendedurchsatz in Nachrichten pro Sekunde zurück.
+         *
+         * @return Die gesendeten Nachrichten pro Sekunde.
+         */
+        public double messagesPerSecond() {
+            return sendNanos <= 0 ? 0 : sent / (sendNanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "gesendet=%d zugestellt=%d%s, %.1f Nachrichten/s, Dauer %.1fs%n%s%n%s%n%s",
+                    sent, delivered, complete ? "" : " (unvollständig)", messagesPerSecond(), totalNanos / 1e9,
+                    delivery, writes, queries);
+        }
+    }
+}
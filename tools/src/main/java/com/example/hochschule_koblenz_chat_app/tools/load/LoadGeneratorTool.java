@@ -0,0 +1,50 @@
+package com.example.hochschule_koblenz_chat_app.tools.load;
+
+import com.example.hochschule_koblenz_chat_app.tools.ChatHistoryTool;
+
+/**
+ * Kommandozeilen-Einstieg für den Lastgenerator.
+ *
+ * Aufruf:
+ * 
+ * <pre>
+ * (memory|firestore) &lt;projectId&gt; &lt;benutzer&gt; &lt;nachrichtenProBenutzer&gt; [intervallMs]
+ * </pre>
+ *
+ * Mit "firestore" wird gegen den Emulator gearbeitet, sobald
+ * FIRESTORE_EMULATOR_HOST gesetzt ist.
+ *
+ * @autor: Mohamed Bebba
+ */
+public class LoadGeneratorTool {
+
+    // Nach wie vielen Nachrichten ein Benutzer seine letzten Chats abfragt
+    private static final int RECENT_CHATS_EVERY = 10;
+    private static final long DELIVERY_TIMEOUT_MS = 30_000;
+
+    /**
+     * Führt einen Lasttest aus und gibt den Bericht aus.
+     *
+     * @param args Backend, Projekt-ID, Benutzeranzahl, Nachrichten pro Benutzer
+     *             und optional das Sendeintervall.
+     * @throws Exception Wenn der Lasttest fehlschlägt.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            System.err.println(
+                    "Aufruf: (memory|firestore) <projectId> <benutzer> <nachrichtenProBenutzer> [intervallMs]");
+            System.exit(2);
+        }
+        int users = Integer.parseInt(args[2]);
+        int messagesPerUser = Integer.parseInt(args[3]);
+        long intervalMs = args.length > 4 ? Long.parseLong(args[4]) : 0;
+
+        try (ChatBackend backend = "memory".equals(args[0])
+                ? new InMemoryChatBackend()
+                : new FirestoreChatBackend(ChatHistoryTool.openFirestore(args[1]))) {
+            LoadGenerator.LoadReport report = new LoadGenerator(backend, users, messagesPerUser, intervalMs,
+                    RECENT_CHATS_EVERY).run(DELIVERY_TIMEOUT_MS);
+            System.out.println(report);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.hochschule_koblenz_chat_app.tools;
+
+import static org.junit.Assert.assertEquals;
+
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.WriteBatch;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+/**
+ * Export und Import gegen den Firestore-Emulator. Wird übersprungen, wenn
+ * FIRESTORE_EMULATOR_HOST nicht gesetzt ist.
+ */
+public class ChatHistoryEmulatorTest {
+
+    private Firestore firestore;
+
+    @Before
+    public void setUp() {
+        String emulatorHost = System.getenv("FIRESTORE_EMULATOR_HOST");
+        Assume.assumeTrue(emulatorHost != null && !emulatorHost.isEmpty());
+        firestore = ChatHistoryTool.openFirestore("demo-chat-tools");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (firestore != null) {
+            firestore.close();
+        }
+    }
+
+    @Test
+    public void exportThenImportCopiesAllMessages() throws Exception {
+        CollectionReference source = firestore.collection("chatrooms").document("export_src").collection("chats");
+        WriteBatch batch = firestore.batch();
+        for (int i = 0; i < 25; i++) {
+            batch.set(source.document("m" + i),
+                    MessageCodec.toFields(new ExportedMessage("m" + i, "Nachricht " + i, "u1", 1000 + i, 0)));
+        }
+        batch.commit().get();
+
+        StringWriter out = new StringWriter();
+        ThroughputCounter exported = new ChatHistoryExporter(firestore, 10).export("export_src", out);
+        assertEquals(25, exported.getDocuments());
+        assertEquals(3, exported.getRequests());
+
+        ThroughputCounter imported = new ChatHistoryImporter(firestore, 10)
+                .importInto("export_dst", new BufferedReader(new StringReader(out.toString())));
+        assertEquals(25, imported.getDocuments());
+
+        int copied = firestore.collection("chatrooms").document("export_dst").collection("chats")
+                .get().get().size();
+        assertEquals(25, copied);
+    }
+}
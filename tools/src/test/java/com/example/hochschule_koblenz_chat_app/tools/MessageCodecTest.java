@@ -0,0 +1,28 @@
+package com.example.hochschule_koblenz_chat_app.tools;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.Test;
+
+/**
+ * Tests für das NDJSON-Format des MessageCodecs.
+ */
+public class MessageCodecTest {
+
+    @Test
+    public void roundTripsMessage() {
+        ExportedMessage original = new ExportedMessage("abc", "Hallo \"Welt\"\nzweite Zeile", "user1",
+                1700000000L, 123456789);
+
+        String line = MessageCodec.encode(original);
+        ExportedMessage decoded = MessageCodec.decode(line);
+
+        assertFalse(line.contains("\n"));
+        assertEquals("abc", decoded.getId());
+        assertEquals("Hallo \"Welt\"\nzweite Zeile", decoded.getMessage());
+        assertEquals("user1", decoded.getSenderId());
+        assertEquals(1700000000L, decoded.getTimestampSeconds());
+        assertEquals(123456789, decoded.getTimestampNanos());
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.hochschule_koblenz_chat_app.tools;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.example.hochschule_koblenz_chat_app.utils.SearchKeywords;
+import com.google.cloud.firestore.CollectionReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.WriteBatch;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Backfill der Suchschlüssel gegen den Firestore-Emulator. Wird übersprungen,
+ * wenn FIRESTORE_EMULATOR_HOST nicht gesetzt ist.
+ */
+public class SearchKeywordsBackfillEmulatorTest {
+
+    private Firestore firestore;
+
+    @Before
+    public void setUp() {
+        String emulatorHost = System.getenv("FIRESTORE_EMULATOR_HOST");
+        Assume.assumeTrue(emulatorHost != null && !emulatorHost.isEmpty());
+        firestore = ChatHistoryTool.openFirestore("demo-chat-tools");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (firestore != null) {
+            firestore.close();
+        }
+    }
+
+    @Test
+    public void backfillWritesKeywordsOnceAcrossPages() throws Exception {
+        CollectionReference users = firestore.collection("users");
+        WriteBatch batch = firestore.batch();
+        for (int i = 0; i < 25; i++) {
+            Map<String, Object> user = new HashMap<>();
+            user.put("username", "Benutzer " + i);
+            user.put("phone", "+49170000" + i);
+            batch.set(users.document("backfill_u" + i), user);
+        }
+        batch.commit().get();
+
+        ThroughputCounter first = new SearchKeywordsBackfill(firestore, 10).run();
+        assertTrue(first.getDocuments() >= 25);
+
+        @SuppressWarnings("unchecked")
+        List<String> keywords = (List<String>) users.document("backfill_u7").get().get()
+                .get(SearchKeywords.FIELD);
+        assertEquals(SearchKeywords.forUser("Benutzer 7", "+491700007"), keywords);
+        assertTrue(users.whereArrayContains(SearchKeywords.FIELD, "benutzer 1").get().get().size() >= 11);
+
+        // Ein zweiter Lauf findet nichts mehr zu tun
+        ThroughputCounter second = new SearchKeywordsBackfill(firestore, 10).run();
+        assertEquals(0, second.getDocuments());
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.hochschule_koblenz_chat_app.tools.load;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests für den LoadGenerator gegen das InMemoryChatBackend.
+ */
+public class LoadGeneratorTest {
+
+    @Test
+    public void deliversEveryMessageToTheRoomListener() throws Exception {
+        try (InMemoryChatBackend backend = new InMemoryChatBackend()) {
+            LoadGenerator.LoadReport report = new LoadGenerator(backend, 5, 20, 0, 5).run(5000);
+
+            assertTrue(report.complete);
+            assertEquals(100, report.sent);
+            assertEquals(100, report.delivered);
+            assertEquals(100, report.writes.getCount());
+            assertEquals(20, report.queries.getCount());
+        }
+    }
+
+    @Test
+    public void rerunAgainstSameBackendDeliversEveryMessage() throws Exception {
+        try (InMemoryChatBackend backend = new InMemoryChatBackend()) {
+            new LoadGenerator(backend, 2, 10, 0, 5).run(5000);
+            // Ein zweiter Lauf darf die Dokumente des ersten nicht überschreiben
+            LoadGenerator.LoadReport report = new LoadGenerator(backend, 2, 10, 0, 5).run(5000);
+
+            assertTrue(report.complete);
+            assertEquals(20, report.delivered);
+        }
+    }
+
+    @Test
+    public void computesPercentilesFromSamples() {
+        LatencyRecorder recorder = new LatencyRecorder("test");
+        for (int i = 1; i <= 100; i++) {
+            recorder.record(i * 1_000_000L);
+        }
+
+        assertEquals(50.0, recorder.percentileMillis(50), 0.001);
+        assertEquals(99.0, recorder.percentileMillis(99), 0.001);
+        assertEquals(100.0, recorder.percentileMillis(100), 0.001);
+    }
+}